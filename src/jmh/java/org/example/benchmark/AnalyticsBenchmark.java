@@ -0,0 +1,59 @@
+package org.example.benchmark;
+
+import org.example.analytics.RestaurantAnalytics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 餐廳即時統計的寫入與查詢成本（多執行緒共用同一份統計）
+ * - recordReady：狀態轉換時的一次遞增（隨機餐廳）
+ * - query60Minutes：單一餐廳 60 分鐘視窗，只加總時間桶，與訂單量無關
+ * - queryAll5Minutes：全部餐廳合計
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    private static final int RESTAURANTS = 300;
+
+    private final RestaurantAnalytics analytics = new RestaurantAnalytics();
+    private final String[] restaurantIds = new String[RESTAURANTS];
+
+    @Setup
+    public void setup() {
+        // 填滿 60 個時間桶
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < RESTAURANTS; i++) {
+            restaurantIds[i] = "R" + i;
+            for (int minute = 0; minute < 60; minute++) {
+                long time = now - TimeUnit.MINUTES.toMillis(minute);
+                analytics.onOrderCreated(restaurantIds[i], time);
+                analytics.onAccepted(restaurantIds[i], time);
+                analytics.onReady(restaurantIds[i], time, 600_000);
+                analytics.onDelivered(restaurantIds[i], time, 25_000);
+            }
+        }
+    }
+
+    @Benchmark
+    public void recordReady() {
+        analytics.onReady(restaurantIds[ThreadLocalRandom.current().nextInt(RESTAURANTS)],
+                System.currentTimeMillis(), 600_000);
+    }
+
+    @Benchmark
+    public Object query60Minutes() {
+        return analytics.query(restaurantIds[ThreadLocalRandom.current().nextInt(RESTAURANTS)], 60);
+    }
+
+    @Benchmark
+    public Object queryAll5Minutes() {
+        return analytics.queryAll(5);
+    }
+}
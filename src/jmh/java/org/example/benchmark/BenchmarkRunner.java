@@ -0,0 +1,51 @@
+package org.example.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 效能測試進入點
+ * 依序以 1、4、N（CPU 核心數）條執行緒執行，並附上 GC/配置量分析（gc.alloc.rate.norm）
+ * 可接受所有 JMH 命令列參數；若指定 -t 則只跑該執行緒數
+ *
+ * mvn -Pbenchmark package exec:exec
+ * mvn -Pbenchmark package exec:exec -Djmh.args="Transition -p transition=foodReady"
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+
+        Set<Integer> threadCounts = new TreeSet<>();
+        if (cli.getThreads().hasValue()) {
+            threadCounts.add(cli.getThreads().get());
+        } else {
+            threadCounts.add(1);
+            threadCounts.add(4);
+            threadCounts.add(Runtime.getRuntime().availableProcessors());
+        }
+
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(cli)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class);
+            if (cli.getIncludes().isEmpty()) {
+                // 日誌延遲壓測需要不同的 log4j2 設定、heap 佔用與慢速連線量測只能單執行緒，預設不一起跑
+                options.exclude("LoggingLatencyBenchmark");
+                options.exclude("OrderFootprintBenchmark");
+                options.exclude("HttpApiBenchmark.SlowClients");
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
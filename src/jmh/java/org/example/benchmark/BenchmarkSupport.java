@@ -0,0 +1,41 @@
+package org.example.benchmark;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.example.exception.RestaurantBusyException;
+import org.example.service.DeliveryService;
+
+/**
+ * 效能測試共用工具
+ */
+final class BenchmarkSupport {
+
+    static final String RESTAURANT_ID = "R001";
+    static final String FOOD_ITEMS = "珍珠奶茶x2, 雞排便當x1";
+    static final double TOTAL_AMOUNT = 250.0;
+    static final String ADDRESS = "台中市西屯區文華路100號";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 關閉服務日誌，只量測服務本身的成本（日誌成本見 LoggingLatencyBenchmark）
+     */
+    static void silenceServiceLogs() {
+        Configurator.setLevel("org.example.service.DeliveryService", Level.OFF);
+    }
+
+    /**
+     * 接單直到成功（略過模擬的 20% 隨機失敗）
+     */
+    static void acceptUntilSuccess(DeliveryService service, String orderId) throws Exception {
+        for (;;) {
+            try {
+                service.acceptOrder(orderId, RESTAURANT_ID);
+                return;
+            } catch (RestaurantBusyException e) {
+                // 模擬的隨機失敗，重試
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.benchmark;
+
+import org.example.exception.RestaurantBusyException;
+import org.example.id.SnowflakeIdGenerator;
+import org.example.journal.FsyncPolicy;
+import org.example.journal.MappedOrderJournal;
+import org.example.journal.OrderJournal;
+import org.example.model.Order;
+import org.example.model.OrderRequest;
+import org.example.service.BulkResult;
+import org.example.service.DeliveryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批次 API 與逐筆呼叫的比較：一批訂單走完 建立 → 接單 → 準備 → 完成 → 取消
+ * - singleCalls：逐筆呼叫 createOrder / acceptOrder / foodReady / cancelOrder
+ * - bulkCalls：createOrders / acceptOrders / foodReadyAll / cancelOrders
+ * 準備餐點沒有批次 API，兩者都逐筆呼叫 prepareFood；模擬的接單失敗兩者都重試到成功
+ * journal=NONE 只比較服務本身，GROUP_COMMIT 時逐筆呼叫每個事件都要等待落盤
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkOperationsBenchmark {
+
+    @Param({"100"})
+    public int batchSize;
+
+    @Param({"NONE", "GROUP_COMMIT"})
+    public String journal;
+
+    private Path directory;
+    private OrderJournal orderJournal;
+    private DeliveryService service;
+    private List<OrderRequest> requests;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        BenchmarkSupport.silenceServiceLogs();
+        // 每輪換一個新的服務，避免累積的訂單影響結果
+        if ("NONE".equals(journal)) {
+            orderJournal = OrderJournal.DISABLED;
+        } else {
+            directory = Files.createTempDirectory("bulk-bench");
+            orderJournal = MappedOrderJournal.open(directory, FsyncPolicy.valueOf(journal));
+        }
+        service = new DeliveryService(new SnowflakeIdGenerator(0), orderJournal);
+        requests = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            requests.add(new OrderRequest("C" + i, BenchmarkSupport.RESTAURANT_ID, BenchmarkSupport.FOOD_ITEMS,
+                    BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        service.close();
+        orderJournal.close();
+        if (directory != null) {
+            JournalBenchmark.deleteRecursively(directory);
+            directory = null;
+        }
+    }
+
+    @Benchmark
+    public int singleCalls() throws Exception {
+        List<String> orderIds = new ArrayList<>(batchSize);
+        for (OrderRequest request : requests) {
+            orderIds.add(service.createOrder(request.getCustomerId(), request.getRestaurantId(),
+                    request.getFoodItems(), request.getTotalAmount(), request.getDeliveryAddress()).getOrderId());
+        }
+        for (String orderId : orderIds) {
+            BenchmarkSupport.acceptUntilSuccess(service, orderId);
+        }
+        for (String orderId : orderIds) {
+            service.prepareFood(orderId);
+        }
+        for (String orderId : orderIds) {
+            service.foodReady(orderId);
+        }
+        for (String orderId : orderIds) {
+            service.cancelOrder(orderId, "批次測試");
+        }
+        return orderIds.size();
+    }
+
+    @Benchmark
+    public int bulkCalls() throws Exception {
+        List<String> orderIds = new ArrayList<>(batchSize);
+        for (Order order : service.createOrders(requests).getSuccesses()) {
+            orderIds.add(order.getOrderId());
+        }
+        List<String> pending = orderIds;
+        while (!pending.isEmpty()) {
+            BulkResult<Order> accepted = service.acceptOrders(BenchmarkSupport.RESTAURANT_ID, pending);
+            List<String> retry = new ArrayList<>(accepted.getFailureCount());
+            for (int i = 0; i < accepted.size(); i++) {
+                if (accepted.getFailure(i) instanceof RestaurantBusyException) {
+                    retry.add(pending.get(i));
+                }
+            }
+            pending = retry;
+        }
+        for (String orderId : orderIds) {
+            service.prepareFood(orderId);
+        }
+        service.foodReadyAll(orderIds);
+        service.cancelOrders(orderIds, "批次測試");
+        return orderIds.size();
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.benchmark;
+
+import org.example.resilience.BreakerPolicy;
+import org.example.resilience.CircuitBreaker;
+import org.example.resilience.CircuitBreakerListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 斷路器加在接單路徑上的成本：取得許可並回報成功（正常狀態下每次接單都會經過）
+ * - closed：正常狀態，單一 CAS 更新視窗計數
+ * - open：斷路中的快速失敗，只讀取狀態與累加拒絕次數
+ * 以 -t 4 執行可看到多執行緒搶同一家餐廳時的 CAS 競爭
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircuitBreakerBenchmark {
+
+    private CircuitBreaker closed;
+    private CircuitBreaker open;
+
+    @Setup
+    public void setUp() {
+        BreakerPolicy policy = BreakerPolicy.defaults();
+        closed = new CircuitBreaker("closed", policy, CircuitBreakerListener.NONE);
+        open = new CircuitBreaker("open", policy, CircuitBreakerListener.NONE);
+        // 讓 open 一直維持斷路：時間戳設在遠未來
+        for (int i = 0; i < policy.getMinimumCalls(); i++) {
+            open.onFailure(Long.MAX_VALUE >>> 2);
+        }
+    }
+
+    @Benchmark
+    public boolean closed() {
+        boolean permitted = closed.tryAcquirePermission();
+        closed.onSuccess();
+        return permitted;
+    }
+
+    @Benchmark
+    public boolean open() {
+        return open.tryAcquirePermission();
+    }
+}
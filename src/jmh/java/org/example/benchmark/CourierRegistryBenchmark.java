@@ -0,0 +1,66 @@
+package org.example.benchmark;
+
+import org.example.courier.Courier;
+import org.example.courier.CourierRegistry;
+import org.example.model.GeoPoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 外送員空間索引：位置回報與最近可用外送員查詢同時進行
+ * pings 群組模擬外送員持續回報位置，nearest 群組量測查詢在寫入壓力下的延遲
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CourierRegistryBenchmark {
+
+    // 台中市區大約範圍
+    private static final double MIN_LAT = 24.10;
+    private static final double MIN_LON = 120.60;
+    private static final double SPAN = 0.10;
+
+    @Param({"5000"})
+    public int courierCount;
+
+    private CourierRegistry registry;
+    private String[] courierIds;
+
+    @Setup
+    public void setUp() {
+        registry = new CourierRegistry();
+        courierIds = new String[courierCount];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < courierCount; i++) {
+            courierIds[i] = "D" + i;
+            // 約一半的外送員可接單
+            registry.register(courierIds[i], (i & 1) == 0);
+            registry.updateLocation(courierIds[i],
+                    MIN_LAT + random.nextDouble() * SPAN, MIN_LON + random.nextDouble() * SPAN);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void pings() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        registry.updateLocation(courierIds[random.nextInt(courierIds.length)],
+                MIN_LAT + random.nextDouble() * SPAN, MIN_LON + random.nextDouble() * SPAN);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<Courier> nearest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return registry.findNearestAvailable(
+                new GeoPoint(MIN_LAT + random.nextDouble() * SPAN, MIN_LON + random.nextDouble() * SPAN), 8);
+    }
+}
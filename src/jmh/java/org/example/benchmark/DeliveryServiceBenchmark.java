@@ -0,0 +1,81 @@
+package org.example.benchmark;
+
+import org.example.model.Order;
+import org.example.service.DeliveryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 訂單儲存層與完整流程的吞吐量：建立訂單、查詢訂單、建立到完成配送的完整生命週期
+ * 所有執行緒共用同一個 DeliveryService，用來觀察多核心下的競爭
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeliveryServiceBenchmark {
+
+    /** 查詢測試前預先建立的訂單數 */
+    @Param({"100000"})
+    public int preloadedOrders;
+
+    private DeliveryService service;
+    private String[] orderIds;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.silenceServiceLogs();
+        service = new DeliveryService();
+        orderIds = new String[preloadedOrders];
+        for (int i = 0; i < preloadedOrders; i++) {
+            orderIds[i] = service.createOrder("C" + i, BenchmarkSupport.RESTAURANT_ID, BenchmarkSupport.FOOD_ITEMS,
+                    BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS).getOrderId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+    }
+
+    /**
+     * 每條執行緒各自擁有一位外送員，避免量到外送員不足而非儲存層本身
+     */
+    @State(Scope.Thread)
+    public static class Courier {
+        String deliveryPersonId;
+
+        @Setup
+        public void setUp(DeliveryServiceBenchmark benchmark) {
+            deliveryPersonId = "D-" + Thread.currentThread().threadId();
+            benchmark.service.setDeliveryPersonAvailability(deliveryPersonId, true);
+        }
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return service.createOrder("C001", BenchmarkSupport.RESTAURANT_ID, BenchmarkSupport.FOOD_ITEMS,
+                BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS);
+    }
+
+    @Benchmark
+    public Order getOrder() throws Exception {
+        return service.getOrder(orderIds[ThreadLocalRandom.current().nextInt(orderIds.length)]);
+    }
+
+    @Benchmark
+    public Order fullLifecycle(Courier courier) throws Exception {
+        Order order = createOrder();
+        String orderId = order.getOrderId();
+        BenchmarkSupport.acceptUntilSuccess(service, orderId);
+        service.prepareFood(orderId);
+        service.foodReady(orderId);
+        service.assignDeliveryPerson(orderId, courier.deliveryPersonId);
+        service.completeDelivery(orderId);
+        return order;
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.benchmark;
+
+import org.example.eta.EtaService;
+import org.example.model.GeoPoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 預估送達時間的各條路徑（內建台中市棋盤路網）
+ * - cachedEstimate：地址命中快取、餐廳已預先計算，只剩查表
+ * - geocodeMiss：每次都是新地址，需查地名索引
+ * - routeMiss：餐廳未預先計算，點對點 Dijkstra
+ * - precompute：登錄餐廳時的完整 Dijkstra 與區域表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EtaBenchmark {
+
+    private static final String RESTAURANT = "R1";
+    private static final String ADDRESS = "台中市北屯區文心路100號";
+    private static final GeoPoint RESTAURANT_LOCATION = new GeoPoint(24.1477, 120.6736);
+
+    private EtaService eta;
+    private final AtomicLong houseNumber = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        eta = EtaService.createDefault();
+        eta.registerRestaurant(RESTAURANT, RESTAURANT_LOCATION);
+        eta.estimateAtPickup(RESTAURANT, ADDRESS, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public long cachedEstimate() {
+        return eta.estimateAtPickup(RESTAURANT, ADDRESS, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public long geocodeMiss() {
+        return eta.estimateAtPickup(RESTAURANT, "台中市南區建國路" + houseNumber.incrementAndGet() + "號",
+                System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public float routeMiss() {
+        // 直接走點對點：餐廳節點到地址最近的節點
+        int source = eta.getGraph().nearestNode(RESTAURANT_LOCATION.getLatitude(), RESTAURANT_LOCATION.getLongitude());
+        int target = eta.getGraph().nearestNode(24.1200, 120.6400);
+        return eta.getGraph().travelSeconds(source, target);
+    }
+
+    @Benchmark
+    public void precompute() {
+        eta.registerRestaurant("R2", RESTAURANT_LOCATION);
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.benchmark;
+
+import org.example.http.DeliveryHttpServer;
+import org.example.service.DeliveryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP API 本機迴路壓測
+ * - RoundTrip：建立訂單再查詢的延遲分佈
+ * - SlowClients：大量慢速用戶端同時連線（標頭分兩段送出，中間停頓），
+ *   比較每請求一條虛擬執行緒與固定 200 條平台執行緒的伺服器完成全部請求的時間
+ *
+ * SlowClients 每條量測執行緒就會開出數千條連線，預設不執行：
+ * mvn -Pbenchmark package exec:exec -Djmh.args="HttpApiBenchmark.SlowClients -t 1"
+ */
+public class HttpApiBenchmark {
+
+    private static final String CREATE_BODY = "{\"customerId\":\"C001\",\"restaurantId\":\"R001\","
+            + "\"foodItems\":\"珍珠奶茶x2, 雞排便當x1\",\"totalAmount\":250,\"deliveryAddress\":\"台中市西屯區文華路100號\"}";
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 3)
+    @Fork(1)
+    public static class RoundTrip {
+        private DeliveryService service;
+        private DeliveryHttpServer server;
+        private HttpClient client;
+        private URI orders;
+
+        @Setup
+        public void setUp() throws IOException {
+            BenchmarkSupport.silenceServiceLogs();
+            service = new DeliveryService();
+            server = new DeliveryHttpServer(service,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            server.start();
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            orders = URI.create("http://127.0.0.1:" + server.getPort() + "/orders");
+        }
+
+        @TearDown
+        public void tearDown() {
+            server.close();
+            service.close();
+        }
+
+        @Benchmark
+        public int createAndGet() throws Exception {
+            HttpResponse<String> created = client.send(HttpRequest.newBuilder(orders)
+                    .POST(HttpRequest.BodyPublishers.ofString(CREATE_BODY)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            String location = created.headers().firstValue("Location").orElseThrow();
+            HttpResponse<String> fetched = client.send(HttpRequest.newBuilder(orders.resolve(location)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return fetched.statusCode();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(1)
+    public static class SlowClients {
+
+        @Param({"1000", "4000"})
+        public int clients;
+
+        @Param({"VIRTUAL", "PLATFORM_200"})
+        public String executor;
+
+        /** 用戶端送出一半標頭後停頓的時間 */
+        @Param({"100"})
+        public int stallMillis;
+
+        private DeliveryService service;
+        private DeliveryHttpServer server;
+        private byte[] head;
+        private byte[] tail;
+
+        @Setup
+        public void setUp() throws Exception {
+            BenchmarkSupport.silenceServiceLogs();
+            service = new DeliveryService();
+            String orderId = service.createOrder("C001", BenchmarkSupport.RESTAURANT_ID, BenchmarkSupport.FOOD_ITEMS,
+                    BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS).getOrderId();
+            ExecutorService handlers = "VIRTUAL".equals(executor)
+                    ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(200);
+            server = new DeliveryHttpServer(service, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    DeliveryHttpServer.DEFAULT_BACKLOG, handlers);
+            server.start();
+            head = ("GET /orders/" + orderId + " HTTP/1.1\r\nHost: localhost\r\n").getBytes(StandardCharsets.US_ASCII);
+            tail = "Connection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @TearDown
+        public void tearDown() {
+            server.close();
+            service.close();
+        }
+
+        /**
+         * @return 收到 200 回應的用戶端數
+         */
+        @Benchmark
+        public int stalledRequests() {
+            AtomicInteger ok = new AtomicInteger();
+            // 用戶端用平台執行緒，伺服器端的執行緒模型才是唯一變因
+            try (ExecutorService clientThreads = Executors.newCachedThreadPool()) {
+                for (int i = 0; i < clients; i++) {
+                    clientThreads.execute(() -> {
+                        if (request()) {
+                            ok.incrementAndGet();
+                        }
+                    });
+                }
+            }
+            if (ok.get() != clients) {
+                throw new IllegalStateException("只有 " + ok.get() + " / " + clients + " 個請求成功");
+            }
+            return ok.get();
+        }
+
+        private boolean request() {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                OutputStream out = socket.getOutputStream();
+                out.write(head);
+                out.flush();
+                Thread.sleep(stallMillis);
+                out.write(tail);
+                out.flush();
+                InputStream in = socket.getInputStream();
+                byte[] response = in.readAllBytes();
+                return new String(response, 0, Math.min(12, response.length), StandardCharsets.US_ASCII)
+                        .equals("HTTP/1.1 200");
+            } catch (IOException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.benchmark;
+
+import org.example.id.SnowflakeIdGenerator;
+import org.example.journal.OrderJournal;
+import org.example.model.Order;
+import org.example.service.DeliveryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冪等鍵的成本
+ * - withoutKey：一般下單
+ * - newKey：每次使用新的鍵（登記鍵 + 建立訂單），鍵數維持在上限附近，包含容量淘汰
+ * - replay：重送同一把鍵，只查快取並回傳原訂單
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdempotencyBenchmark {
+
+    private static final int REPLAY_KEYS = 1024;
+
+    private DeliveryService service;
+    private String[] replayKeys;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BenchmarkSupport.silenceServiceLogs();
+        // 每輪換一個新的服務，避免累積的訂單影響結果
+        service = new DeliveryService(new SnowflakeIdGenerator(0), OrderJournal.DISABLED);
+        replayKeys = new String[REPLAY_KEYS];
+        for (int i = 0; i < REPLAY_KEYS; i++) {
+            replayKeys[i] = "replay-" + i;
+            service.createOrder(replayKeys[i], "C" + i, BenchmarkSupport.RESTAURANT_ID, BenchmarkSupport.FOOD_ITEMS,
+                    BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        service.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Counter {
+        long next;
+    }
+
+    @Benchmark
+    public Order withoutKey(Counter counter) {
+        return service.createOrder("C" + (counter.next++ & 1023), BenchmarkSupport.RESTAURANT_ID,
+                BenchmarkSupport.FOOD_ITEMS, BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS);
+    }
+
+    @Benchmark
+    public Order newKey(Counter counter) {
+        long n = counter.next++;
+        return service.createOrder("key-" + n, "C" + (n & 1023), BenchmarkSupport.RESTAURANT_ID,
+                BenchmarkSupport.FOOD_ITEMS, BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS);
+    }
+
+    @Benchmark
+    public Order replay(Counter counter) {
+        int i = (int) (counter.next++ & (REPLAY_KEYS - 1));
+        return service.createOrder(replayKeys[i], "C" + i, BenchmarkSupport.RESTAURANT_ID,
+                BenchmarkSupport.FOOD_ITEMS, BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS);
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.benchmark;
+
+import org.example.journal.FsyncPolicy;
+import org.example.journal.MappedOrderJournal;
+import org.example.journal.OrderEventHandler;
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 訂單日誌效能
+ * - WriteLatency：各落盤策略下寫入一筆狀態轉換事件的延遲分佈
+ * - Replay：重播整份日誌的時間（事件數 / 分數 = 每秒重播事件數）
+ */
+public class JournalBenchmark {
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 2, time = 1)
+    @Measurement(iterations = 3, time = 2)
+    @Fork(1)
+    public static class WriteLatency {
+
+        @Param({"EVERY_EVENT", "GROUP_COMMIT", "OS_MANAGED"})
+        public FsyncPolicy policy;
+
+        private Path directory;
+        private MappedOrderJournal journal;
+
+        @Setup
+        public void setUp() throws IOException {
+            BenchmarkSupport.silenceServiceLogs();
+            directory = Files.createTempDirectory("journal-bench");
+            journal = MappedOrderJournal.open(directory, policy);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            journal.close();
+            deleteRecursively(directory);
+        }
+
+        @Benchmark
+        public void appendStatusChanged() {
+            journal.appendStatusChanged("ORD0000000000001", OrderStatus.PREPARING, null);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public static class Replay {
+
+        /** 每筆訂單寫入 1 筆建立 + 5 筆狀態轉換 */
+        @Param({"1000000"})
+        public int events;
+
+        private Path directory;
+        private MappedOrderJournal journal;
+
+        @Setup
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("journal-bench");
+            journal = MappedOrderJournal.open(directory, FsyncPolicy.OS_MANAGED);
+            OrderStatus[] lifecycle = {OrderStatus.ACCEPTED, OrderStatus.PREPARING, OrderStatus.READY,
+                    OrderStatus.PICKED_UP, OrderStatus.DELIVERED};
+            for (int i = 0; i < events / (lifecycle.length + 1); i++) {
+                Order order = new Order("ORD" + i, "C" + (i % 5000), "R" + (i % 300),
+                        BenchmarkSupport.FOOD_ITEMS, BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS);
+                journal.appendOrderCreated(order);
+                for (OrderStatus status : lifecycle) {
+                    journal.appendStatusChanged(order.getOrderId(), status,
+                            status == OrderStatus.PICKED_UP ? "D" + (i % 2000) : null);
+                }
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            journal.close();
+            deleteRecursively(directory);
+        }
+
+        @Benchmark
+        public long replay(Blackhole bh) {
+            return journal.replay(new OrderEventHandler() {
+                @Override
+                public void onOrderCreated(long timestampMillis, String orderId, String customerId,
+                                           String restaurantId, String foodItems, double totalAmount,
+                                           String deliveryAddress) {
+                    bh.consume(orderId);
+                }
+
+                @Override
+                public void onStatusChanged(long timestampMillis, String orderId, OrderStatus status,
+                                            String deliveryPersonId) {
+                    bh.consume(status);
+                }
+
+                @Override
+                public void onRestaurantAvailability(long timestampMillis, String restaurantId, boolean available) {
+                }
+
+                @Override
+                public void onRestaurantCapacity(long timestampMillis, String restaurantId,
+                                                 int maxConcurrentOrders, int ordersPerMinute, int burst) {
+                }
+
+                @Override
+                public void onCourierAvailability(long timestampMillis, String deliveryPersonId,
+                                                  boolean available) {
+                }
+            });
+        }
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
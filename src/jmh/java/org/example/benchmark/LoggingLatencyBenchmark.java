@@ -0,0 +1,52 @@
+package org.example.benchmark;
+
+import org.example.model.Order;
+import org.example.service.DeliveryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日誌模式延遲壓測：4 條請求執行緒跑完整訂單流程，以 SampleTime 取得 p50/p99/p999
+ * 同步與非同步的差異只在 fork 出的 JVM 所載入的 log4j2 設定檔
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public abstract class LoggingLatencyBenchmark {
+
+    private DeliveryService service;
+
+    @Setup
+    public void setUp() {
+        service = new DeliveryService();
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    public Order orderLifecycle() throws Exception {
+        Order order = service.createOrder("C001", BenchmarkSupport.RESTAURANT_ID, BenchmarkSupport.FOOD_ITEMS,
+                BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS);
+        String orderId = order.getOrderId();
+        BenchmarkSupport.acceptUntilSuccess(service, orderId);
+        service.prepareFood(orderId);
+        service.foodReady(orderId);
+        service.getOrder(orderId);
+        return order;
+    }
+
+    @Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench-sync.xml")
+    public static class Sync extends LoggingLatencyBenchmark {
+    }
+
+    @Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench-async.xml")
+    public static class Async extends LoggingLatencyBenchmark {
+    }
+}
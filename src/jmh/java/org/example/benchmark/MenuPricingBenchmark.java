@@ -0,0 +1,93 @@
+package org.example.benchmark;
+
+import org.example.menu.MenuCatalog;
+import org.example.menu.MenuItem;
+import org.example.model.LineItem;
+import org.example.model.OrderLine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 依菜單計價的吞吐量：每家餐廳 itemsPerMenu 個品項，每筆訂單 5 個品項
+ * - price：只有讀取
+ * - pricing / menuUpdates：同一組內另一條執行緒持續修改菜單（每次複製整份快照），量測讀取是否受影響
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuPricingBenchmark {
+
+    private static final int RESTAURANTS = 50;
+    private static final int LINES_PER_ORDER = 5;
+
+    @Param({"1000", "5000"})
+    public int itemsPerMenu;
+
+    private MenuCatalog catalog;
+    private String[] restaurantIds;
+    private List<List<LineItem>> orders;
+
+    @Setup
+    public void setUp() {
+        catalog = new MenuCatalog();
+        restaurantIds = new String[RESTAURANTS];
+        for (int r = 0; r < RESTAURANTS; r++) {
+            restaurantIds[r] = "R" + r;
+            List<MenuItem> items = new ArrayList<>(itemsPerMenu);
+            for (int i = 0; i < itemsPerMenu; i++) {
+                items.add(new MenuItem("M" + i, "品項" + i, 50 + i % 500, true));
+            }
+            catalog.update(restaurantIds[r], menu -> menu.withItems(items));
+        }
+        // 預先產生訂單內容，量測時不包含亂數與字串組合
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        orders = new ArrayList<>(1024);
+        for (int o = 0; o < 1024; o++) {
+            List<LineItem> lines = new ArrayList<>(LINES_PER_ORDER);
+            for (int l = 0; l < LINES_PER_ORDER; l++) {
+                lines.add(new LineItem("M" + random.nextInt(itemsPerMenu), 1 + random.nextInt(3)));
+            }
+            orders.add(lines);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public long price(Cursor cursor) {
+        return priceNext(cursor);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public long pricing(Cursor cursor) {
+        return priceNext(cursor);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public long menuUpdates(Cursor cursor) {
+        int n = cursor.next++;
+        String itemId = "M" + (n % itemsPerMenu);
+        return catalog.update(restaurantIds[n % RESTAURANTS],
+                menu -> menu.withAvailability(itemId, true)).getVersion();
+    }
+
+    private long priceNext(Cursor cursor) {
+        int n = cursor.next++;
+        List<OrderLine> lines = catalog.price(restaurantIds[n % RESTAURANTS], orders.get(n & 1023));
+        return OrderLine.totalCents(lines);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.benchmark;
+
+import org.example.exception.InvalidOrderStatusException;
+import org.example.metrics.ServiceMetrics;
+import org.example.metrics.ServiceOperation;
+import org.example.model.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次服務呼叫的指標成本（多執行緒共用同一份指標）
+ * - recordSuccess：計時加上成功計數與延遲分佈
+ * - recordFailure：計時加上依例外類型計數
+ * - snapshot：讀取全部指標（監控端的成本，不影響服務呼叫）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private final ServiceMetrics metrics = new ServiceMetrics();
+    private final Exception failure = new InvalidOrderStatusException("ORD1", OrderStatus.PENDING, OrderStatus.READY);
+
+    @Benchmark
+    public void recordSuccess() {
+        metrics.record(ServiceOperation.PREPARE_FOOD, metrics.start(), null);
+    }
+
+    @Benchmark
+    public void recordFailure() {
+        metrics.record(ServiceOperation.ACCEPT_ORDER, metrics.start(), failure);
+    }
+
+    @Benchmark
+    public Object snapshot() {
+        return metrics.snapshot();
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.benchmark;
+
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 訂單物件的 heap 佔用：精簡格式（Order）與改版前的格式（LegacyOrder）比較
+ * 以建立前後 GC 完的 heap 使用量差值計算，見 bytesPerOrder 與 heapMegabytes
+ * 顧客、餐廳、外送員編號每筆都是新的字串（模擬由請求解析而來），品項與地址兩種格式相同故共用
+ *
+ * 需要大 heap 且只能單執行緒量測，預設不執行：
+ * mvn -Pbenchmark package exec:exec -Djmh.args="OrderFootprint -t 1"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OrderFootprintBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int orders;
+
+    @Param({"LEGACY", "COMPACT"})
+    public String layout;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerOrder;
+        public long heapMegabytes;
+    }
+
+    private Object[] retained;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        retained = new Object[orders];
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        retained = null;
+    }
+
+    @Benchmark
+    public Object[] build(Footprint footprint) {
+        long before = usedHeap();
+        boolean compact = "COMPACT".equals(layout);
+        for (int i = 0; i < orders; i++) {
+            String orderId = "ORD" + (1_000_000_000_000L + i);
+            String customerId = "C" + (i % 100_000);
+            String restaurantId = "R" + (i % 500);
+            String deliveryPersonId = "D" + (i % 5_000);
+            if (compact) {
+                Order order = new Order(orderId, customerId, restaurantId,
+                        BenchmarkSupport.FOOD_ITEMS, BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS);
+                order.compareAndAssignDeliveryPerson(deliveryPersonId, OrderStatus.PENDING, OrderStatus.PICKED_UP);
+                retained[i] = order;
+            } else {
+                retained[i] = new LegacyOrder(orderId, customerId, restaurantId, deliveryPersonId,
+                        BenchmarkSupport.FOOD_ITEMS, BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS);
+            }
+        }
+        long used = usedHeap() - before;
+        footprint.bytesPerOrder = used / orders;
+        footprint.heapMegabytes = used / (1024 * 1024);
+        return retained;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 改版前 Order 的欄位配置（字串編號、LocalDateTime、double 金額、enum 狀態）
+     */
+    static final class LegacyOrder {
+        final String orderId;
+        final String customerId;
+        final String restaurantId;
+        volatile String deliveryPersonId;
+        final String foodItems;
+        final double totalAmount;
+        volatile OrderStatus status;
+        volatile long statusChangedAtMillis;
+        final LocalDateTime orderTime;
+        final String deliveryAddress;
+
+        LegacyOrder(String orderId, String customerId, String restaurantId, String deliveryPersonId,
+                    String foodItems, double totalAmount, String deliveryAddress) {
+            this.orderId = orderId;
+            this.customerId = customerId;
+            this.restaurantId = restaurantId;
+            this.deliveryPersonId = deliveryPersonId;
+            this.foodItems = foodItems;
+            this.totalAmount = totalAmount;
+            this.deliveryAddress = deliveryAddress;
+            this.status = OrderStatus.PICKED_UP;
+            this.orderTime = LocalDateTime.now();
+            this.statusChangedAtMillis = System.currentTimeMillis();
+        }
+    }
+}
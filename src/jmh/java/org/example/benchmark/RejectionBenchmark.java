@@ -0,0 +1,76 @@
+package org.example.benchmark;
+
+import org.example.exception.DeliveryRejectionException;
+import org.example.exception.InvalidOrderStatusException;
+import org.example.exception.OrderNotFoundException;
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+import org.example.service.DeliveryService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 業務拒絕路徑的成本
+ * legacy：擷取完整堆疊並立即組成訊息（舊行為）
+ * stackless：不擷取堆疊、訊息延遲組成（新預設）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionBenchmark {
+
+    @Param({"legacy", "stackless"})
+    public String mode;
+
+    private DeliveryService service;
+    private String pendingOrderId;
+    private boolean eagerMessage;
+
+    @Setup
+    public void setUp() {
+        // 只量測例外本身的成本，關閉服務日誌
+        BenchmarkSupport.silenceServiceLogs();
+
+        eagerMessage = "legacy".equals(mode);
+        DeliveryRejectionException.setStackTraceEnabled(eagerMessage);
+
+        service = new DeliveryService();
+        Order order = service.createOrder("C001", "R001", "珍珠奶茶x2", 120.0, "台中市西屯區文華路100號");
+        pendingOrderId = order.getOrderId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    public void newInvalidStatusException(Blackhole bh) {
+        InvalidOrderStatusException e = new InvalidOrderStatusException(
+                pendingOrderId, OrderStatus.PENDING, OrderStatus.READY);
+        bh.consume(eagerMessage ? e.getMessage() : e);
+    }
+
+    @Benchmark
+    public void rejectedTransition(Blackhole bh) {
+        try {
+            service.foodReady(pendingOrderId);
+        } catch (Exception e) {
+            bh.consume(eagerMessage ? e.getMessage() : e);
+        }
+    }
+
+    @Benchmark
+    public void orderNotFound(Blackhole bh) {
+        try {
+            bh.consume(service.getOrder("ORD_NOT_EXISTS"));
+        } catch (OrderNotFoundException e) {
+            bh.consume(eagerMessage ? e.getMessage() : e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.benchmark;
+
+import org.example.exception.RestaurantBusyException;
+import org.example.id.SnowflakeIdGenerator;
+import org.example.journal.OrderJournal;
+import org.example.service.DeliveryService;
+import org.example.shard.ShardedDeliveryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片單一寫入者模式的吞吐量：每次呼叫讓 batchSize 筆訂單走完 建立 → 接單 → 準備 → 完成 → 取消
+ * - shards=0：直接呼叫共用的 DeliveryService（呼叫端執行緒執行全部工作）
+ * - shards=N：經由 ShardedDeliveryService 非同步提交，餐廳平均分散在各分片，最後等待全部 future
+ * 分片的效益取決於可用核心數；單核心環境只能看到佇列交接的額外成本
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedServiceBenchmark {
+
+    private static final int RESTAURANTS = 64;
+
+    @Param({"0", "1", "2", "4"})
+    public int shards;
+
+    @Param({"256"})
+    public int batchSize;
+
+    private String[] restaurantIds;
+    private DeliveryService direct;
+    private ShardedDeliveryService sharded;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BenchmarkSupport.silenceServiceLogs();
+        restaurantIds = new String[RESTAURANTS];
+        for (int i = 0; i < RESTAURANTS; i++) {
+            restaurantIds[i] = "B" + i;
+        }
+        // 每輪換新的服務，避免累積的訂單影響結果
+        if (shards == 0) {
+            direct = new DeliveryService(new SnowflakeIdGenerator(0), OrderJournal.DISABLED);
+            for (String restaurantId : restaurantIds) {
+                direct.setRestaurantAvailability(restaurantId, true);
+            }
+        } else {
+            sharded = new ShardedDeliveryService(shards);
+            for (int i = 0; i < RESTAURANTS; i++) {
+                sharded.assignRestaurant(restaurantIds[i], i % shards);
+                sharded.setRestaurantAvailability(restaurantIds[i], true).join();
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (sharded != null) {
+            sharded.close();
+            sharded = null;
+        }
+        if (direct != null) {
+            direct.close();
+            direct = null;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(256)
+    public int lifecycle() throws Exception {
+        return shards == 0 ? directBatch() : shardedBatch();
+    }
+
+    private int directBatch() throws Exception {
+        for (int i = 0; i < batchSize; i++) {
+            String restaurantId = restaurantIds[i % RESTAURANTS];
+            String orderId = direct.createOrder("C" + i, restaurantId, BenchmarkSupport.FOOD_ITEMS,
+                    BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS).getOrderId();
+            for (;;) {
+                try {
+                    direct.acceptOrder(orderId, restaurantId);
+                    break;
+                } catch (RestaurantBusyException e) {
+                    // 模擬的隨機失敗，重試
+                }
+            }
+            direct.prepareFood(orderId);
+            direct.foodReady(orderId);
+            direct.cancelOrder(orderId, "benchmark");
+        }
+        return batchSize;
+    }
+
+    private int shardedBatch() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            String restaurantId = restaurantIds[i % RESTAURANTS];
+            futures[i] = sharded.createOrder("C" + i, restaurantId, BenchmarkSupport.FOOD_ITEMS,
+                            BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS)
+                    .thenCompose(order -> acceptUntilSuccess(order.getOrderId(), restaurantId)
+                            .thenCompose(v -> sharded.prepareFood(order.getOrderId()))
+                            .thenCompose(v -> sharded.foodReady(order.getOrderId()))
+                            .thenCompose(v -> sharded.cancelOrder(order.getOrderId(), "benchmark")));
+        }
+        CompletableFuture.allOf(futures).join();
+        return batchSize;
+    }
+
+    private CompletableFuture<Void> acceptUntilSuccess(String orderId, String restaurantId) {
+        return sharded.acceptOrder(orderId, restaurantId).exceptionallyCompose(e -> {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof RestaurantBusyException) {
+                return acceptUntilSuccess(orderId, restaurantId);
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
+}
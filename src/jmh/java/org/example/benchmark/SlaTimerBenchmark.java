@@ -0,0 +1,64 @@
+package org.example.benchmark;
+
+import org.example.sla.Timeout;
+import org.example.sla.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 狀態轉換時重設期限的成本：排程一個新期限並取消舊的
+ * 預先放入 liveTimers 個尚未到期的期限，模擬大量進行中的訂單
+ * - timingWheel：時間輪，排程與取消都只進無鎖佇列
+ * - scheduledExecutor：每筆一個 ScheduledThreadPoolExecutor 任務（取消時由堆積中移除）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlaTimerBenchmark {
+
+    private static final long DEADLINE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final Runnable NOOP = () -> {
+    };
+
+    @Param({"1000000"})
+    public int liveTimers;
+
+    private TimingWheel wheel;
+    private ScheduledThreadPoolExecutor executor;
+
+    @Setup
+    public void setUp() {
+        wheel = new TimingWheel(100, Runnable::run, "bench-timer");
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < liveTimers; i++) {
+            wheel.schedule(now + DEADLINE_MILLIS + i, NOOP);
+            executor.schedule(NOOP, DEADLINE_MILLIS + i, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean timingWheel() {
+        Timeout timeout = wheel.schedule(System.currentTimeMillis() + DEADLINE_MILLIS, NOOP);
+        return timeout.cancel();
+    }
+
+    @Benchmark
+    public boolean scheduledExecutor() {
+        ScheduledFuture<?> future = executor.schedule(NOOP, DEADLINE_MILLIS, TimeUnit.MILLISECONDS);
+        return future.cancel(false);
+    }
+}
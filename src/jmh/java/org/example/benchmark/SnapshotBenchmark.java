@@ -0,0 +1,62 @@
+package org.example.benchmark;
+
+import org.example.id.SnowflakeIdGenerator;
+import org.example.journal.OrderJournal;
+import org.example.service.DeliveryService;
+import org.example.snapshot.SnapshotStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 快照效能：依訂單數量量測
+ * - restore：由快照啟動服務到可接單的時間
+ * - write：背景寫入一份完整快照的時間
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class SnapshotBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int orders;
+
+    private Path directory;
+    private SnapshotStore store;
+    private DeliveryService service;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkSupport.silenceServiceLogs();
+        directory = Files.createTempDirectory("snapshot-bench");
+        store = new SnapshotStore(directory);
+        service = new DeliveryService(new SnowflakeIdGenerator(0), OrderJournal.DISABLED, store);
+        for (int i = 0; i < orders; i++) {
+            service.createOrder("C" + (i % 5000), "R00" + (1 + i % 3), BenchmarkSupport.FOOD_ITEMS,
+                    BenchmarkSupport.TOTAL_AMOUNT, BenchmarkSupport.ADDRESS + i);
+        }
+        service.snapshotAsync().get();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        service.close();
+        store.close();
+        JournalBenchmark.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public DeliveryService restore() {
+        return new DeliveryService(new SnowflakeIdGenerator(1), OrderJournal.DISABLED, store);
+    }
+
+    @Benchmark
+    public long write() throws Exception {
+        return service.snapshotAsync().get();
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.benchmark;
+
+import org.example.service.DeliveryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 單一狀態轉換方法的成本
+ * 每次呼叫前由 Level.Invocation 準備一批處於前置狀態的訂單，量測時只執行目標轉換，
+ * 以 OperationsPerInvocation 換算成每筆訂單的時間
+ * 每輪換一個新的服務，訂單數只隨單輪的呼叫次數成長，不會跨輪累積而影響後面幾輪的結果
+ * 注意：GC 分析的 gc.alloc.rate.norm 會把準備階段建立訂單的配置量一起算入
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransitionBenchmark {
+
+    static final int BATCH = 1000;
+
+    @Param({"acceptOrder", "prepareFood", "foodReady", "assignDeliveryPerson", "completeDelivery", "cancelOrder"})
+    public String transition;
+
+    DeliveryService service;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BenchmarkSupport.silenceServiceLogs();
+        service = new DeliveryService();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        service.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Batch {
+        final String[] orderIds = new String[BATCH];
+        final String[] couriers = new String[BATCH];
+
+        // 依賴的 TransitionBenchmark 先完成同一層級的 Setup，這裡拿到的是本輪的新服務
+        @Setup(Level.Iteration)
+        public void registerCouriers(TransitionBenchmark benchmark) {
+            String prefix = "D-" + Thread.currentThread().threadId() + "-";
+            for (int i = 0; i < BATCH; i++) {
+                couriers[i] = prefix + i;
+                benchmark.service.setDeliveryPersonAvailability(couriers[i], true);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void prepare(TransitionBenchmark benchmark) throws Exception {
+            DeliveryService service = benchmark.service;
+            int steps = stepsBefore(benchmark.transition);
+            for (int i = 0; i < BATCH; i++) {
+                String orderId = service.createOrder("C001", BenchmarkSupport.RESTAURANT_ID,
+                        BenchmarkSupport.FOOD_ITEMS, BenchmarkSupport.TOTAL_AMOUNT,
+                        BenchmarkSupport.ADDRESS).getOrderId();
+                orderIds[i] = orderId;
+                // 上一輪 assignDeliveryPerson 留下的外送員需要先釋放
+                service.setDeliveryPersonAvailability(couriers[i], true);
+                if (steps > 0) BenchmarkSupport.acceptUntilSuccess(service, orderId);
+                if (steps > 1) service.prepareFood(orderId);
+                if (steps > 2) service.foodReady(orderId);
+                if (steps > 3) service.assignDeliveryPerson(orderId, couriers[i]);
+            }
+        }
+
+        /**
+         * 目標轉換之前需要先完成的步驟數
+         */
+        private static int stepsBefore(String transition) {
+            switch (transition) {
+                case "prepareFood":
+                    return 1;
+                case "foodReady":
+                    return 2;
+                case "assignDeliveryPerson":
+                    return 3;
+                case "completeDelivery":
+                case "cancelOrder":
+                    // 取消已取餐的訂單，同時量到釋放外送員的路徑
+                    return 4;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void transition(Batch batch) throws Exception {
+        String[] orderIds = batch.orderIds;
+        switch (transition) {
+            case "acceptOrder":
+                for (String orderId : orderIds) {
+                    try {
+                        service.acceptOrder(orderId, BenchmarkSupport.RESTAURANT_ID);
+                    } catch (Exception e) {
+                        // 模擬的 20% 隨機失敗也屬於接單路徑的一部分
+                    }
+                }
+                break;
+            case "prepareFood":
+                for (String orderId : orderIds) {
+                    service.prepareFood(orderId);
+                }
+                break;
+            case "foodReady":
+                for (String orderId : orderIds) {
+                    service.foodReady(orderId);
+                }
+                break;
+            case "assignDeliveryPerson":
+                for (int i = 0; i < BATCH; i++) {
+                    service.assignDeliveryPerson(orderIds[i], batch.couriers[i]);
+                }
+                break;
+            case "completeDelivery":
+                for (String orderId : orderIds) {
+                    service.completeDelivery(orderId);
+                }
+                break;
+            case "cancelOrder":
+                for (String orderId : orderIds) {
+                    service.cancelOrder(orderId, "benchmark");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("未知的轉換: " + transition);
+        }
+    }
+}
@@ -1,19 +1,29 @@
 package org.example;
 
+import org.example.load.LoadGenerator;
 import org.example.model.Order;
 import org.example.service.DeliveryService;
 import org.example.exception.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
+
 /**
  * 外送平台主程式
  * 模擬各種訂單流程和例外情況
+ * 以 load 參數啟動時改為壓測模式，例如 mvn exec:java -Dexec.args="load rate=5000 duration=60"，
+ * 參數見 org.example.load.LoadProfile
  */
 public class FoodDeliveryApp {
     private static final Logger logger = LogManager.getLogger(FoodDeliveryApp.class);
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "load".equals(args[0])) {
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         logger.info("========== 美食外送平台啟動 ==========");
 
         DeliveryService service = new DeliveryService();
@@ -62,18 +72,15 @@ public class FoodDeliveryApp {
 
             // 餐廳接單
             service.acceptOrder(orderId, "R001");
-            Thread.sleep(500); // 模擬時間流逝
 
             // 準備餐點
             service.prepareFood(orderId);
-            Thread.sleep(1000); // 模擬準備時間
 
             // 餐點完成
             service.foodReady(orderId);
 
             // 外送員接單
             service.assignDeliveryPerson(orderId, "D001");
-            Thread.sleep(1500); // 模擬配送時間
 
             // 完成配送
             service.completeDelivery(orderId);
@@ -0,0 +1,128 @@
+package org.example.analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各餐廳即時統計：最近 5、15、60 分鐘的新訂單數、接單率、平均備餐時間、送達數與營收
+ * 下單與每次狀態轉換時遞增計數，查詢時只加總時間桶，不掃描訂單
+ * 時間桶為 1 分鐘，視窗涵蓋目前這一分鐘與之前的整分鐘
+ */
+public class RestaurantAnalytics {
+
+    /** 儀表板使用的視窗長度（分鐘） */
+    public static final int[] STANDARD_WINDOWS = {5, 15, 60};
+
+    private static final long DEFAULT_BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int DEFAULT_BUCKETS = 60;
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final Map<String, SlidingWindow> windows = new ConcurrentHashMap<>();
+
+    public RestaurantAnalytics() {
+        this(DEFAULT_BUCKET_MILLIS, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * @param bucketMillis 時間桶長度
+     * @param bucketCount  保留的時間桶數，決定可查詢的最長視窗
+     */
+    public RestaurantAnalytics(long bucketMillis, int bucketCount) {
+        if (bucketMillis <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("時間桶長度與數量必須大於 0");
+        }
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+    }
+
+    public void onOrderCreated(String restaurantId, long timeMillis) {
+        window(restaurantId).add(timeMillis, SlidingWindow.ORDERS, 1);
+    }
+
+    public void onAccepted(String restaurantId, long timeMillis) {
+        window(restaurantId).add(timeMillis, SlidingWindow.ACCEPTED, 1);
+    }
+
+    /**
+     * 接單前取消的訂單
+     */
+    public void onRejected(String restaurantId, long timeMillis) {
+        window(restaurantId).add(timeMillis, SlidingWindow.REJECTED, 1);
+    }
+
+    /**
+     * 餐點完成，記錄由接單到完成的備餐時間
+     */
+    public void onReady(String restaurantId, long timeMillis, long prepMillis) {
+        window(restaurantId).add(timeMillis, SlidingWindow.PREPARED, 1, SlidingWindow.PREP_MILLIS, prepMillis);
+    }
+
+    public void onDelivered(String restaurantId, long timeMillis, long amountCents) {
+        window(restaurantId).add(timeMillis, SlidingWindow.DELIVERED, 1, SlidingWindow.REVENUE_CENTS, amountCents);
+    }
+
+    private SlidingWindow window(String restaurantId) {
+        SlidingWindow window = windows.get(restaurantId);
+        if (window == null) {
+            window = windows.computeIfAbsent(restaurantId, id -> new SlidingWindow(bucketMillis, bucketCount));
+        }
+        return window;
+    }
+
+    /**
+     * 餐廳最近 windowMinutes 分鐘的統計；沒有任何紀錄的餐廳回傳全為 0 的統計
+     * @throws IllegalArgumentException 視窗超過保留的時間桶
+     */
+    public WindowStats query(String restaurantId, int windowMinutes) {
+        return query(restaurantId, windowMinutes, System.currentTimeMillis());
+    }
+
+    public WindowStats query(String restaurantId, int windowMinutes, long nowMillis) {
+        int bucketsInWindow = bucketsIn(windowMinutes);
+        long[] totals = SlidingWindow.newTotals();
+        SlidingWindow window = windows.get(restaurantId);
+        if (window != null) {
+            window.sum(nowMillis, bucketsInWindow, totals);
+        }
+        return new WindowStats(windowMinutes, totals);
+    }
+
+    /**
+     * 所有餐廳合計
+     */
+    public WindowStats queryAll(int windowMinutes) {
+        return queryAll(windowMinutes, System.currentTimeMillis());
+    }
+
+    public WindowStats queryAll(int windowMinutes, long nowMillis) {
+        int bucketsInWindow = bucketsIn(windowMinutes);
+        long[] totals = SlidingWindow.newTotals();
+        for (SlidingWindow window : windows.values()) {
+            window.sum(nowMillis, bucketsInWindow, totals);
+        }
+        return new WindowStats(windowMinutes, totals);
+    }
+
+    private int bucketsIn(int windowMinutes) {
+        long buckets = (TimeUnit.MINUTES.toMillis(windowMinutes) + bucketMillis - 1) / bucketMillis;
+        if (windowMinutes <= 0 || buckets > bucketCount) {
+            throw new IllegalArgumentException("視窗必須介於 1 到 "
+                    + bucketCount * bucketMillis / TimeUnit.MINUTES.toMillis(1) + " 分鐘");
+        }
+        return (int) buckets;
+    }
+
+    /**
+     * 有紀錄的餐廳（依編號排序）
+     */
+    public List<String> getRestaurantIds() {
+        List<String> ids = new ArrayList<>(windows.keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+}
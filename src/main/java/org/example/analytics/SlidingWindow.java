@@ -0,0 +1,99 @@
+package org.example.analytics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 單一餐廳的滑動視窗計數：環狀陣列的時間桶，每桶是一組 LongAdder
+ * 寫入時只遞增目前時間所在的桶；桶過期時以 CAS 換上新桶，不需要鎖，也不會重設正在被寫入的計數器
+ * 查詢時加總視窗內的桶，成本只和桶數有關，和訂單量無關
+ */
+final class SlidingWindow {
+
+    static final int ORDERS = 0;
+    static final int ACCEPTED = 1;
+    static final int REJECTED = 2;
+    static final int DELIVERED = 3;
+    static final int REVENUE_CENTS = 4;
+    static final int PREPARED = 5;
+    static final int PREP_MILLIS = 6;
+    private static final int COUNTERS = 7;
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    SlidingWindow(long bucketMillis, int bucketCount) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    void add(long timeMillis, int counter, long value) {
+        Bucket bucket = bucketFor(timeMillis / bucketMillis);
+        if (bucket != null) {
+            bucket.counters[counter].add(value);
+        }
+    }
+
+    void add(long timeMillis, int counter1, long value1, int counter2, long value2) {
+        Bucket bucket = bucketFor(timeMillis / bucketMillis);
+        if (bucket != null) {
+            bucket.counters[counter1].add(value1);
+            bucket.counters[counter2].add(value2);
+        }
+    }
+
+    /**
+     * @return 該時段的桶；時段已被較新的桶覆蓋（寫入者落後整圈）時回傳 null，事件捨棄
+     */
+    private Bucket bucketFor(long epoch) {
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.epoch == epoch) {
+                return bucket;
+            }
+            if (bucket != null && bucket.epoch > epoch) {
+                return null;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * 加總最近 bucketsInWindow 個時段（含目前時段）的計數
+     * @param totals 長度至少為 COUNTERS，結果累加於此
+     */
+    void sum(long nowMillis, int bucketsInWindow, long[] totals) {
+        long current = nowMillis / bucketMillis;
+        long oldest = current - Math.min(bucketsInWindow, buckets.length()) + 1;
+        for (long epoch = oldest; epoch <= current; epoch++) {
+            Bucket bucket = buckets.get((int) Math.floorMod(epoch, (long) buckets.length()));
+            // 沒有事件的時段可能還留著一整圈前的桶
+            if (bucket == null || bucket.epoch != epoch) {
+                continue;
+            }
+            for (int i = 0; i < COUNTERS; i++) {
+                totals[i] += bucket.counters[i].sum();
+            }
+        }
+    }
+
+    static long[] newTotals() {
+        return new long[COUNTERS];
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final LongAdder[] counters = new LongAdder[COUNTERS];
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+            for (int i = 0; i < COUNTERS; i++) {
+                counters[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.analytics;
+
+/**
+ * 單一餐廳在一個時間視窗內的統計
+ */
+public class WindowStats {
+    private final int windowMinutes;
+    private final long orders;
+    private final long accepted;
+    private final long rejected;
+    private final long delivered;
+    private final long revenueCents;
+    private final long prepared;
+    private final long prepMillis;
+
+    WindowStats(int windowMinutes, long[] totals) {
+        this.windowMinutes = windowMinutes;
+        this.orders = totals[SlidingWindow.ORDERS];
+        this.accepted = totals[SlidingWindow.ACCEPTED];
+        this.rejected = totals[SlidingWindow.REJECTED];
+        this.delivered = totals[SlidingWindow.DELIVERED];
+        this.revenueCents = totals[SlidingWindow.REVENUE_CENTS];
+        this.prepared = totals[SlidingWindow.PREPARED];
+        this.prepMillis = totals[SlidingWindow.PREP_MILLIS];
+    }
+
+    public int getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    /** 新訂單數 */
+    public long getOrders() {
+        return orders;
+    }
+
+    /** 餐廳接單數 */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /** 餐廳接單前就取消（拒單）的訂單數 */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /** 送達的訂單數 */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /** 送達訂單的營收（分） */
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    /**
+     * 接單率：接單數 / (接單數 + 拒單數)；視窗內沒有任何決定時回傳 NaN
+     */
+    public double getAcceptanceRate() {
+        long decided = accepted + rejected;
+        return decided == 0 ? Double.NaN : (double) accepted / decided;
+    }
+
+    /**
+     * 平均備餐時間（ACCEPTED 到 READY，毫秒）；視窗內沒有完成備餐的訂單時回傳 NaN
+     */
+    public double getAveragePrepMillis() {
+        return prepared == 0 ? Double.NaN : (double) prepMillis / prepared;
+    }
+
+    @Override
+    public String toString() {
+        return "WindowStats[" + windowMinutes + "m, orders=" + orders + ", accepted=" + accepted
+                + ", rejected=" + rejected + ", delivered=" + delivered + ", revenueCents=" + revenueCents
+                + ", avgPrepMillis=" + Math.round(getAveragePrepMillis()) + "]";
+    }
+}
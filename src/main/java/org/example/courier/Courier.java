@@ -0,0 +1,77 @@
+package org.example.courier;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 外送員即時狀態：位置與是否可接單
+ * 位置以 volatile 欄位更新，接單以 CAS 佔用，讀取端不需要加鎖
+ */
+public class Courier {
+    private final String deliveryPersonId;
+    private final AtomicBoolean available;
+
+    private volatile double latitude;
+    private volatile double longitude;
+    private volatile boolean located;
+
+    // 目前所在的網格（由 CourierRegistry 在這位外送員的鎖內寫入，未定位時為 CourierRegistry.NO_CELL）
+    volatile long cellKey = CourierRegistry.NO_CELL;
+    // 已自登錄表移除（在這位外送員的鎖內寫入），之後的位置回報不得再放回網格
+    boolean removed;
+
+    Courier(String deliveryPersonId, boolean available) {
+        this.deliveryPersonId = deliveryPersonId;
+        this.available = new AtomicBoolean(available);
+    }
+
+    public String getDeliveryPersonId() {
+        return deliveryPersonId;
+    }
+
+    public boolean isAvailable() {
+        return available.get();
+    }
+
+    public boolean isLocated() {
+        return located;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * 原子性佔用外送員（可接單 -> 忙碌）
+     * @return 是否佔用成功
+     */
+    public boolean tryClaim() {
+        return available.compareAndSet(true, false);
+    }
+
+    /**
+     * 釋放外送員，恢復可接單
+     */
+    public void release() {
+        available.set(true);
+    }
+
+    void setAvailable(boolean value) {
+        available.set(value);
+    }
+
+    void setLocation(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.located = true;
+    }
+
+    @Override
+    public String toString() {
+        return "Courier[id=" + deliveryPersonId + ", available=" + available.get()
+                + (located ? ", at=(" + latitude + ", " + longitude + ")" : "") + "]";
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.courier;
+
+import org.example.model.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 外送員位置登錄表，以均勻網格作為空間索引
+ * - 位置更新 O(1)：同一網格內只寫入座標，跨網格時才搬移索引
+ * - 最近可用外送員查詢：由起點所在網格一圈一圈向外搜尋，找到足夠候選且外圈不可能更近時停止
+ */
+public class CourierRegistry {
+    static final long NO_CELL = Long.MIN_VALUE;
+
+    /** 預設網格邊長約 500 公尺（外送員越密集，網格應越小） */
+    public static final double DEFAULT_CELL_SIZE_DEGREES = 0.005;
+
+    /** 預設最多向外搜尋的圈數（約 20 公里） */
+    public static final int DEFAULT_MAX_SEARCH_RINGS = 40;
+
+    private final Map<String, Courier> couriers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Courier>> cells = new ConcurrentHashMap<>();
+    private final double cellSizeDegrees;
+    private final int maxSearchRings;
+
+    public CourierRegistry() {
+        this(DEFAULT_CELL_SIZE_DEGREES, DEFAULT_MAX_SEARCH_RINGS);
+    }
+
+    public CourierRegistry(double cellSizeDegrees, int maxSearchRings) {
+        if (cellSizeDegrees <= 0 || maxSearchRings < 0) {
+            throw new IllegalArgumentException("網格大小必須大於 0，搜尋圈數不可為負");
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.maxSearchRings = maxSearchRings;
+    }
+
+    /**
+     * 登錄外送員或更新其可接單狀態
+     */
+    public Courier register(String deliveryPersonId, boolean available) {
+        Courier courier = couriers.computeIfAbsent(deliveryPersonId, id -> new Courier(id, available));
+        courier.setAvailable(available);
+        return courier;
+    }
+
+    public Courier get(String deliveryPersonId) {
+        return couriers.get(deliveryPersonId);
+    }
+
+    public Collection<Courier> getAll() {
+        return Collections.unmodifiableCollection(couriers.values());
+    }
+
+    /**
+     * 目前可接單的外送員數（逐一計算，供監控使用）
+     */
+    public int countAvailable() {
+        int count = 0;
+        for (Courier courier : couriers.values()) {
+            if (courier.isAvailable()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 移除外送員（連同空間索引）
+     * @return 被移除的外送員，不存在時回傳 null
+     */
+    public Courier remove(String deliveryPersonId) {
+        Courier courier = couriers.remove(deliveryPersonId);
+        if (courier != null) {
+            synchronized (courier) {
+                courier.removed = true;
+                if (courier.cellKey != NO_CELL) {
+                    Set<Courier> cell = cells.get(courier.cellKey);
+                    if (cell != null) {
+                        cell.remove(courier);
+                    }
+                    courier.cellKey = NO_CELL;
+                }
+            }
+        }
+        return courier;
+    }
+
+    /**
+     * 原子性佔用指定外送員
+     * @return 外送員存在且原本可接單時回傳 true
+     */
+    public boolean tryClaim(String deliveryPersonId) {
+        Courier courier = couriers.get(deliveryPersonId);
+        return courier != null && courier.tryClaim();
+    }
+
+    /**
+     * 釋放指定外送員
+     */
+    public void release(String deliveryPersonId) {
+        Courier courier = couriers.get(deliveryPersonId);
+        if (courier != null) {
+            courier.release();
+        }
+    }
+
+    /**
+     * 外送員回報位置；未登錄的外送員會以忙碌狀態自動登錄
+     */
+    public void updateLocation(String deliveryPersonId, double latitude, double longitude) {
+        Courier courier = couriers.get(deliveryPersonId);
+        if (courier == null) {
+            courier = register(deliveryPersonId, false);
+        }
+        courier.setLocation(latitude, longitude);
+
+        long newCell = cellKey(latitude, longitude);
+        if (courier.cellKey != newCell) {
+            // 跨網格才需要搬移索引，只鎖這位外送員；與 remove 同一把鎖，已移除的外送員不會被放回網格
+            synchronized (courier) {
+                long oldCell = courier.cellKey;
+                if (!courier.removed && oldCell != newCell) {
+                    cells.computeIfAbsent(newCell, k -> ConcurrentHashMap.newKeySet()).add(courier);
+                    if (oldCell != NO_CELL) {
+                        Set<Courier> old = cells.get(oldCell);
+                        if (old != null) {
+                            old.remove(courier);
+                        }
+                    }
+                    courier.cellKey = newCell;
+                }
+            }
+        }
+    }
+
+    /**
+     * 查詢距離 origin 最近的 k 位可接單外送員（由近到遠）
+     * 只回傳候選名單，實際接單仍需呼叫 Courier.tryClaim()
+     */
+    public List<Courier> findNearestAvailable(GeoPoint origin, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        Courier[] best = new Courier[k];
+        // 以「度」為單位的距離平方（經度已乘上 cos 緯度），迴圈內不需要三角函數與開根號
+        double[] bestDistance = new double[k];
+        int found = 0;
+        double lonScale = Math.cos(Math.toRadians(origin.getLatitude()));
+
+        long originX = cellIndex(origin.getLatitude());
+        long originY = cellIndex(origin.getLongitude());
+        // 外圈最近距離的保守估計：以經度方向（較窄）的網格寬度計算
+        double cellDegrees = cellSizeDegrees
+                * Math.cos(Math.toRadians(Math.min(Math.abs(origin.getLatitude()) + cellSizeDegrees * maxSearchRings, 89)));
+
+        for (int ring = 0; ring <= maxSearchRings; ring++) {
+            for (long dx = -ring; dx <= ring; dx++) {
+                boolean edgeRow = dx == -ring || dx == ring;
+                for (long dy = -ring; dy <= ring; dy += edgeRow ? 1 : 2 * ring) {
+                    Set<Courier> cell = cells.get(pack(originX + dx, originY + dy));
+                    if (cell != null) {
+                        found = collect(cell, origin, lonScale, best, bestDistance, found);
+                    }
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+            // 下一圈的任何點距離至少 ring * cellDegrees，已不可能更近
+            double ringDistance = ring * cellDegrees;
+            if (found == k && bestDistance[k - 1] <= ringDistance * ringDistance) {
+                break;
+            }
+        }
+
+        List<Courier> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(best[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 將網格內可接單的外送員插入有序的前 k 名陣列
+     */
+    private static int collect(Set<Courier> cell, GeoPoint origin, double lonScale,
+                               Courier[] best, double[] bestDistance, int found) {
+        int k = best.length;
+        for (Courier courier : cell) {
+            if (!courier.isAvailable()) {
+                continue;
+            }
+            double dLat = courier.getLatitude() - origin.getLatitude();
+            double dLon = (courier.getLongitude() - origin.getLongitude()) * lonScale;
+            double distance = dLat * dLat + dLon * dLon;
+            if (found == k && distance >= bestDistance[k - 1]) {
+                continue;
+            }
+            int i = found < k ? found++ : k - 1;
+            while (i > 0 && bestDistance[i - 1] > distance) {
+                best[i] = best[i - 1];
+                bestDistance[i] = bestDistance[i - 1];
+                i--;
+            }
+            best[i] = courier;
+            bestDistance[i] = distance;
+        }
+        return found;
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return pack(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellSizeDegrees);
+    }
+
+    private static long pack(long x, long y) {
+        return (x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
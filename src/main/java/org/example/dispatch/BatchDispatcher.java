@@ -0,0 +1,156 @@
+package org.example.dispatch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.courier.Courier;
+import org.example.exception.DeliveryPersonUnavailableException;
+import org.example.exception.InvalidOrderStatusException;
+import org.example.exception.OrderNotFoundException;
+import org.example.model.GeoPoint;
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+import org.example.service.DeliveryService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 批次派單引擎
+ * 每隔固定時間收集所有 READY 訂單與可接單的外送員，整批計算總取餐距離最短的指派後一次套用，
+ * 取代逐筆呼叫 assignDeliveryPerson 的局部最佳解
+ */
+public class BatchDispatcher implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(BatchDispatcher.class);
+
+    /** 訂單與外送員都不超過此數量時使用匈牙利演算法 */
+    public static final int DEFAULT_HUNGARIAN_LIMIT = 64;
+
+    private final DeliveryService service;
+    private final DispatchSolver solver;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<DispatchReport> reportListener;
+
+    private volatile DispatchReport lastReport;
+
+    public BatchDispatcher(DeliveryService service, long intervalMillis) {
+        this(service, intervalMillis, ForkJoinPool.commonPool(), DEFAULT_HUNGARIAN_LIMIT, report -> { });
+    }
+
+    public BatchDispatcher(DeliveryService service, long intervalMillis, ForkJoinPool scoringPool,
+                           int hungarianLimit, Consumer<DispatchReport> reportListener) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("派單週期必須大於 0");
+        }
+        this.service = service;
+        this.intervalMillis = intervalMillis;
+        this.solver = new DispatchSolver(scoringPool, hungarianLimit);
+        this.reportListener = reportListener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "batch-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 開始定期派單
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::safeTick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("批次派單引擎啟動，週期 {} 毫秒", intervalMillis);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        logger.info("批次派單引擎已停止");
+    }
+
+    public DispatchReport getLastReport() {
+        return lastReport;
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            // 不讓單次失敗終止排程
+            logger.error("批次派單時發生未預期的錯誤", e);
+        }
+    }
+
+    /**
+     * 執行一次派單週期（也可由呼叫端直接觸發）
+     */
+    public DispatchReport tick() {
+        // 快照本週期的訂單與外送員座標
+        List<Order> batch = new ArrayList<>();
+        List<GeoPoint> pickups = new ArrayList<>();
+        for (Order order : service.getOrdersByStatus(OrderStatus.READY)) {
+            GeoPoint pickup = service.getRestaurantLocation(order.getRestaurantId());
+            if (pickup != null) {
+                batch.add(order);
+                pickups.add(pickup);
+            }
+        }
+        List<Courier> freeCouriers = new ArrayList<>();
+        for (Courier courier : service.getCourierRegistry().getAll()) {
+            if (courier.isAvailable() && courier.isLocated()) {
+                freeCouriers.add(courier);
+            }
+        }
+
+        int n = batch.size();
+        int m = freeCouriers.size();
+        double[] orderLat = new double[n];
+        double[] orderLon = new double[n];
+        for (int i = 0; i < n; i++) {
+            orderLat[i] = pickups.get(i).getLatitude();
+            orderLon[i] = pickups.get(i).getLongitude();
+        }
+        double[] courierLat = new double[m];
+        double[] courierLon = new double[m];
+        for (int j = 0; j < m; j++) {
+            courierLat[j] = freeCouriers.get(j).getLatitude();
+            courierLon[j] = freeCouriers.get(j).getLongitude();
+        }
+
+        long start = System.nanoTime();
+        int[] assignment = solver.solve(orderLat, orderLon, courierLat, courierLon);
+        long solveNanos = System.nanoTime() - start;
+
+        // 套用結果：期間訂單或外送員可能已被其他請求處理，失敗的留待下一週期
+        int assigned = 0;
+        int failed = 0;
+        double totalMeters = 0;
+        for (int i = 0; i < n; i++) {
+            int j = assignment[i];
+            if (j < 0) {
+                continue;
+            }
+            Courier courier = freeCouriers.get(j);
+            try {
+                service.assignDeliveryPerson(batch.get(i).getOrderId(), courier.getDeliveryPersonId());
+                assigned++;
+                totalMeters += pickups.get(i).distanceMeters(courierLat[j], courierLon[j]);
+            } catch (OrderNotFoundException | InvalidOrderStatusException | DeliveryPersonUnavailableException e) {
+                failed++;
+            }
+        }
+
+        DispatchReport report = new DispatchReport(n, m, assigned, failed, solveNanos,
+                assigned == 0 ? 0 : totalMeters / assigned);
+        lastReport = report;
+        if (n > 0) {
+            logger.info("批次派單完成: {}", report);
+        }
+        reportListener.accept(report);
+        return report;
+    }
+}
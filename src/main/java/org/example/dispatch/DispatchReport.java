@@ -0,0 +1,61 @@
+package org.example.dispatch;
+
+/**
+ * 單次派單週期的統計結果
+ */
+public class DispatchReport {
+    private final int batchSize;
+    private final int freeCouriers;
+    private final int assigned;
+    private final int failed;
+    private final long solveNanos;
+    private final double averagePickupMeters;
+
+    public DispatchReport(int batchSize, int freeCouriers, int assigned, int failed,
+                          long solveNanos, double averagePickupMeters) {
+        this.batchSize = batchSize;
+        this.freeCouriers = freeCouriers;
+        this.assigned = assigned;
+        this.failed = failed;
+        this.solveNanos = solveNanos;
+        this.averagePickupMeters = averagePickupMeters;
+    }
+
+    /** 本週期待派送（READY 且餐廳位置已知）的訂單數 */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /** 本週期可接單且已定位的外送員數 */
+    public int getFreeCouriers() {
+        return freeCouriers;
+    }
+
+    /** 成功指派的訂單數 */
+    public int getAssigned() {
+        return assigned;
+    }
+
+    /** 套用指派時因訂單或外送員狀態已改變而失敗的筆數 */
+    public int getFailed() {
+        return failed;
+    }
+
+    /** 指派演算法耗時（奈秒），不含套用結果 */
+    public long getSolveNanos() {
+        return solveNanos;
+    }
+
+    /** 成功指派訂單的平均取餐距離（公尺） */
+    public double getAveragePickupMeters() {
+        return averagePickupMeters;
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchReport[batch=" + batchSize + ", freeCouriers=" + freeCouriers
+                + ", assigned=" + assigned + ", failed=" + failed
+                + ", solveMicros=" + solveNanos / 1000
+                + ", avgPickupMeters=" + Math.round(averagePickupMeters) + "]";
+    }
+}
@@ -0,0 +1,346 @@
+package org.example.dispatch;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 批次派單的指派演算法
+ * - 小批次（訂單與外送員都不超過 hungarianLimit）：匈牙利演算法求總取餐距離最小的最佳解
+ * - 大批次：每筆訂單只保留最近的 K 位候選人，依距離貪婪配對，候選人用完的訂單改從剩餘外送員中挑最近者，
+ *   最後做兩兩交換的局部改善
+ * 候選人評分以 fork-join 平行計算
+ */
+class DispatchSolver {
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    /** 每筆訂單保留的候選外送員數 */
+    static final int CANDIDATES_PER_ORDER = 16;
+
+    /** 局部改善最多處理的訂單數（兩兩交換為 O(n²)） */
+    static final int SWAP_IMPROVEMENT_LIMIT = 2000;
+
+    /** 每個 fork-join 子任務至少處理的訂單數 */
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final ForkJoinPool pool;
+    private final int hungarianLimit;
+
+    DispatchSolver(ForkJoinPool pool, int hungarianLimit) {
+        this.pool = pool;
+        this.hungarianLimit = hungarianLimit;
+    }
+
+    /**
+     * @return 每筆訂單指派到的外送員索引，未指派為 -1
+     */
+    int[] solve(double[] orderLat, double[] orderLon, double[] courierLat, double[] courierLon) {
+        int n = orderLat.length;
+        int m = courierLat.length;
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        if (n == 0 || m == 0) {
+            return assignment;
+        }
+
+        Geometry geometry = new Geometry(orderLat, orderLon, courierLat, courierLon);
+        if (n <= hungarianLimit && m <= hungarianLimit) {
+            double[][] cost = new double[n][m];
+            pool.invoke(new DenseScoreTask(geometry, cost, 0, n));
+            return hungarian(cost);
+        }
+
+        int k = Math.min(CANDIDATES_PER_ORDER, m);
+        int[][] candidates = new int[n][k];
+        double[][] distances = new double[n][k];
+        pool.invoke(new TopKScoreTask(geometry, candidates, distances, 0, n));
+        boolean[] courierUsed = greedy(candidates, distances, assignment, m);
+        assignRemaining(geometry, assignment, courierUsed);
+        if (n <= SWAP_IMPROVEMENT_LIMIT) {
+            improveBySwapping(geometry, assignment);
+        }
+        return assignment;
+    }
+
+    /**
+     * 訂單與外送員座標快照；距離以批次平均緯度的等距柱狀投影計算（公尺）
+     */
+    static final class Geometry {
+        final double[] orderLat;
+        final double[] orderLon;
+        final double[] courierLat;
+        final double[] courierLon;
+        private final double lonScale;
+
+        Geometry(double[] orderLat, double[] orderLon, double[] courierLat, double[] courierLon) {
+            this.orderLat = orderLat;
+            this.orderLon = orderLon;
+            this.courierLat = courierLat;
+            this.courierLon = courierLon;
+            double sum = 0;
+            for (double lat : orderLat) {
+                sum += lat;
+            }
+            this.lonScale = Math.cos(Math.toRadians(sum / orderLat.length));
+        }
+
+        double distance(int order, int courier) {
+            double dLat = courierLat[courier] - orderLat[order];
+            double dLon = (courierLon[courier] - orderLon[order]) * lonScale;
+            return Math.sqrt(dLat * dLat + dLon * dLon) * METERS_PER_DEGREE;
+        }
+    }
+
+    /**
+     * 平行計算完整距離矩陣（小批次使用）
+     */
+    private static final class DenseScoreTask extends RecursiveAction {
+        private final Geometry geometry;
+        private final double[][] cost;
+        private final int from;
+        private final int to;
+
+        DenseScoreTask(Geometry geometry, double[][] cost, int from, int to) {
+            this.geometry = geometry;
+            this.cost = cost;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new DenseScoreTask(geometry, cost, from, mid), new DenseScoreTask(geometry, cost, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                double[] row = cost[i];
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = geometry.distance(i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * 平行計算每筆訂單最近的 K 位外送員（由近到遠）
+     */
+    private static final class TopKScoreTask extends RecursiveAction {
+        private final Geometry geometry;
+        private final int[][] candidates;
+        private final double[][] distances;
+        private final int from;
+        private final int to;
+
+        TopKScoreTask(Geometry geometry, int[][] candidates, double[][] distances, int from, int to) {
+            this.geometry = geometry;
+            this.candidates = candidates;
+            this.distances = distances;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TopKScoreTask(geometry, candidates, distances, from, mid),
+                        new TopKScoreTask(geometry, candidates, distances, mid, to));
+                return;
+            }
+            int m = geometry.courierLat.length;
+            for (int i = from; i < to; i++) {
+                int[] best = candidates[i];
+                double[] bestDistance = distances[i];
+                int k = best.length;
+                int found = 0;
+                for (int j = 0; j < m; j++) {
+                    double d = geometry.distance(i, j);
+                    if (found == k && d >= bestDistance[k - 1]) {
+                        continue;
+                    }
+                    int pos = found < k ? found++ : k - 1;
+                    while (pos > 0 && bestDistance[pos - 1] > d) {
+                        best[pos] = best[pos - 1];
+                        bestDistance[pos] = bestDistance[pos - 1];
+                        pos--;
+                    }
+                    best[pos] = j;
+                    bestDistance[pos] = d;
+                }
+            }
+        }
+    }
+
+    /**
+     * 依距離由小到大貪婪配對候選邊
+     */
+    private static boolean[] greedy(int[][] candidates, double[][] distances, int[] assignment, int courierCount) {
+        int n = candidates.length;
+        int k = candidates[0].length;
+        // 排序鍵 = (距離的 float 位元 << 32) | 邊索引；非負 float 的位元順序與數值順序一致
+        long[] keys = new long[n * k];
+        for (int i = 0, e = 0; i < n; i++) {
+            for (int c = 0; c < k; c++, e++) {
+                keys[e] = ((long) Float.floatToIntBits((float) distances[i][c]) << 32) | e;
+            }
+        }
+        Arrays.sort(keys);
+
+        boolean[] courierUsed = new boolean[courierCount];
+        int remaining = Math.min(n, courierCount);
+        for (int idx = 0; idx < keys.length && remaining > 0; idx++) {
+            int e = (int) keys[idx];
+            int i = e / k;
+            int j = candidates[i][e % k];
+            if (assignment[i] < 0 && !courierUsed[j]) {
+                assignment[i] = j;
+                courierUsed[j] = true;
+                remaining--;
+            }
+        }
+        return courierUsed;
+    }
+
+    /**
+     * 候選人全被搶走的訂單（例如同一家餐廳的多筆訂單），改由所有未使用的外送員中挑最近者
+     */
+    private static void assignRemaining(Geometry geometry, int[] assignment, boolean[] courierUsed) {
+        int m = courierUsed.length;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                continue;
+            }
+            int best = -1;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < m; j++) {
+                if (!courierUsed[j]) {
+                    double d = geometry.distance(i, j);
+                    if (d < bestDistance) {
+                        bestDistance = d;
+                        best = j;
+                    }
+                }
+            }
+            if (best < 0) {
+                return; // 外送員已用完
+            }
+            assignment[i] = best;
+            courierUsed[best] = true;
+        }
+    }
+
+    /**
+     * 局部改善：兩筆訂單交換外送員能縮短總距離時就交換，直到沒有改善或達到輪數上限
+     */
+    private static void improveBySwapping(Geometry geometry, int[] assignment) {
+        int n = assignment.length;
+        for (int pass = 0; pass < 2; pass++) {
+            boolean improved = false;
+            for (int a = 0; a < n; a++) {
+                int ca = assignment[a];
+                if (ca < 0) {
+                    continue;
+                }
+                for (int b = a + 1; b < n; b++) {
+                    int cb = assignment[b];
+                    if (cb < 0) {
+                        continue;
+                    }
+                    double current = geometry.distance(a, ca) + geometry.distance(b, cb);
+                    double swapped = geometry.distance(a, cb) + geometry.distance(b, ca);
+                    if (swapped + 1e-6 < current) {
+                        assignment[a] = cb;
+                        assignment[b] = ca;
+                        ca = cb;
+                        improved = true;
+                    }
+                }
+            }
+            if (!improved) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 匈牙利演算法（O(n²m)），回傳每列指派到的行，列數多於行數時自動轉置
+     */
+    static int[] hungarian(double[][] cost) {
+        int rows = cost.length;
+        int cols = cost[0].length;
+        if (rows > cols) {
+            double[][] transposed = new double[cols][rows];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    transposed[j][i] = cost[i][j];
+                }
+            }
+            int[] colAssignment = hungarian(transposed);
+            int[] result = new int[rows];
+            Arrays.fill(result, -1);
+            for (int j = 0; j < cols; j++) {
+                if (colAssignment[j] >= 0) {
+                    result[colAssignment[j]] = j;
+                }
+            }
+            return result;
+        }
+
+        double[] u = new double[rows + 1];
+        double[] v = new double[cols + 1];
+        int[] p = new int[cols + 1];
+        int[] way = new int[cols + 1];
+        double[] minv = new double[cols + 1];
+        boolean[] used = new boolean[cols + 1];
+        for (int i = 1; i <= rows; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                int j1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                for (int j = 1; j <= cols; j++) {
+                    if (!used[j]) {
+                        double cur = cost[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= cols; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] result = new int[rows];
+        Arrays.fill(result, -1);
+        for (int j = 1; j <= cols; j++) {
+            if (p[j] != 0) {
+                result[p[j] - 1] = j - 1;
+            }
+        }
+        return result;
+    }
+}
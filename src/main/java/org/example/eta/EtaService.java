@@ -0,0 +1,140 @@
+package org.example.eta;
+
+import org.example.model.GeoPoint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 預估送達時間
+ * - 地址經 Geocoder（LRU 快取 + 地名索引）定位
+ * - 餐廳登錄位置時預先計算到各區域的行駛時間；送達地點所在區域查表，再加上區域代表節點到地址的最後一段
+ * - 沒有預先計算的餐廳改用點對點 Dijkstra
+ *
+ * 下單時的預估 = 備餐時間 + 外送員抵達餐廳時間 + 行駛時間；取餐時只剩行駛時間
+ */
+public class EtaService {
+
+    /** 無法預估（地址無法定位、餐廳位置未知或無法到達） */
+    public static final long NO_ESTIMATE = 0;
+
+    // 下單時假設的備餐時間與外送員抵達餐廳的時間
+    private static final long PREPARATION_SECONDS = 15 * 60;
+    private static final long COURIER_ARRIVAL_SECONDS = 5 * 60;
+    // 最後一段以直線距離乘上繞路係數，用一般道路車速估算
+    private static final double DETOUR_FACTOR = 1.3;
+    private static final double LAST_MILE_METERS_PER_SECOND = 20 / 3.6;
+
+    // 內建路網：以台中市區為中心約 20 公里見方、間距 200 公尺的棋盤路網，每 1 公里一條幹道
+    private static final GeoPoint DEFAULT_SOUTH_WEST = new GeoPoint(24.06, 120.56);
+    private static final int DEFAULT_GRID_SIZE = 101;
+    private static final double DEFAULT_SPACING_METERS = 200;
+    private static final int DEFAULT_ARTERIAL_EVERY = 5;
+    private static final double DEFAULT_LOCAL_KMH = 25;
+    private static final double DEFAULT_ARTERIAL_KMH = 50;
+    private static final double DEFAULT_ZONE_METERS = 1000;
+    private static final int DEFAULT_GEOCODE_CACHE = 100_000;
+
+    private final Geocoder geocoder;
+    private final RoadGraph graph;
+    private final ZoneDistanceCache zones;
+    private final Map<String, Integer> restaurantNodes = new ConcurrentHashMap<>();
+
+    public EtaService(Geocoder geocoder, RoadGraph graph, ZoneDistanceCache zones) {
+        this.geocoder = geocoder;
+        this.graph = graph;
+        this.zones = zones;
+    }
+
+    /**
+     * 內建的台中市地名索引與棋盤路網
+     */
+    public static EtaService createDefault() {
+        RoadGraph graph = RoadGraph.grid(DEFAULT_SOUTH_WEST, DEFAULT_GRID_SIZE, DEFAULT_GRID_SIZE,
+                DEFAULT_SPACING_METERS, DEFAULT_ARTERIAL_EVERY, DEFAULT_LOCAL_KMH, DEFAULT_ARTERIAL_KMH);
+        return new EtaService(new Geocoder(Gazetteer.fromResource(Gazetteer.DEFAULT_RESOURCE), DEFAULT_GEOCODE_CACHE),
+                graph, new ZoneDistanceCache(graph, DEFAULT_ZONE_METERS));
+    }
+
+    /**
+     * 登錄（或更新）餐廳位置並預先計算到各區域的行駛時間；路網附近沒有節點時不登錄
+     */
+    public void registerRestaurant(String restaurantId, GeoPoint location) {
+        int node = graph.nearestNode(location.getLatitude(), location.getLongitude());
+        if (node < 0) {
+            restaurantNodes.remove(restaurantId);
+            zones.remove(restaurantId);
+            return;
+        }
+        zones.precompute(restaurantId, node);
+        restaurantNodes.put(restaurantId, node);
+    }
+
+    /**
+     * 下單時的預估送達時間（epoch 毫秒）
+     * @return 無法預估時回傳 NO_ESTIMATE
+     */
+    public long estimateAtCreation(String restaurantId, String deliveryAddress, long nowMillis) {
+        return toEta(nowMillis, PREPARATION_SECONDS + COURIER_ARRIVAL_SECONDS, travelSeconds(restaurantId, deliveryAddress));
+    }
+
+    /**
+     * 取餐時的預估送達時間（epoch 毫秒）
+     * @return 無法預估時回傳 NO_ESTIMATE
+     */
+    public long estimateAtPickup(String restaurantId, String deliveryAddress, long nowMillis) {
+        return toEta(nowMillis, 0, travelSeconds(restaurantId, deliveryAddress));
+    }
+
+    private static long toEta(long nowMillis, long fixedSeconds, double travelSeconds) {
+        if (Double.isNaN(travelSeconds) || Double.isInfinite(travelSeconds)) {
+            return NO_ESTIMATE;
+        }
+        return nowMillis + (long) ((fixedSeconds + travelSeconds) * 1000);
+    }
+
+    /**
+     * 由餐廳到地址的行駛時間（秒）
+     * @return 無法預估時回傳 NaN 或 Infinity
+     */
+    public double travelSeconds(String restaurantId, String deliveryAddress) {
+        Integer source = restaurantNodes.get(restaurantId);
+        if (source == null) {
+            return Double.NaN;
+        }
+        GeoPoint destination = geocoder.locate(deliveryAddress);
+        if (destination == null) {
+            return Double.NaN;
+        }
+        int zone = zones.zoneOf(destination.getLatitude(), destination.getLongitude());
+        if (zone >= 0 && zones.zoneNode(zone) >= 0) {
+            float table = zones.lookup(restaurantId, zone);
+            if (!Float.isNaN(table)) {
+                return table + lastMileSeconds(zones.zoneNode(zone), destination);
+            }
+        }
+        // 未預先計算或不在區域範圍內：點對點計算
+        int target = graph.nearestNode(destination.getLatitude(), destination.getLongitude());
+        if (target < 0) {
+            return Double.NaN;
+        }
+        return graph.travelSeconds(source, target) + lastMileSeconds(target, destination);
+    }
+
+    private double lastMileSeconds(int node, GeoPoint destination) {
+        return destination.distanceMeters(graph.latitude(node), graph.longitude(node))
+                * DETOUR_FACTOR / LAST_MILE_METERS_PER_SECOND;
+    }
+
+    public Geocoder getGeocoder() {
+        return geocoder;
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    public ZoneDistanceCache getZones() {
+        return zones;
+    }
+}
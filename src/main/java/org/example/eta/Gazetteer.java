@@ -0,0 +1,109 @@
+package org.example.eta;
+
+import org.example.model.GeoPoint;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本機地名索引：地名（行政區、道路）對應座標
+ * 地址以最長相符的地名定位，例如「台中市西屯區文華路100號」落在「台中市西屯區文華路」，
+ * 找不到道路時退回「台中市西屯區」
+ *
+ * 檔案格式（UTF-8，# 開頭為註解）：地名 TAB 緯度 TAB 經度
+ */
+public final class Gazetteer {
+
+    /** 內建的台中市地名索引 */
+    public static final String DEFAULT_RESOURCE = "/eta/gazetteer.tsv";
+
+    private final Map<String, GeoPoint> places;
+    private final int longestName;
+
+    private Gazetteer(Map<String, GeoPoint> places) {
+        this.places = places;
+        int longest = 0;
+        for (String name : places.keySet()) {
+            longest = Math.max(longest, name.length());
+        }
+        this.longestName = longest;
+    }
+
+    public static Gazetteer load(InputStream in) throws IOException {
+        Map<String, GeoPoint> places = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            if (fields.length != 3) {
+                throw new IOException("地名索引第 " + lineNumber + " 行格式錯誤: " + line);
+            }
+            try {
+                places.put(normalize(fields[0]),
+                        new GeoPoint(Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim())));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("地名索引第 " + lineNumber + " 行座標錯誤: " + line, e);
+            }
+        }
+        return new Gazetteer(places);
+    }
+
+    /**
+     * 載入類別路徑上的地名索引
+     */
+    public static Gazetteer fromResource(String resource) {
+        try (InputStream in = Gazetteer.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("找不到地名索引: " + resource);
+            }
+            return load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 以最長相符的地名定位地址
+     * @return 座標，完全無法對應時回傳 null
+     */
+    public GeoPoint locate(String address) {
+        String normalized = normalize(address);
+        for (int length = Math.min(normalized.length(), longestName); length > 0; length--) {
+            GeoPoint point = places.get(normalized.substring(0, length));
+            if (point != null) {
+                return point;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return places.size();
+    }
+
+    /**
+     * 去除空白並統一「臺」「台」
+     */
+    static String normalize(String text) {
+        StringBuilder buffer = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '　') {
+                continue;
+            }
+            buffer.append(c == '臺' ? '台' : c);
+        }
+        return buffer.toString();
+    }
+}
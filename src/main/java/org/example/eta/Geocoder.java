@@ -0,0 +1,55 @@
+package org.example.eta;
+
+import org.example.model.GeoPoint;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 地址定位：先查 LRU 快取，未命中時查地名索引並寫回快取
+ * 無法定位的地址也會快取，避免重複查詢
+ */
+public final class Geocoder {
+
+    // 快取中代表「無法定位」的值，以參考比較
+    private static final GeoPoint UNKNOWN = new GeoPoint(0, 0);
+
+    private final Gazetteer gazetteer;
+    private final LruCache<String, GeoPoint> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param cacheCapacity 快取的地址數上限
+     */
+    public Geocoder(Gazetteer gazetteer, int cacheCapacity) {
+        this.gazetteer = gazetteer;
+        this.cache = new LruCache<>(cacheCapacity);
+    }
+
+    /**
+     * @return 地址座標，無法定位時回傳 null
+     */
+    public GeoPoint locate(String address) {
+        GeoPoint point = cache.get(address);
+        if (point != null) {
+            hits.increment();
+            return point == UNKNOWN ? null : point;
+        }
+        misses.increment();
+        point = gazetteer.locate(address);
+        cache.put(address, point == null ? UNKNOWN : point);
+        return point;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getCachedAddresses() {
+        return cache.size();
+    }
+}
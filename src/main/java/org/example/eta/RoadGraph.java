@@ -0,0 +1,384 @@
+package org.example.eta;
+
+import org.example.model.GeoPoint;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 本機路網：節點為路口座標，邊為路段行駛時間（秒）
+ * - 鄰接表以 CSR（offsets / targets / seconds 三個陣列）保存，Dijkstra 走訪時不產生物件
+ * - 以均勻網格索引找出離任意座標最近的節點
+ *
+ * 文字格式（# 開頭為註解）：
+ * N 緯度 經度            節點，編號依出現順序由 0 開始
+ * E 起點 終點 時速        雙向路段，長度由兩端座標計算
+ * O 起點 終點 時速        單行道
+ */
+public final class RoadGraph {
+
+    private static final double CELL_DEGREES = 0.005;
+    private static final int MAX_SEARCH_RINGS = 20;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] offsets;
+    private final int[] targets;
+    private final float[] seconds;
+    private final Map<Long, int[]> cells;
+
+    // 重複使用的 Dijkstra 工作區：每個約 (4 + 4) bytes * 節點數，請求在虛擬執行緒上執行時
+    // ThreadLocal 會讓每個請求各配置一個，改為共用的小池，池空時臨時配置、池滿時丟棄
+    private final ArrayBlockingQueue<Workspace> workspaces =
+            new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * @param from  各路段的起點（單向；雙向路段需各給一筆）
+     * @param edgeSeconds 各路段的行駛時間
+     */
+    public RoadGraph(double[] latitudes, double[] longitudes, int[] from, int[] to, float[] edgeSeconds) {
+        int nodes = latitudes.length;
+        if (longitudes.length != nodes || from.length != to.length || from.length != edgeSeconds.length) {
+            throw new IllegalArgumentException("路網陣列長度不一致");
+        }
+        this.latitudes = latitudes.clone();
+        this.longitudes = longitudes.clone();
+
+        // 依起點排序成 CSR
+        offsets = new int[nodes + 1];
+        for (int f : from) {
+            if (f < 0 || f >= nodes) {
+                throw new IllegalArgumentException("路段起點不存在: " + f);
+            }
+            offsets[f + 1]++;
+        }
+        for (int i = 0; i < nodes; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        targets = new int[from.length];
+        seconds = new float[from.length];
+        int[] next = Arrays.copyOf(offsets, nodes);
+        for (int e = 0; e < from.length; e++) {
+            if (to[e] < 0 || to[e] >= nodes || edgeSeconds[e] < 0) {
+                throw new IllegalArgumentException("路段資料不正確: " + from[e] + " -> " + to[e]);
+            }
+            int slot = next[from[e]]++;
+            targets[slot] = to[e];
+            seconds[slot] = edgeSeconds[e];
+        }
+
+        Map<Long, List<Integer>> grouped = new HashMap<>();
+        for (int i = 0; i < nodes; i++) {
+            grouped.computeIfAbsent(cellKey(latitudes[i], longitudes[i]), k -> new ArrayList<>()).add(i);
+        }
+        cells = new HashMap<>(grouped.size() * 2);
+        for (Map.Entry<Long, List<Integer>> entry : grouped.entrySet()) {
+            cells.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    /**
+     * 產生棋盤狀的路網：每 arterialEvery 條為幹道，其餘為一般道路
+     * @param southWest 西南角
+     */
+    public static RoadGraph grid(GeoPoint southWest, int rows, int columns, double spacingMeters,
+                                 int arterialEvery, double localKmh, double arterialKmh) {
+        if (rows < 2 || columns < 2 || spacingMeters <= 0 || arterialEvery <= 0 || localKmh <= 0 || arterialKmh <= 0) {
+            throw new IllegalArgumentException("路網設定不正確");
+        }
+        double latStep = spacingMeters / GeoPoint.metersPerDegree();
+        double lonStep = latStep / Math.cos(Math.toRadians(southWest.getLatitude()));
+        int nodes = rows * columns;
+        double[] latitudes = new double[nodes];
+        double[] longitudes = new double[nodes];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                latitudes[r * columns + c] = southWest.getLatitude() + r * latStep;
+                longitudes[r * columns + c] = southWest.getLongitude() + c * lonStep;
+            }
+        }
+        int edges = 2 * (rows * (columns - 1) + columns * (rows - 1));
+        int[] from = new int[edges];
+        int[] to = new int[edges];
+        float[] edgeSeconds = new float[edges];
+        float local = (float) (spacingMeters / (localKmh / 3.6));
+        float arterial = (float) (spacingMeters / (arterialKmh / 3.6));
+        int e = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int node = r * columns + c;
+                if (c + 1 < columns) {
+                    float t = r % arterialEvery == 0 ? arterial : local;
+                    e = addTwoWay(from, to, edgeSeconds, e, node, node + 1, t);
+                }
+                if (r + 1 < rows) {
+                    float t = c % arterialEvery == 0 ? arterial : local;
+                    e = addTwoWay(from, to, edgeSeconds, e, node, node + columns, t);
+                }
+            }
+        }
+        return new RoadGraph(latitudes, longitudes, from, to, edgeSeconds);
+    }
+
+    private static int addTwoWay(int[] from, int[] to, float[] edgeSeconds, int e, int a, int b, float t) {
+        from[e] = a;
+        to[e] = b;
+        edgeSeconds[e++] = t;
+        from[e] = b;
+        to[e] = a;
+        edgeSeconds[e++] = t;
+        return e;
+    }
+
+    /**
+     * 讀取文字格式的路網
+     */
+    public static RoadGraph read(BufferedReader reader) throws IOException {
+        List<double[]> nodes = new ArrayList<>();
+        List<int[]> edges = new ArrayList<>();
+        List<Double> speeds = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            try {
+                switch (fields[0]) {
+                    case "N" -> nodes.add(new double[]{Double.parseDouble(fields[1]), Double.parseDouble(fields[2])});
+                    case "E", "O" -> {
+                        int a = Integer.parseInt(fields[1]);
+                        int b = Integer.parseInt(fields[2]);
+                        double kmh = Double.parseDouble(fields[3]);
+                        edges.add(new int[]{a, b});
+                        speeds.add(kmh);
+                        if (fields[0].equals("E")) {
+                            edges.add(new int[]{b, a});
+                            speeds.add(kmh);
+                        }
+                    }
+                    default -> throw new IOException("路網第 " + lineNumber + " 行類型不明: " + line);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("路網第 " + lineNumber + " 行格式錯誤: " + line, e);
+            }
+        }
+        double[] latitudes = new double[nodes.size()];
+        double[] longitudes = new double[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            latitudes[i] = nodes.get(i)[0];
+            longitudes[i] = nodes.get(i)[1];
+        }
+        int[] from = new int[edges.size()];
+        int[] to = new int[edges.size()];
+        float[] edgeSeconds = new float[edges.size()];
+        for (int e = 0; e < edges.size(); e++) {
+            int a = edges.get(e)[0];
+            int b = edges.get(e)[1];
+            if (a < 0 || a >= nodes.size() || b < 0 || b >= nodes.size()) {
+                throw new IOException("路段端點不存在: " + a + " -> " + b);
+            }
+            double meters = new GeoPoint(latitudes[a], longitudes[a]).distanceMeters(latitudes[b], longitudes[b]);
+            from[e] = a;
+            to[e] = b;
+            edgeSeconds[e] = (float) (meters / (speeds.get(e) / 3.6));
+        }
+        return new RoadGraph(latitudes, longitudes, from, to, edgeSeconds);
+    }
+
+    public int nodeCount() {
+        return latitudes.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public double latitude(int node) {
+        return latitudes[node];
+    }
+
+    public double longitude(int node) {
+        return longitudes[node];
+    }
+
+    /**
+     * 離指定座標最近的節點（由所在網格一圈一圈向外找）
+     * @return 節點編號，附近沒有節點時回傳 -1
+     */
+    public int nearestNode(double latitude, double longitude) {
+        long cx = (long) Math.floor(longitude / CELL_DEGREES);
+        long cy = (long) Math.floor(latitude / CELL_DEGREES);
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        double lonScale = Math.cos(Math.toRadians(latitude));
+        for (int ring = 0; ring <= MAX_SEARCH_RINGS; ring++) {
+            for (long dy = -ring; dy <= ring; dy++) {
+                boolean edgeRow = dy == -ring || dy == ring;
+                for (long dx = -ring; dx <= ring; dx += edgeRow ? 1 : 2L * ring) {
+                    int[] members = cells.get(pack(cx + dx, cy + dy));
+                    if (members != null) {
+                        for (int node : members) {
+                            double dLat = latitudes[node] - latitude;
+                            double dLon = (longitudes[node] - longitude) * lonScale;
+                            double distance = dLat * dLat + dLon * dLon;
+                            if (distance < bestDistance) {
+                                bestDistance = distance;
+                                best = node;
+                            }
+                        }
+                    }
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+            // 外圈的任何點距離至少 ring 個網格，已不可能更近
+            double ringDistance = ring * CELL_DEGREES * Math.min(1, lonScale);
+            if (best >= 0 && bestDistance <= ringDistance * ringDistance) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 兩節點間最短行駛時間（秒），到達終點即停止
+     * @return 無法到達時回傳 Float.POSITIVE_INFINITY
+     */
+    public float travelSeconds(int source, int target) {
+        Workspace workspace = acquire();
+        try {
+            return workspace.run(source, target, null);
+        } finally {
+            workspaces.offer(workspace);
+        }
+    }
+
+    /**
+     * 由 source 到每個節點的最短行駛時間（秒），無法到達的節點為 Float.POSITIVE_INFINITY
+     */
+    public float[] travelSecondsFrom(int source) {
+        float[] result = new float[latitudes.length];
+        Workspace workspace = acquire();
+        try {
+            workspace.run(source, -1, result);
+        } finally {
+            workspaces.offer(workspace);
+        }
+        return result;
+    }
+
+    private Workspace acquire() {
+        Workspace workspace = workspaces.poll();
+        return workspace != null ? workspace : new Workspace(latitudes.length);
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return pack((long) Math.floor(longitude / CELL_DEGREES), (long) Math.floor(latitude / CELL_DEGREES));
+    }
+
+    private static long pack(long x, long y) {
+        return (x << 32) ^ (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Dijkstra 工作區：距離以版本號標記是否屬於本次查詢，不需要每次清空
+     * 優先佇列是 long 陣列的二元堆積，高 32 位元為距離（非負 float 的位元順序與數值順序相同），低 32 位元為節點
+     */
+    private final class Workspace {
+        private final float[] distance;
+        private final int[] version;
+        private int currentVersion;
+        private long[] heap = new long[1024];
+        private int heapSize;
+
+        Workspace(int nodes) {
+            distance = new float[nodes];
+            version = new int[nodes];
+        }
+
+        float run(int source, int target, float[] all) {
+            if (++currentVersion == 0) {
+                Arrays.fill(version, 0);
+                currentVersion = 1;
+            }
+            heapSize = 0;
+            relax(source, 0f);
+            while (heapSize > 0) {
+                long top = pop();
+                int node = (int) top;
+                float d = Float.intBitsToFloat((int) (top >>> 32));
+                if (d > distance[node]) {
+                    continue;
+                }
+                if (node == target) {
+                    return d;
+                }
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    relax(targets[e], d + seconds[e]);
+                }
+            }
+            if (all != null) {
+                for (int i = 0; i < all.length; i++) {
+                    all[i] = version[i] == currentVersion ? distance[i] : Float.POSITIVE_INFINITY;
+                }
+            }
+            return Float.POSITIVE_INFINITY;
+        }
+
+        private void relax(int node, float d) {
+            if (version[node] == currentVersion && distance[node] <= d) {
+                return;
+            }
+            version[node] = currentVersion;
+            distance[node] = d;
+            push(((long) Float.floatToIntBits(d) << 32) | node);
+        }
+
+        private void push(long entry) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heap.length * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= entry) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = entry;
+        }
+
+        private long pop() {
+            long top = heap[0];
+            long last = heap[--heapSize];
+            int i = 0;
+            int half = heapSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
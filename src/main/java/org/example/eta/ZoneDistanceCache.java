@@ -0,0 +1,109 @@
+package org.example.eta;
+
+import org.example.model.GeoPoint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 預先計算的「餐廳 → 區域」行駛時間表
+ * 路網範圍切成邊長固定的方形區域，每個區域以最接近中心的節點為代表；
+ * 登錄餐廳時由餐廳節點跑一次完整 Dijkstra，把到每個區域代表節點的時間存成一個 float 陣列，
+ * 之後的查詢只是一次陣列讀取
+ */
+public final class ZoneDistanceCache {
+
+    private final RoadGraph graph;
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double zoneLatDegrees;
+    private final double zoneLonDegrees;
+    private final int rows;
+    private final int columns;
+    private final int[] zoneNodes;
+    private final Map<String, float[]> tables = new ConcurrentHashMap<>();
+
+    /**
+     * @param zoneSizeMeters 區域邊長
+     */
+    public ZoneDistanceCache(RoadGraph graph, double zoneSizeMeters) {
+        if (graph.nodeCount() == 0 || zoneSizeMeters <= 0) {
+            throw new IllegalArgumentException("路網不可為空，區域邊長必須大於 0");
+        }
+        this.graph = graph;
+        double minLat = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE;
+        double maxLon = -Double.MAX_VALUE;
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            minLat = Math.min(minLat, graph.latitude(i));
+            maxLat = Math.max(maxLat, graph.latitude(i));
+            minLon = Math.min(minLon, graph.longitude(i));
+            maxLon = Math.max(maxLon, graph.longitude(i));
+        }
+        this.minLatitude = minLat;
+        this.minLongitude = minLon;
+        this.zoneLatDegrees = zoneSizeMeters / GeoPoint.metersPerDegree();
+        this.zoneLonDegrees = zoneLatDegrees / Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        this.rows = (int) ((maxLat - minLat) / zoneLatDegrees) + 1;
+        this.columns = (int) ((maxLon - minLon) / zoneLonDegrees) + 1;
+        this.zoneNodes = new int[rows * columns];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                zoneNodes[r * columns + c] = graph.nearestNode(minLat + (r + 0.5) * zoneLatDegrees,
+                        minLon + (c + 0.5) * zoneLonDegrees);
+            }
+        }
+    }
+
+    public int zoneCount() {
+        return zoneNodes.length;
+    }
+
+    /**
+     * @return 座標所在的區域，超出路網範圍時回傳 -1
+     */
+    public int zoneOf(double latitude, double longitude) {
+        int r = (int) Math.floor((latitude - minLatitude) / zoneLatDegrees);
+        int c = (int) Math.floor((longitude - minLongitude) / zoneLonDegrees);
+        if (r < 0 || r >= rows || c < 0 || c >= columns) {
+            return -1;
+        }
+        return r * columns + c;
+    }
+
+    /**
+     * 區域的代表節點，-1 表示附近沒有節點
+     */
+    public int zoneNode(int zone) {
+        return zoneNodes[zone];
+    }
+
+    /**
+     * 計算（或重新計算）由 sourceNode 出發到每個區域的行駛時間
+     */
+    public void precompute(String key, int sourceNode) {
+        float[] all = graph.travelSecondsFrom(sourceNode);
+        float[] table = new float[zoneNodes.length];
+        for (int zone = 0; zone < zoneNodes.length; zone++) {
+            table[zone] = zoneNodes[zone] < 0 ? Float.POSITIVE_INFINITY : all[zoneNodes[zone]];
+        }
+        tables.put(key, table);
+    }
+
+    public void remove(String key) {
+        tables.remove(key);
+    }
+
+    /**
+     * @return 行駛時間（秒）；尚未預先計算時回傳 NaN，無法到達時回傳 Float.POSITIVE_INFINITY
+     */
+    public float lookup(String key, int zone) {
+        float[] table = tables.get(key);
+        return table == null ? Float.NaN : table[zone];
+    }
+
+    public int precomputedCount() {
+        return tables.size();
+    }
+}
@@ -3,7 +3,7 @@ package org.example.exception;
 /**
  * 外送員不可用例外 (Checked Exception)
  */
-public class DeliveryPersonUnavailableException extends Exception {
+public class DeliveryPersonUnavailableException extends DeliveryRejectionException {
     private final String orderId;
 
     public DeliveryPersonUnavailableException(String orderId, String message) {
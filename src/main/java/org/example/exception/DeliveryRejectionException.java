@@ -0,0 +1,46 @@
+package org.example.exception;
+
+/**
+ * 業務拒絕例外的共同父類別 (Checked Exception)
+ * 餐廳忙碌、狀態不符、訂單不存在等屬於正常且頻繁的業務結果，
+ * 因此預設不擷取堆疊，訊息也延後到第一次呼叫 getMessage() 時才組成。
+ * 除錯時可用 -Ddelivery.rejection.stackTrace=true 或 setStackTraceEnabled(true) 開回堆疊。
+ */
+public abstract class DeliveryRejectionException extends Exception {
+    private static volatile boolean stackTraceEnabled = Boolean.getBoolean("delivery.rejection.stackTrace");
+
+    private String message;
+
+    /**
+     * @param message 固定訊息；傳入 null 時改由 buildMessage() 延遲產生
+     */
+    protected DeliveryRejectionException(String message) {
+        super(null, null, false, stackTraceEnabled);
+        this.message = message;
+    }
+
+    @Override
+    public String getMessage() {
+        String result = message;
+        if (result == null) {
+            result = buildMessage();
+            message = result;
+        }
+        return result;
+    }
+
+    /**
+     * 延遲組成例外訊息，子類別視需要覆寫
+     */
+    protected String buildMessage() {
+        return null;
+    }
+
+    public static boolean isStackTraceEnabled() {
+        return stackTraceEnabled;
+    }
+
+    public static void setStackTraceEnabled(boolean enabled) {
+        stackTraceEnabled = enabled;
+    }
+}
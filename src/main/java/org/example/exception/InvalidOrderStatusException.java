@@ -6,20 +6,25 @@ import org.example.model.OrderStatus;
  * 訂單狀態無效例外 (Checked Exception)
  * 當訂單狀態轉換不合法時拋出
  */
-public class InvalidOrderStatusException extends Exception {
+public class InvalidOrderStatusException extends DeliveryRejectionException {
     private final String orderId;
     private final OrderStatus currentStatus;
     private final OrderStatus attemptedStatus;
 
     public InvalidOrderStatusException(String orderId, OrderStatus currentStatus,
                                        OrderStatus attemptedStatus) {
-        super(String.format("訂單 %s 無法從 %s 轉換到 %s",
-                orderId, currentStatus.getDescription(), attemptedStatus.getDescription()));
+        super(null);
         this.orderId = orderId;
         this.currentStatus = currentStatus;
         this.attemptedStatus = attemptedStatus;
     }
 
+    @Override
+    protected String buildMessage() {
+        return "訂單 " + orderId + " 無法從 " + currentStatus.getDescription()
+                + " 轉換到 " + attemptedStatus.getDescription();
+    }
+
     public String getOrderId() {
         return orderId;
     }
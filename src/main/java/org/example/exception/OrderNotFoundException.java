@@ -3,14 +3,19 @@ package org.example.exception;
 /**
  * 訂單找不到例外 (Checked Exception)
  */
-public class OrderNotFoundException extends Exception {
+public class OrderNotFoundException extends DeliveryRejectionException {
     private final String orderId;
 
     public OrderNotFoundException(String orderId) {
-        super("找不到訂單: " + orderId);
+        super(null);
         this.orderId = orderId;
     }
 
+    @Override
+    protected String buildMessage() {
+        return "找不到訂單: " + orderId;
+    }
+
     public String getOrderId() {
         return orderId;
     }
@@ -4,15 +4,28 @@ package org.example.exception;
  * 餐廳忙碌例外 (Checked Exception)
  * 當餐廳訂單過多或暫停營業時拋出
  */
-public class RestaurantBusyException extends Exception {
+public class RestaurantBusyException extends DeliveryRejectionException {
     private final String restaurantId;
+    private final boolean transientFailure;
 
     public RestaurantBusyException(String restaurantId, String message) {
+        this(restaurantId, message, false);
+    }
+
+    /**
+     * @param transientFailure 餐廳端系統暫時性錯誤（計入斷路器，可稍後重試）；容量已滿、暫停營業與斷路中為 false
+     */
+    public RestaurantBusyException(String restaurantId, String message, boolean transientFailure) {
         super(message);
         this.restaurantId = restaurantId;
+        this.transientFailure = transientFailure;
     }
 
     public String getRestaurantId() {
         return restaurantId;
     }
+
+    public boolean isTransientFailure() {
+        return transientFailure;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,392 @@
+package org.example.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.analytics.RestaurantAnalytics;
+import org.example.analytics.WindowStats;
+import org.example.eta.EtaService;
+import org.example.exception.DeliveryPersonUnavailableException;
+import org.example.exception.InvalidOrderStatusException;
+import org.example.exception.OrderNotFoundException;
+import org.example.exception.RestaurantBusyException;
+import org.example.id.SnowflakeIdGenerator;
+import org.example.journal.OrderJournal;
+import org.example.model.LineItem;
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+import org.example.resilience.CircuitBreaker;
+import org.example.service.DeliveryService;
+import org.example.sla.SlaPolicy;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DeliveryService 的 HTTP/JSON API，每個請求由一條虛擬執行緒處理
+ * 慢速或閒置的連線只佔用虛擬執行緒，不需要大型平台執行緒池
+ *
+ * POST /orders                      建立訂單 {customerId, restaurantId, foodItems, totalAmount, deliveryAddress}
+ *                                   或依菜單 {customerId, restaurantId, items: "M001x2,M002x1", deliveryAddress}
+ *                                   帶 Idempotency-Key 標頭時，同一位顧客重送相同的鍵會回傳原訂單
+ * GET  /orders/{id}                 查詢訂單
+ * GET  /orders?status=READY         依狀態查詢；亦可用 customerId、restaurantId、deliveryPersonId，
+ *                                   搭配 status=ACCEPTED,PREPARING 篩選狀態
+ * POST /orders/{id}/accept          餐廳接單 {restaurantId}
+ * POST /orders/{id}/prepare         開始準備
+ * POST /orders/{id}/ready           餐點完成
+ * POST /orders/{id}/assign          指派外送員 {deliveryPersonId}；省略時自動派單
+ * POST /orders/{id}/complete        完成配送
+ * POST /orders/{id}/cancel          取消訂單 {reason}
+ * GET  /metrics                     執行期指標（純文字，每行：名稱 數值）
+ * GET  /analytics                   各餐廳最近 5、15、60 分鐘的統計；?restaurantId=R001 只查單一餐廳
+ *
+ * 例外對應：訂單不存在 404、狀態不允許 409、外送員不可用 409、
+ * 餐廳忙碌 503（附 Retry-After，斷路中為剩餘的斷路秒數）、
+ * 參數錯誤 400
+ *
+ * 啟動：mvn exec:java -Dexec.mainClass=org.example.http.DeliveryHttpServer -Dexec.args=8080
+ */
+public class DeliveryHttpServer implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(DeliveryHttpServer.class);
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_BACKLOG = 4096;
+    /** 指標在 JMX 中的名稱 */
+    public static final String METRICS_OBJECT_NAME = "org.example:type=DeliveryService";
+
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final String TEXT_TYPE = "text/plain; charset=utf-8";
+    private static final String ORDERS_PATH = "/orders";
+    private static final String METRICS_PATH = "/metrics";
+    private static final String ANALYTICS_PATH = "/analytics";
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static {
+        // 內建 HttpServer 預設未關閉 Nagle，小型回應會被延遲 ACK 卡住約 40ms；需在載入 HttpServer 前設定
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final DeliveryService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public DeliveryHttpServer(DeliveryService service, InetSocketAddress address) throws IOException {
+        this(service, address, DEFAULT_BACKLOG, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * @param executor 處理請求的執行緒（預設每個請求一條虛擬執行緒），關閉伺服器時一併關閉
+     */
+    public DeliveryHttpServer(DeliveryService service, InetSocketAddress address, int backlog,
+                              ExecutorService executor) throws IOException {
+        this.service = service;
+        this.executor = executor;
+        this.server = HttpServer.create(address, backlog);
+        server.createContext(ORDERS_PATH, this::handle);
+        server.createContext(METRICS_PATH, this::handleMetrics);
+        server.createContext(ANALYTICS_PATH, this::handleAnalytics);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        logger.info("HTTP API 已啟動，連接埠 {}", getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        logger.info("HTTP API 已停止");
+    }
+
+    private long retryAfterSeconds(String restaurantId) {
+        CircuitBreaker breaker = service.getCircuitBreaker(restaurantId);
+        long remaining = breaker == null ? 0 : breaker.getRemainingOpenMillis(System.currentTimeMillis());
+        return Math.max(1, (remaining + 999) / 1000);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                route(exchange);
+            } catch (OrderNotFoundException e) {
+                reject(exchange, 404, "ORDER_NOT_FOUND", e);
+            } catch (InvalidOrderStatusException e) {
+                reject(exchange, 409, "INVALID_ORDER_STATUS", e);
+            } catch (DeliveryPersonUnavailableException e) {
+                reject(exchange, 409, "DELIVERY_PERSON_UNAVAILABLE", e);
+            } catch (RestaurantBusyException e) {
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(retryAfterSeconds(e.getRestaurantId())));
+                reject(exchange, 503, "RESTAURANT_BUSY", e);
+            } catch (IllegalArgumentException e) {
+                reject(exchange, 400, "BAD_REQUEST", e);
+            } catch (RuntimeException e) {
+                logger.error("處理 {} {} 時發生未預期的錯誤", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+                send(exchange, 500, Json.error("INTERNAL_ERROR", "系統錯誤，請稍後再試"));
+            }
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                methodNotAllowed(exchange);
+                return;
+            }
+            byte[] bytes = service.getMetrics().formatText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", TEXT_TYPE);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private void handleAnalytics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                methodNotAllowed(exchange);
+                return;
+            }
+            RestaurantAnalytics analytics = service.getAnalytics();
+            String restaurantId = parseQuery(exchange.getRequestURI().getRawQuery()).get("restaurantId");
+            List<String> restaurantIds = restaurantId == null ? analytics.getRestaurantIds() : List.of(restaurantId);
+            // 同一次回應的各視窗以同一個時間點計算
+            long now = System.currentTimeMillis();
+            Map<String, List<WindowStats>> result = new LinkedHashMap<>();
+            for (String id : restaurantIds) {
+                List<WindowStats> windows = new ArrayList<>(RestaurantAnalytics.STANDARD_WINDOWS.length);
+                for (int minutes : RestaurantAnalytics.STANDARD_WINDOWS) {
+                    windows.add(analytics.query(id, minutes, now));
+                }
+                result.put(id, windows);
+            }
+            send(exchange, 200, Json.analytics(result));
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException, OrderNotFoundException,
+            InvalidOrderStatusException, DeliveryPersonUnavailableException, RestaurantBusyException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String[] segments = path.substring(ORDERS_PATH.length()).split("/");
+        // "/orders" -> [""]，"/orders/ID" -> ["", "ID"]，"/orders/ID/accept" -> ["", "ID", "accept"]
+        if (segments.length <= 1) {
+            if ("POST".equals(method)) {
+                createOrder(exchange);
+            } else if ("GET".equals(method)) {
+                queryOrders(exchange);
+            } else {
+                methodNotAllowed(exchange);
+            }
+            return;
+        }
+        String orderId = segments[1];
+        if (segments.length == 2) {
+            if ("GET".equals(method)) {
+                send(exchange, 200, Json.order(service.getOrder(orderId)));
+            } else {
+                methodNotAllowed(exchange);
+            }
+            return;
+        }
+        if (segments.length != 3) {
+            notFound(exchange);
+            return;
+        }
+        if (!"POST".equals(method)) {
+            methodNotAllowed(exchange);
+            return;
+        }
+        Map<String, String> body = readBody(exchange);
+        switch (segments[2]) {
+            case "accept" -> service.acceptOrder(orderId, required(body, "restaurantId"));
+            case "prepare" -> service.prepareFood(orderId);
+            case "ready" -> service.foodReady(orderId);
+            case "assign" -> {
+                String deliveryPersonId = body.get("deliveryPersonId");
+                if (deliveryPersonId == null) {
+                    service.autoAssign(orderId);
+                } else {
+                    service.assignDeliveryPerson(orderId, deliveryPersonId);
+                }
+            }
+            case "complete" -> service.completeDelivery(orderId);
+            case "cancel" -> service.cancelOrder(orderId, body.getOrDefault("reason", "未提供原因"));
+            default -> {
+                notFound(exchange);
+                return;
+            }
+        }
+        send(exchange, 200, Json.order(service.getOrder(orderId)));
+    }
+
+    private void createOrder(HttpExchange exchange) throws IOException {
+        Map<String, String> body = readBody(exchange);
+        String idempotencyKey = exchange.getRequestHeaders().getFirst(IDEMPOTENCY_KEY_HEADER);
+        String items = body.get("items");
+        if (items != null) {
+            Order order = service.createOrder(idempotencyKey, required(body, "customerId"),
+                    required(body, "restaurantId"), parseLineItems(items), body.get("deliveryAddress"));
+            exchange.getResponseHeaders().set("Location", ORDERS_PATH + "/" + order.getOrderId());
+            send(exchange, 201, Json.order(order));
+            return;
+        }
+        double totalAmount;
+        try {
+            totalAmount = Double.parseDouble(required(body, "totalAmount"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("totalAmount 必須是數字");
+        }
+        Order order = service.createOrder(idempotencyKey, required(body, "customerId"),
+                required(body, "restaurantId"), required(body, "foodItems"), totalAmount, body.get("deliveryAddress"));
+        exchange.getResponseHeaders().set("Location", ORDERS_PATH + "/" + order.getOrderId());
+        send(exchange, 201, Json.order(order));
+    }
+
+    /**
+     * 「品項編號x數量」以逗號分隔，例如 M001x2,M002x1
+     */
+    private static List<LineItem> parseLineItems(String value) {
+        List<LineItem> items = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String trimmed = part.trim();
+            int separator = trimmed.lastIndexOf('x');
+            if (separator <= 0 || separator == trimmed.length() - 1) {
+                throw new IllegalArgumentException("品項格式錯誤: " + trimmed);
+            }
+            try {
+                items.add(new LineItem(trimmed.substring(0, separator),
+                        Integer.parseInt(trimmed.substring(separator + 1))));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("品項數量必須是整數: " + trimmed);
+            }
+        }
+        return items;
+    }
+
+    private void queryOrders(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        Set<OrderStatus> statuses = parseStatuses(query.get("status"));
+        List<Order> result;
+        if (query.containsKey("customerId")) {
+            result = service.getOrdersByCustomer(query.get("customerId"), statuses);
+        } else if (query.containsKey("restaurantId")) {
+            result = service.getOrdersByRestaurant(query.get("restaurantId"), statuses);
+        } else if (query.containsKey("deliveryPersonId")) {
+            result = service.getOrdersByDeliveryPerson(query.get("deliveryPersonId"), statuses);
+        } else if (statuses.size() == 1) {
+            result = service.getOrdersByStatus(statuses.iterator().next());
+        } else {
+            throw new IllegalArgumentException("請指定 status（單一狀態）、customerId、restaurantId 或 deliveryPersonId");
+        }
+        send(exchange, 200, Json.orders(result));
+    }
+
+    private static Set<OrderStatus> parseStatuses(String value) {
+        if (value == null || value.isEmpty()) {
+            return EnumSet.allOf(OrderStatus.class);
+        }
+        Set<OrderStatus> statuses = EnumSet.noneOf(OrderStatus.class);
+        for (String name : value.split(",")) {
+            try {
+                statuses.add(OrderStatus.valueOf(name.trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("未知的訂單狀態: " + name);
+            }
+        }
+        return statuses;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.put(key, value);
+        }
+        return query;
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("請求內容過大");
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8).trim();
+        return text.isEmpty() ? Map.of() : Json.parseObject(text);
+    }
+
+    private static String required(Map<String, String> body, String field) {
+        String value = body.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("缺少欄位: " + field);
+        }
+        return value;
+    }
+
+    private static void reject(HttpExchange exchange, int status, String code, Exception e) throws IOException {
+        send(exchange, status, Json.error(code, e.getMessage()));
+    }
+
+    private static void notFound(HttpExchange exchange) throws IOException {
+        send(exchange, 404, Json.error("NOT_FOUND", "找不到路徑: " + exchange.getRequestURI().getPath()));
+    }
+
+    private static void methodNotAllowed(HttpExchange exchange) throws IOException {
+        send(exchange, 405, Json.error("METHOD_NOT_ALLOWED", "不支援的方法: " + exchange.getRequestMethod()));
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, JMException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        DeliveryService service = new DeliveryService(new SnowflakeIdGenerator(0), OrderJournal.DISABLED,
+                null, null, EtaService.createDefault(), SlaPolicy.defaults());
+        service.getMetrics().registerMBean(METRICS_OBJECT_NAME);
+        DeliveryHttpServer server = new DeliveryHttpServer(service, new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            service.close();
+        }, "http-shutdown"));
+        server.start();
+    }
+}
@@ -0,0 +1,329 @@
+package org.example.http;
+
+import org.example.analytics.WindowStats;
+import org.example.model.Order;
+import org.example.model.OrderLine;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API 使用的最小 JSON 工具：請求只接受單層物件，回應由 StringBuilder 直接組出
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * 解析單層 JSON 物件，值一律以字串回傳（數字與布林為原始文字，null 為 null）
+     * @throws IllegalArgumentException 格式錯誤或含有巢狀結構
+     */
+    static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> result = parser.object();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.error();
+        }
+        return result;
+    }
+
+    static String order(Order order) {
+        StringBuilder buffer = new StringBuilder(256);
+        appendOrder(buffer, order);
+        return buffer.toString();
+    }
+
+    static String orders(Collection<Order> orders) {
+        StringBuilder buffer = new StringBuilder(64 + orders.size() * 256);
+        buffer.append('[');
+        boolean first = true;
+        for (Order order : orders) {
+            if (!first) {
+                buffer.append(',');
+            }
+            appendOrder(buffer, order);
+            first = false;
+        }
+        return buffer.append(']').toString();
+    }
+
+    /**
+     * 各餐廳的視窗統計：[{restaurantId, windows: [{minutes, orders, ...}]}]
+     */
+    static String analytics(Map<String, List<WindowStats>> byRestaurant) {
+        StringBuilder buffer = new StringBuilder(64 + byRestaurant.size() * 512);
+        buffer.append('[');
+        boolean first = true;
+        for (Map.Entry<String, List<WindowStats>> entry : byRestaurant.entrySet()) {
+            if (!first) {
+                buffer.append(',');
+            }
+            buffer.append("{\"restaurantId\":");
+            appendString(buffer, entry.getKey());
+            buffer.append(",\"windows\":[");
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                appendWindow(buffer, entry.getValue().get(i));
+            }
+            buffer.append("]}");
+            first = false;
+        }
+        return buffer.append(']').toString();
+    }
+
+    private static void appendWindow(StringBuilder buffer, WindowStats stats) {
+        buffer.append("{\"minutes\":").append(stats.getWindowMinutes())
+                .append(",\"orders\":").append(stats.getOrders())
+                .append(",\"accepted\":").append(stats.getAccepted())
+                .append(",\"rejected\":").append(stats.getRejected())
+                .append(",\"acceptanceRate\":");
+        appendRatio(buffer, stats.getAcceptanceRate());
+        buffer.append(",\"averagePrepSeconds\":");
+        appendRatio(buffer, stats.getAveragePrepMillis() / 1000);
+        buffer.append(",\"delivered\":").append(stats.getDelivered())
+                .append(",\"revenue\":");
+        appendAmount(buffer, stats.getRevenueCents());
+        buffer.append('}');
+    }
+
+    /**
+     * 小數取三位，NaN 輸出 null
+     */
+    private static void appendRatio(StringBuilder buffer, double value) {
+        if (Double.isNaN(value)) {
+            buffer.append("null");
+        } else {
+            buffer.append(Math.round(value * 1000) / 1000.0);
+        }
+    }
+
+    static String error(String code, String message) {
+        StringBuilder buffer = new StringBuilder(128);
+        buffer.append("{\"error\":");
+        appendString(buffer, code);
+        buffer.append(",\"message\":");
+        appendString(buffer, message);
+        return buffer.append('}').toString();
+    }
+
+    private static void appendOrder(StringBuilder buffer, Order order) {
+        long cents = order.getTotalAmountCents();
+        buffer.append("{\"orderId\":");
+        appendString(buffer, order.getOrderId());
+        buffer.append(",\"customerId\":");
+        appendString(buffer, order.getCustomerId());
+        buffer.append(",\"restaurantId\":");
+        appendString(buffer, order.getRestaurantId());
+        buffer.append(",\"deliveryPersonId\":");
+        appendString(buffer, order.getDeliveryPersonId());
+        buffer.append(",\"foodItems\":");
+        appendString(buffer, order.getFoodItems());
+        buffer.append(",\"totalAmount\":");
+        appendAmount(buffer, cents);
+        List<OrderLine> lines = order.getLineItems();
+        if (!lines.isEmpty()) {
+            buffer.append(",\"lineItems\":[");
+            for (int i = 0; i < lines.size(); i++) {
+                OrderLine line = lines.get(i);
+                buffer.append(i == 0 ? "{\"itemId\":" : ",{\"itemId\":");
+                appendString(buffer, line.getItemId());
+                buffer.append(",\"name\":");
+                appendString(buffer, line.getName());
+                buffer.append(",\"quantity\":").append(line.getQuantity());
+                buffer.append(",\"unitPrice\":");
+                appendAmount(buffer, line.getUnitPriceCents());
+                buffer.append('}');
+            }
+            buffer.append(']');
+        }
+        buffer.append(",\"deliveryAddress\":");
+        appendString(buffer, order.getDeliveryAddress());
+        buffer.append(",\"status\":\"").append(order.getStatus().name()).append('"');
+        buffer.append(",\"orderTime\":").append(order.getOrderTimeMillis());
+        buffer.append(",\"acceptedTime\":");
+        appendTime(buffer, order.getAcceptedAtMillis());
+        buffer.append(",\"readyTime\":");
+        appendTime(buffer, order.getReadyAtMillis());
+        buffer.append(",\"estimatedDeliveryTime\":");
+        appendTime(buffer, order.getEstimatedDeliveryMillis());
+        buffer.append('}');
+    }
+
+    /**
+     * 以分為單位的金額輸出為兩位小數
+     */
+    private static void appendAmount(StringBuilder buffer, long cents) {
+        if (cents < 0) {
+            buffer.append('-');
+            cents = -cents;
+        }
+        buffer.append(cents / 100).append('.');
+        if (cents % 100 < 10) {
+            buffer.append('0');
+        }
+        buffer.append(cents % 100);
+    }
+
+    /**
+     * epoch 毫秒，0 表示尚未發生，輸出 null
+     */
+    private static void appendTime(StringBuilder buffer, long millis) {
+        if (millis == 0) {
+            buffer.append("null");
+        } else {
+            buffer.append(millis);
+        }
+    }
+
+    static void appendString(StringBuilder buffer, String value) {
+        if (value == null) {
+            buffer.append("null");
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> buffer.append("\\\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                case '\t' -> buffer.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        buffer.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        buffer.append(c);
+                    }
+                }
+            }
+        }
+        buffer.append('"');
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> object() {
+            Map<String, String> result = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return result;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                result.put(key, value());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return result;
+                }
+                if (c != ',') {
+                    throw error();
+                }
+            }
+        }
+
+        private String value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("不支援巢狀的 JSON 欄位");
+            }
+            int start = position;
+            while (position < text.length() && ",} \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw error();
+            }
+            return "null".equals(literal) ? null : literal;
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw error();
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error();
+                        }
+                        position += 4;
+                    }
+                    default -> throw error();
+                }
+            }
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw error();
+            }
+        }
+
+        private char next() {
+            if (position >= text.length()) {
+                throw error();
+            }
+            return text.charAt(position++);
+        }
+
+        private char peek() {
+            if (position >= text.length()) {
+                throw error();
+            }
+            return text.charAt(position);
+        }
+
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        IllegalArgumentException error() {
+            return new IllegalArgumentException("JSON 格式錯誤（位置 " + position + "）");
+        }
+    }
+}
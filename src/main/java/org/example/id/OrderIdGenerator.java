@@ -0,0 +1,20 @@
+package org.example.id;
+
+/**
+ * 訂單編號產生器介面
+ * 實作必須保證在多執行緒下產生的編號不重複
+ */
+public interface OrderIdGenerator {
+
+    /**
+     * 產生 64 位元數字編號
+     */
+    long nextId();
+
+    /**
+     * 產生字串形式的訂單編號
+     */
+    default String nextOrderId() {
+        return "ORD" + nextId();
+    }
+}
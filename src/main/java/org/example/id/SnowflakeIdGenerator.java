@@ -0,0 +1,116 @@
+package org.example.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake 風格的訂單編號產生器（無鎖）
+ * 64 位元編號 = 1 位元保留 | 41 位元毫秒時間戳 | 10 位元節點編號 | 12 位元毫秒內序號
+ * 同一毫秒內序號用盡時借用下一毫秒，時鐘倒退時沿用上次時間戳，因此編號永遠遞增
+ */
+public class SnowflakeIdGenerator implements OrderIdGenerator {
+
+    /** 自訂紀元：2024-01-01T00:00:00Z */
+    public static final long EPOCH_MILLIS = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    /** 字串形式固定寬度，確保字典序與數值順序一致 */
+    private static final int STRING_WIDTH = 13;
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private final long nodeBits;
+
+    // 最後一次發出的 (時間戳 << SEQUENCE_BITS | 序號)
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("節點編號必須介於 0 到 " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    @Override
+    public long nextId() {
+        long state;
+        for (;;) {
+            long prev = lastState.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long prevTimestamp = prev >>> SEQUENCE_BITS;
+            if (now > prevTimestamp) {
+                state = now << SEQUENCE_BITS;
+            } else {
+                // 同一毫秒或時鐘倒退：序號加一，溢位時自然進位到下一毫秒
+                state = prev + 1;
+            }
+            if (lastState.compareAndSet(prev, state)) {
+                break;
+            }
+        }
+        long timestamp = state >>> SEQUENCE_BITS;
+        return (timestamp << TIMESTAMP_SHIFT) | nodeBits | (state & SEQUENCE_MASK);
+    }
+
+    /**
+     * 精簡字串形式：ORD + 13 位大寫 36 進位，可依字串排序得到建立順序
+     */
+    @Override
+    public String nextOrderId() {
+        return toCompactString(nextId());
+    }
+
+    public static String toCompactString(long id) {
+        char[] buf = new char[3 + STRING_WIDTH];
+        buf[0] = 'O';
+        buf[1] = 'R';
+        buf[2] = 'D';
+        long value = id;
+        for (int i = buf.length - 1; i >= 3; i--) {
+            buf[i] = DIGITS[(int) Long.remainderUnsigned(value, 36)];
+            value = Long.divideUnsigned(value, 36);
+        }
+        return new String(buf);
+    }
+
+    /**
+     * toCompactString 的反向轉換
+     * @return 格式不符或超出 long 範圍時回傳 -1
+     */
+    public static long parseCompactString(String orderId) {
+        if (orderId == null || orderId.length() != 3 + STRING_WIDTH || !orderId.startsWith("ORD")) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 3; i < orderId.length(); i++) {
+            int digit = Character.digit(orderId.charAt(i), 36);
+            if (digit < 0 || Character.isLowerCase(orderId.charAt(i))) {
+                return -1;
+            }
+            // 13 位 36 進位最大可達 36^13 - 1，超過 Long.MAX_VALUE 的字串不是有效的編號
+            try {
+                value = Math.addExact(Math.multiplyExact(value, 36), digit);
+            } catch (ArithmeticException e) {
+                return -1;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 從編號取出建立時間（epoch 毫秒）
+     */
+    public static long extractTimestampMillis(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+
+    /**
+     * 從編號取出節點編號
+     */
+    public static int extractNodeId(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.journal;
+
+/**
+ * 訂單日誌的落盤策略
+ */
+public enum FsyncPolicy {
+    EVERY_EVENT("每筆事件寫入後立即 fsync"),      // 最安全，延遲最高
+    GROUP_COMMIT("批次 fsync，呼叫端等待落盤"),     // 多筆事件共用一次 fsync
+    OS_MANAGED("交由作業系統決定何時寫回");        // 延遲最低，當機時可能遺失最後數秒的事件
+
+    private final String description;
+
+    FsyncPolicy(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,607 @@
+package org.example.journal;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * 以記憶體映射檔實作的分段式訂單日誌
+ *
+ * 檔案格式：目錄下依序編號的 journal-NNNNNNNNNNNNNNNNNNNN.seg，每個分段固定大小並預先填零。
+ * 每筆紀錄為 [int 內容長度][int CRC32C][byte 事件類型][long 時間戳][欄位...]，
+ * 長度為 0 代表分段結尾；CRC 不符代表當機時寫到一半，重播到此為止，重新開啟時從該處覆寫。
+ */
+public class MappedOrderJournal implements OrderJournal {
+    private static final Logger logger = LogManager.getLogger(MappedOrderJournal.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_GROUP_COMMIT_WINDOW_MICROS = 200;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    // 訂單建立事件的固定部分：事件類型、時間戳、5 個字串長度、金額
+    private static final int ORDER_CREATED_FIXED_BYTES = 1 + 8 + 5 * 2 + 8;
+
+    static final byte ORDER_CREATED = 1;
+    static final byte STATUS_CHANGED = 2;
+    static final byte RESTAURANT_AVAILABILITY = 3;
+    static final byte RESTAURANT_CAPACITY = 4;
+    static final byte COURIER_AVAILABILITY = 5;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy policy;
+    private final long groupCommitWindowNanos;
+
+    // 編碼用的暫存區，每條執行緒一份，於鎖外完成編碼與 CRC 計算
+    private final ThreadLocal<ByteBuffer> scratch =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_BODY_BYTES));
+    private final ThreadLocal<CRC32C> checksums = ThreadLocal.withInitial(CRC32C::new);
+    // 批次寫入時先把整批紀錄（含標頭）編碼在此，容量不足時加倍
+    private final ThreadLocal<ByteBuffer> batches =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(4 * MAX_BODY_BYTES));
+
+    // 以下欄位只在 writeLock 內修改
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long segmentIndex;
+    private MappedByteBuffer segment;
+
+    // 邏輯位置 = 分段編號 * 分段大小 + 分段內位置
+    private volatile MappedByteBuffer currentSegment;
+    private volatile long writtenPosition;
+    private volatile long durablePosition;
+    private volatile boolean closed;
+
+    private final Object flushMonitor = new Object();
+    private final Object durableMonitor = new Object();
+    private final Thread flusher;
+
+    public static MappedOrderJournal open(Path directory, FsyncPolicy policy) throws IOException {
+        return new MappedOrderJournal(directory, policy, DEFAULT_SEGMENT_SIZE, DEFAULT_GROUP_COMMIT_WINDOW_MICROS);
+    }
+
+    /**
+     * @param groupCommitWindowMicros GROUP_COMMIT 時，收到第一筆待落盤事件後再等待多久以累積更多事件
+     */
+    public MappedOrderJournal(Path directory, FsyncPolicy policy, int segmentSize,
+                              long groupCommitWindowMicros) throws IOException {
+        if (segmentSize < HEADER_BYTES + MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("分段大小至少需要 " + (HEADER_BYTES + MAX_BODY_BYTES) + " bytes");
+        }
+        this.directory = directory;
+        this.policy = policy;
+        this.segmentSize = segmentSize;
+        this.groupCommitWindowNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitWindowMicros);
+        Files.createDirectories(directory);
+
+        List<Long> indexes = listSegments();
+        segmentIndex = indexes.isEmpty() ? 0 : indexes.get(indexes.size() - 1);
+        segment = mapSegment(segmentIndex, FileChannel.MapMode.READ_WRITE);
+        int tail = readSegment(segment.duplicate(), 0, null, new long[1]);
+        if (tail + 4 <= segmentSize && segment.getInt(tail) != 0) {
+            // 上次當機留下寫到一半的紀錄，清除後從此處繼續寫
+            logger.warn("訂單日誌分段 {} 在位置 {} 有不完整的紀錄，已截斷", segmentIndex, tail);
+            for (int i = tail; i < segmentSize; i++) {
+                segment.put(i, (byte) 0);
+            }
+        }
+        segment.position(tail);
+        currentSegment = segment;
+        writtenPosition = segmentIndex * segmentSize + tail;
+        durablePosition = writtenPosition;
+
+        if (policy == FsyncPolicy.GROUP_COMMIT) {
+            flusher = new Thread(this::flushLoop, "order-journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+        logger.info("訂單日誌已開啟: {}, 落盤策略: {}", directory, policy.getDescription());
+    }
+
+    /**
+     * 每個 char 的 UTF-8 編碼最多 3 bytes，一般長度的訂單不需要實際編碼就能通過檢查
+     */
+    @Override
+    public void checkOrderCreated(Order order) {
+        String[] fields = {order.getOrderId(), order.getCustomerId(), order.getRestaurantId(),
+                order.getFoodItems(), order.getDeliveryAddress()};
+        int chars = 0;
+        for (String field : fields) {
+            chars += field == null ? 0 : field.length();
+        }
+        if (ORDER_CREATED_FIXED_BYTES + 3L * chars <= MAX_BODY_BYTES) {
+            return;
+        }
+        long bytes = ORDER_CREATED_FIXED_BYTES;
+        for (String field : fields) {
+            bytes += encodedLength(field);
+        }
+        if (bytes > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("訂單內容過長: " + bytes + " bytes，上限 " + MAX_BODY_BYTES);
+        }
+    }
+
+    @Override
+    public void appendOrderCreated(Order order) {
+        awaitDurable(writeOrderCreated(order));
+    }
+
+    @Override
+    public void appendOrdersCreated(List<Order> orders) {
+        awaitDurable(writeOrdersCreated(orders));
+    }
+
+    @Override
+    public long writeOrderCreated(Order order) {
+        checkOrderCreated(order);
+        return write(encodeOrderCreated(order));
+    }
+
+    @Override
+    public long writeOrdersCreated(List<Order> orders) {
+        for (Order order : orders) {
+            checkOrderCreated(order);
+        }
+        ByteBuffer batch = batches.get();
+        batch.clear();
+        for (Order order : orders) {
+            batch = addToBatch(batch, encodeOrderCreated(order));
+        }
+        return writeBatch(batch);
+    }
+
+    private ByteBuffer encodeOrderCreated(Order order) {
+        ByteBuffer body = begin(ORDER_CREATED, order.getOrderTimeMillis());
+        putString(body, order.getOrderId());
+        putString(body, order.getCustomerId());
+        putString(body, order.getRestaurantId());
+        putString(body, order.getFoodItems());
+        body.putDouble(order.getTotalAmount());
+        putString(body, order.getDeliveryAddress());
+        return body;
+    }
+
+    @Override
+    public void appendStatusChanged(String orderId, OrderStatus status, String deliveryPersonId) {
+        ByteBuffer body = begin(STATUS_CHANGED, System.currentTimeMillis());
+        putString(body, orderId);
+        body.put((byte) status.ordinal());
+        putString(body, deliveryPersonId);
+        append(body);
+    }
+
+    @Override
+    public void appendStatusChanges(List<String> orderIds, OrderStatus status) {
+        long timestamp = System.currentTimeMillis();
+        ByteBuffer batch = batches.get();
+        batch.clear();
+        for (String orderId : orderIds) {
+            ByteBuffer body = begin(STATUS_CHANGED, timestamp);
+            putString(body, orderId);
+            body.put((byte) status.ordinal());
+            putString(body, null);
+            batch = addToBatch(batch, body);
+        }
+        appendBatch(batch);
+    }
+
+    @Override
+    public void appendRestaurantAvailability(String restaurantId, boolean available) {
+        ByteBuffer body = begin(RESTAURANT_AVAILABILITY, System.currentTimeMillis());
+        putString(body, restaurantId);
+        body.put(available ? (byte) 1 : (byte) 0);
+        append(body);
+    }
+
+    @Override
+    public void appendRestaurantCapacity(String restaurantId, int maxConcurrentOrders,
+                                         int ordersPerMinute, int burst) {
+        ByteBuffer body = begin(RESTAURANT_CAPACITY, System.currentTimeMillis());
+        putString(body, restaurantId);
+        body.putInt(maxConcurrentOrders);
+        body.putInt(ordersPerMinute);
+        body.putInt(burst);
+        append(body);
+    }
+
+    @Override
+    public void appendCourierAvailability(String deliveryPersonId, boolean available) {
+        ByteBuffer body = begin(COURIER_AVAILABILITY, System.currentTimeMillis());
+        putString(body, deliveryPersonId);
+        body.put(available ? (byte) 1 : (byte) 0);
+        append(body);
+    }
+
+    @Override
+    public long replayFrom(long position, OrderEventHandler handler) {
+        long[] count = new long[1];
+        long startSegment = position / segmentSize;
+        try {
+            for (long index : listSegments()) {
+                if (index < startSegment) {
+                    continue;
+                }
+                MappedByteBuffer buffer = mapSegment(index, FileChannel.MapMode.READ_ONLY);
+                int start = index == startSegment ? (int) (position % segmentSize) : 0;
+                int end = readSegment(buffer, start, handler, count);
+                if (end + 4 <= buffer.limit() && buffer.getInt(end) != 0) {
+                    break; // 不完整的紀錄之後不再有有效資料
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("重播訂單日誌失敗", e);
+        }
+        logger.info("訂單日誌重播完成，共 {} 筆事件", count[0]);
+        return count[0];
+    }
+
+    @Override
+    public long getWrittenPosition() {
+        return writtenPosition;
+    }
+
+    public FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segment.force();
+            durablePosition = writtenPosition;
+        } finally {
+            writeLock.unlock();
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        synchronized (durableMonitor) {
+            durableMonitor.notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("訂單日誌已關閉: {}", directory);
+    }
+
+    private ByteBuffer begin(byte type, long timestampMillis) {
+        ByteBuffer body = scratch.get();
+        body.clear();
+        body.put(type);
+        body.putLong(timestampMillis);
+        return body;
+    }
+
+    private void append(ByteBuffer body) {
+        awaitDurable(write(body));
+    }
+
+    /**
+     * 寫入一筆紀錄；EVERY_EVENT 時在寫入權內落盤，GROUP_COMMIT 時由呼叫端以 awaitDurable 等待
+     * @return 紀錄結尾的位置
+     */
+    private long write(ByteBuffer body) {
+        int length = body.position();
+        CRC32C crc = checksums.get();
+        crc.reset();
+        crc.update(body.array(), 0, length);
+        int checksum = (int) crc.getValue();
+
+        long end;
+        writeLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("訂單日誌已關閉");
+            }
+            if (segment.remaining() < HEADER_BYTES + length) {
+                roll();
+            }
+            segment.putInt(length);
+            segment.putInt(checksum);
+            segment.put(body.array(), 0, length);
+            end = segmentIndex * segmentSize + segment.position();
+            writtenPosition = end;
+            if (policy == FsyncPolicy.EVERY_EVENT) {
+                segment.force();
+                durablePosition = end;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return end;
+    }
+
+    /**
+     * 將一筆紀錄（標頭 + 內容）加到批次暫存區
+     * @return 暫存區；容量不足時換成加倍的新暫存區
+     */
+    private ByteBuffer addToBatch(ByteBuffer batch, ByteBuffer body) {
+        int length = body.position();
+        if (batch.remaining() < HEADER_BYTES + length) {
+            ByteBuffer larger = ByteBuffer.allocate(
+                    Math.max(batch.capacity() * 2, batch.position() + HEADER_BYTES + length));
+            batch.flip();
+            larger.put(batch);
+            batch = larger;
+            batches.set(batch);
+        }
+        CRC32C crc = checksums.get();
+        crc.reset();
+        crc.update(body.array(), 0, length);
+        batch.putInt(length);
+        batch.putInt((int) crc.getValue());
+        batch.put(body.array(), 0, length);
+        return batch;
+    }
+
+    /**
+     * 一次取得寫入權寫入整批紀錄，紀錄格式與逐筆寫入相同；整批只落盤或等待落盤一次
+     */
+    private void appendBatch(ByteBuffer batch) {
+        awaitDurable(writeBatch(batch));
+    }
+
+    /**
+     * @return 最後一筆紀錄結尾的位置；批次為空時回傳 0（不需要等待落盤）
+     */
+    private long writeBatch(ByteBuffer batch) {
+        batch.flip();
+        if (!batch.hasRemaining()) {
+            return 0;
+        }
+        long end;
+        writeLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("訂單日誌已關閉");
+            }
+            while (batch.hasRemaining()) {
+                int position = batch.position();
+                int recordBytes = HEADER_BYTES + batch.getInt(position);
+                if (segment.remaining() < recordBytes) {
+                    roll();
+                }
+                segment.put(batch.array(), position, recordBytes);
+                batch.position(position + recordBytes);
+            }
+            end = segmentIndex * segmentSize + segment.position();
+            writtenPosition = end;
+            if (policy == FsyncPolicy.EVERY_EVENT) {
+                segment.force();
+                durablePosition = end;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return end;
+    }
+
+    /**
+     * 換到下一個分段；舊分段先落盤，flusher 只需要處理目前分段
+     */
+    private void roll() {
+        if (policy != FsyncPolicy.OS_MANAGED) {
+            segment.force();
+        }
+        try {
+            segment = mapSegment(segmentIndex + 1, FileChannel.MapMode.READ_WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("建立訂單日誌分段失敗", e);
+        }
+        segmentIndex++;
+        currentSegment = segment;
+    }
+
+    /**
+     * GROUP_COMMIT 時等待 flusher 把 position 之前的紀錄落盤；其他策略寫入時已處理，直接返回
+     */
+    @Override
+    public void awaitDurable(long position) {
+        if (policy != FsyncPolicy.GROUP_COMMIT || durablePosition >= position) {
+            return;
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notify();
+        }
+        synchronized (durableMonitor) {
+            while (durablePosition < position && !closed) {
+                try {
+                    durableMonitor.wait();
+                } catch (InterruptedException e) {
+                    // 事件已寫入，只是不再等待落盤
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 群組提交：一次 fsync 涵蓋等待中的所有事件
+     */
+    private void flushLoop() {
+        while (!closed) {
+            synchronized (flushMonitor) {
+                while (writtenPosition == durablePosition && !closed) {
+                    try {
+                        flushMonitor.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            if (closed) {
+                return;
+            }
+            if (groupCommitWindowNanos > 0) {
+                LockSupport.parkNanos(groupCommitWindowNanos);
+            }
+            // 先取位置再取分段：若期間換過分段，舊分段已在 roll() 中落盤
+            long target = writtenPosition;
+            currentSegment.force();
+            synchronized (durableMonitor) {
+                durablePosition = target;
+                durableMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 由 start 開始讀取分段內的紀錄直到結尾或不完整的紀錄
+     * @param handler 為 null 時只計算結尾位置
+     * @return 最後一筆有效紀錄之後的位置
+     */
+    private int readSegment(ByteBuffer buffer, int start, OrderEventHandler handler, long[] count) {
+        CRC32C crc = new CRC32C();
+        byte[] body = new byte[MAX_BODY_BYTES];
+        ByteBuffer view = ByteBuffer.wrap(body);
+        int limit = buffer.limit();
+        int position = start;
+        while (position + HEADER_BYTES <= limit) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > MAX_BODY_BYTES || position + HEADER_BYTES + length > limit) {
+                break;
+            }
+            int checksum = buffer.getInt(position + 4);
+            buffer.position(position + HEADER_BYTES);
+            buffer.get(body, 0, length);
+            crc.reset();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (handler != null) {
+                view.clear();
+                view.limit(length);
+                dispatch(view, handler);
+            }
+            count[0]++;
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static void dispatch(ByteBuffer body, OrderEventHandler handler) {
+        byte type = body.get();
+        long timestamp = body.getLong();
+        switch (type) {
+            case ORDER_CREATED:
+                handler.onOrderCreated(timestamp, getString(body), getString(body), getString(body),
+                        getString(body), body.getDouble(), getString(body));
+                break;
+            case STATUS_CHANGED:
+                handler.onStatusChanged(timestamp, getString(body), STATUSES[body.get()], getString(body));
+                break;
+            case RESTAURANT_AVAILABILITY:
+                handler.onRestaurantAvailability(timestamp, getString(body), body.get() != 0);
+                break;
+            case RESTAURANT_CAPACITY:
+                handler.onRestaurantCapacity(timestamp, getString(body), body.getInt(), body.getInt(), body.getInt());
+                break;
+            case COURIER_AVAILABILITY:
+                handler.onCourierAvailability(timestamp, getString(body), body.get() != 0);
+                break;
+            default:
+                throw new IllegalStateException("未知的訂單日誌事件類型: " + type);
+        }
+    }
+
+    /**
+     * 字串的 UTF-8 長度（不含 2 bytes 的長度欄位）
+     * @throws IllegalArgumentException 超過單一欄位上限
+     */
+    private static int encodedLength(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = value.getBytes(StandardCharsets.UTF_8).length;
+        if (length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("訂單日誌欄位過長: " + length + " bytes");
+        }
+        return length;
+    }
+
+    private static void putString(ByteBuffer body, String value) {
+        if (value == null) {
+            body.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("訂單日誌欄位過長: " + bytes.length + " bytes");
+        }
+        body.putShort((short) bytes.length);
+        body.put(bytes);
+    }
+
+    private static String getString(ByteBuffer body) {
+        int length = body.getShort();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(body.array(), body.position(), length, StandardCharsets.UTF_8);
+        body.position(body.position() + length);
+        return value;
+    }
+
+    private MappedByteBuffer mapSegment(long index, FileChannel.MapMode mode) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        if (mode == FileChannel.MapMode.READ_ONLY) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(mode, 0, Math.min(channel.size(), segmentSize));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射區域超出檔案大小時會自動延伸並填零
+            return channel.map(mode, 0, segmentSize);
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                indexes.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(indexes);
+        return indexes;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.journal;
+
+import org.example.model.OrderStatus;
+
+/**
+ * 重播訂單日誌時的事件回呼
+ */
+public interface OrderEventHandler {
+
+    void onOrderCreated(long timestampMillis, String orderId, String customerId, String restaurantId,
+                        String foodItems, double totalAmount, String deliveryAddress);
+
+    /**
+     * @param deliveryPersonId 轉為 PICKED_UP 時的外送員，其餘為 null
+     */
+    void onStatusChanged(long timestampMillis, String orderId, OrderStatus status, String deliveryPersonId);
+
+    void onRestaurantAvailability(long timestampMillis, String restaurantId, boolean available);
+
+    void onRestaurantCapacity(long timestampMillis, String restaurantId, int maxConcurrentOrders,
+                              int ordersPerMinute, int burst);
+
+    void onCourierAvailability(long timestampMillis, String deliveryPersonId, boolean available);
+}
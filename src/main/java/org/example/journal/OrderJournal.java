@@ -0,0 +1,132 @@
+package org.example.journal;
+
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+
+import java.util.List;
+
+/**
+ * 訂單事件日誌（append-only）
+ * DeliveryService 在每次建立訂單與狀態轉換成功後寫入，重新啟動時重播以重建記憶體狀態
+ */
+public interface OrderJournal extends AutoCloseable {
+
+    /** 不寫日誌（預設） */
+    OrderJournal DISABLED = new OrderJournal() {
+        @Override
+        public void appendOrderCreated(Order order) {
+        }
+
+        @Override
+        public void appendStatusChanged(String orderId, OrderStatus status, String deliveryPersonId) {
+        }
+
+        @Override
+        public void appendRestaurantAvailability(String restaurantId, boolean available) {
+        }
+
+        @Override
+        public void appendRestaurantCapacity(String restaurantId, int maxConcurrentOrders,
+                                             int ordersPerMinute, int burst) {
+        }
+
+        @Override
+        public void appendCourierAvailability(String deliveryPersonId, boolean available) {
+        }
+
+        @Override
+        public long replayFrom(long position, OrderEventHandler handler) {
+            return 0;
+        }
+
+        @Override
+        public long getWrittenPosition() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * 檢查訂單建立事件能否寫成單筆紀錄；DeliveryService 在訂單公開前呼叫，過長的訂單直接拒絕
+     * @throws IllegalArgumentException 欄位或整筆紀錄超過日誌的上限
+     */
+    default void checkOrderCreated(Order order) {
+    }
+
+    void appendOrderCreated(Order order);
+
+    void appendStatusChanged(String orderId, OrderStatus status, String deliveryPersonId);
+
+    /**
+     * 批次寫入多筆訂單建立事件；實作可一次取得寫入權並只等待一次落盤
+     */
+    default void appendOrdersCreated(List<Order> orders) {
+        for (Order order : orders) {
+            appendOrderCreated(order);
+        }
+    }
+
+    /**
+     * 寫入訂單建立事件但不等待落盤，之後以 awaitDurable 等待；呼叫端持有其他鎖時，落盤等待可以移到鎖外
+     * @return 事件結尾的位置
+     */
+    default long writeOrderCreated(Order order) {
+        appendOrderCreated(order);
+        return getWrittenPosition();
+    }
+
+    /**
+     * 批次版本的 writeOrderCreated
+     * @return 最後一筆事件結尾的位置
+     */
+    default long writeOrdersCreated(List<Order> orders) {
+        appendOrdersCreated(orders);
+        return getWrittenPosition();
+    }
+
+    /**
+     * 等待 position 之前的事件落盤（只有延遲落盤的實作需要等待）
+     */
+    default void awaitDurable(long position) {
+    }
+
+    /**
+     * 批次寫入多筆訂單轉換到同一狀態的事件（不含外送員）
+     */
+    default void appendStatusChanges(List<String> orderIds, OrderStatus status) {
+        for (String orderId : orderIds) {
+            appendStatusChanged(orderId, status, null);
+        }
+    }
+
+    void appendRestaurantAvailability(String restaurantId, boolean available);
+
+    void appendRestaurantCapacity(String restaurantId, int maxConcurrentOrders, int ordersPerMinute, int burst);
+
+    void appendCourierAvailability(String deliveryPersonId, boolean available);
+
+    /**
+     * 依寫入順序重播所有事件
+     * @return 重播的事件數
+     */
+    default long replay(OrderEventHandler handler) {
+        return replayFrom(0, handler);
+    }
+
+    /**
+     * 從指定的邏輯位置開始重播（搭配快照使用）
+     * @return 重播的事件數
+     */
+    long replayFrom(long position, OrderEventHandler handler);
+
+    /**
+     * 目前已寫入的邏輯位置；快照以此標記一致點，還原時從此處繼續重播
+     */
+    long getWrittenPosition();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,329 @@
+package org.example.load;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.example.courier.Courier;
+import org.example.eta.EtaService;
+import org.example.http.DeliveryHttpServer;
+import org.example.id.SnowflakeIdGenerator;
+import org.example.journal.OrderJournal;
+import org.example.model.GeoPoint;
+import org.example.service.DeliveryService;
+import org.example.sla.SlaPolicy;
+
+import javax.management.JMException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * 開放式（open-loop）負載產生器
+ * - 新訂單、外送員上下線與位置回報各自以固定速率到達，不等待前一筆完成，服務變慢時壓力不會跟著下降
+ * - 每筆訂單由虛擬執行緒依流程執行：建立 → 拒單，或接單 → 取消 / 準備 → 完成 → 自動派單 → 配送
+ * - 每種操作分別記錄延遲分佈與失敗數，見 LoadReport
+ *
+ * 每個 LoadGenerator 只能執行一次
+ * 啟動：mvn exec:java -Dexec.args="load rate=5000 duration=60"
+ */
+public class LoadGenerator {
+    private static final Logger logger = LogManager.getLogger(LoadGenerator.class);
+
+    private static final String FOOD_ITEMS = "珍珠奶茶x2, 雞排便當x1";
+    private static final double TOTAL_AMOUNT = 250.0;
+    // 顧客地址：依顧客編號固定落在其中一條道路，同一位顧客重複下單時地址定位會命中快取
+    private static final String[] STREETS = {"台中市西屯區文華路", "台中市北區三民路", "台中市南區建國路",
+            "台中市東區自由路", "台中市西區公益路", "台中市北屯區文心路", "台中市南屯區大墩路", "台中市大里區中興路"};
+    private static final int HOUSE_NUMBERS = 500;
+
+    // 餐廳與外送員隨機分佈在台中市區約 20 公里見方的範圍內
+    private static final double CENTER_LATITUDE = 24.15;
+    private static final double CENTER_LONGITUDE = 120.66;
+    private static final double SPAN_DEGREES = 0.1;
+    // 每次回報位置最多移動約 100 公尺
+    private static final double MOVE_DEGREES = 0.001;
+
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final DeliveryService service;
+    private final LoadProfile profile;
+    private final String[] restaurantIds;
+    private final String[] courierIds;
+    // 接單後才取消的機率（拒單的訂單不會走到接單）
+    private final double cancelAfterAccept;
+
+    private final Map<Operation, LoadReport.OperationStats> stats = LoadReport.newStats();
+    private final Set<String> offlineCouriers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong maxArrivalLag = new AtomicLong();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "load-stage-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long measureStartNanos;
+
+    public LoadGenerator(DeliveryService service, LoadProfile profile) {
+        this.service = service;
+        this.profile = profile;
+        this.restaurantIds = new String[profile.getRestaurants()];
+        for (int i = 0; i < restaurantIds.length; i++) {
+            restaurantIds[i] = String.format("R%05d", i);
+        }
+        this.courierIds = new String[profile.getCouriers()];
+        for (int i = 0; i < courierIds.length; i++) {
+            courierIds[i] = String.format("D%05d", i);
+        }
+        this.cancelAfterAccept = profile.getRejectRatio() >= 1
+                ? 0 : profile.getCancelRatio() / (1 - profile.getRejectRatio());
+    }
+
+    /**
+     * 登錄餐廳與外送員，依設定的時間產生負載，等待進行中的訂單走完流程後回傳結果
+     */
+    public LoadReport run() throws InterruptedException {
+        populate();
+        logger.info("開始壓測: {}", profile);
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(profile.getDurationSeconds());
+        measureStartNanos = start + TimeUnit.SECONDS.toNanos(profile.getWarmupSeconds());
+
+        Thread[] arrivalThreads = {
+                arrivals("load-orders", profile.getOrdersPerSecond(), start, end, intended -> {
+                    inFlight.incrementAndGet();
+                    workers.execute(new OrderFlow(intended));
+                }),
+                arrivals("load-courier-churn", profile.getCourierChurnPerSecond(), start, end,
+                        intended -> workers.execute(() -> churnCourier(intended))),
+                arrivals("load-locations", profile.getLocationUpdatesPerSecond(), start, end,
+                        intended -> workers.execute(() -> moveCourier(intended)))
+        };
+        for (Thread thread : arrivalThreads) {
+            thread.join();
+        }
+
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS
+                + TimeUnit.MILLISECONDS.toNanos(profile.getStageDelayMillis() * Operation.values().length);
+        while (inFlight.get() > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+        if (inFlight.get() > 0) {
+            logger.warn("壓測結束時仍有 {} 筆訂單未走完流程", inFlight.get());
+        }
+        timer.shutdownNow();
+        workers.shutdownNow();
+
+        return new LoadReport(profile, stats, (end - measureStartNanos) / 1e9, maxArrivalLag.get());
+    }
+
+    private void populate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (String restaurantId : restaurantIds) {
+            service.setRestaurantAvailability(restaurantId, true);
+            service.configureRestaurantCapacity(restaurantId, profile.getKitchenCapacity(), 0, 1);
+            service.setRestaurantLocation(restaurantId, new GeoPoint(randomLatitude(random), randomLongitude(random)));
+        }
+        for (String courierId : courierIds) {
+            service.setDeliveryPersonAvailability(courierId, true);
+            service.updateDeliveryPersonLocation(courierId, randomLatitude(random), randomLongitude(random));
+        }
+    }
+
+    /**
+     * 依固定間隔產生到達事件；落後時立即補上，延遲仍由預定時間起算
+     */
+    private Thread arrivals(String name, double perSecond, long start, long end, LongConsumer task) {
+        Thread thread = new Thread(() -> {
+            if (perSecond <= 0) {
+                return;
+            }
+            double intervalNanos = 1e9 / perSecond;
+            for (long i = 0; ; i++) {
+                long intended = start + (long) (i * intervalNanos);
+                if (intended - end >= 0) {
+                    return;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else if (intended - measureStartNanos >= 0) {
+                    maxArrivalLag.accumulateAndGet(-wait, Math::max);
+                }
+                task.accept(intended);
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * 外送員上下線：下線中的外送員重新上線，可接單的外送員下線；配送中的外送員不受影響
+     */
+    private void churnCourier(long intended) {
+        String courierId = courierIds[ThreadLocalRandom.current().nextInt(courierIds.length)];
+        boolean success = true;
+        try {
+            if (offlineCouriers.remove(courierId)) {
+                service.setDeliveryPersonAvailability(courierId, true);
+            } else if (service.getCourierRegistry().tryClaim(courierId)) {
+                service.setDeliveryPersonAvailability(courierId, false);
+                offlineCouriers.add(courierId);
+            }
+        } catch (RuntimeException e) {
+            success = false;
+        }
+        record(Operation.COURIER_CHURN, intended, success);
+    }
+
+    private void moveCourier(long intended) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Courier courier = service.getCourierRegistry().get(courierIds[random.nextInt(courierIds.length)]);
+        boolean success = true;
+        try {
+            double latitude = clamp(courier.getLatitude() + random.nextDouble(-MOVE_DEGREES, MOVE_DEGREES),
+                    CENTER_LATITUDE);
+            double longitude = clamp(courier.getLongitude() + random.nextDouble(-MOVE_DEGREES, MOVE_DEGREES),
+                    CENTER_LONGITUDE);
+            service.updateDeliveryPersonLocation(courier.getDeliveryPersonId(), latitude, longitude);
+        } catch (RuntimeException e) {
+            success = false;
+        }
+        record(Operation.LOCATION_UPDATE, intended, success);
+    }
+
+    private void record(Operation operation, long startNanos, boolean success) {
+        if (startNanos - measureStartNanos >= 0) {
+            stats.get(operation).record(System.nanoTime() - startNanos, success);
+        }
+    }
+
+    private static double randomLatitude(ThreadLocalRandom random) {
+        return CENTER_LATITUDE + random.nextDouble(-SPAN_DEGREES, SPAN_DEGREES);
+    }
+
+    private static double randomLongitude(ThreadLocalRandom random) {
+        return CENTER_LONGITUDE + random.nextDouble(-SPAN_DEGREES, SPAN_DEGREES);
+    }
+
+    private static double clamp(double value, double center) {
+        return Math.max(center - SPAN_DEGREES, Math.min(center + SPAN_DEGREES, value));
+    }
+
+    /**
+     * 單筆訂單的流程；每個階段結束後決定下一個階段，設定了階段間隔時交由計時器排程
+     */
+    private final class OrderFlow implements Runnable {
+        private final long arrivalNanos;
+        private final String restaurantId;
+        private String orderId;
+        private Operation next = Operation.CREATE;
+        private int acceptAttempts;
+
+        OrderFlow(long arrivalNanos) {
+            this.arrivalNanos = arrivalNanos;
+            this.restaurantId = restaurantIds[ThreadLocalRandom.current().nextInt(restaurantIds.length)];
+        }
+
+        @Override
+        public void run() {
+            while (next != null) {
+                Operation operation = next;
+                // 建立訂單由到達時間起算，包含等待執行緒的時間
+                long start = operation == Operation.CREATE ? arrivalNanos : System.nanoTime();
+                boolean success = true;
+                try {
+                    next = execute(operation);
+                } catch (Exception e) {
+                    success = false;
+                    next = afterFailure(operation);
+                }
+                record(operation, start, success);
+                if (next != null && profile.getStageDelayMillis() > 0) {
+                    timer.schedule(() -> workers.execute(this), profile.getStageDelayMillis(), TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
+            inFlight.decrementAndGet();
+        }
+
+        private Operation execute(Operation operation) throws Exception {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return switch (operation) {
+                case CREATE -> {
+                    int customer = random.nextInt(profile.getCustomers());
+                    String address = STREETS[customer % STREETS.length] + (customer % HOUSE_NUMBERS + 1) + "號";
+                    orderId = service.createOrder("C" + customer, restaurantId, FOOD_ITEMS, TOTAL_AMOUNT, address)
+                            .getOrderId();
+                    yield random.nextDouble() < profile.getRejectRatio() ? Operation.REJECT : Operation.ACCEPT;
+                }
+                case REJECT -> {
+                    service.cancelOrder(orderId, "餐廳拒單");
+                    yield null;
+                }
+                case ACCEPT -> {
+                    acceptAttempts++;
+                    service.acceptOrder(orderId, restaurantId);
+                    yield random.nextDouble() < cancelAfterAccept ? Operation.CANCEL : Operation.PREPARE;
+                }
+                case PREPARE -> {
+                    service.prepareFood(orderId);
+                    yield Operation.READY;
+                }
+                case READY -> {
+                    service.foodReady(orderId);
+                    yield Operation.ASSIGN;
+                }
+                case ASSIGN -> {
+                    service.autoAssign(orderId);
+                    yield Operation.COMPLETE;
+                }
+                case COMPLETE -> {
+                    service.completeDelivery(orderId);
+                    yield null;
+                }
+                case CANCEL -> {
+                    service.cancelOrder(orderId, "顧客取消");
+                    yield null;
+                }
+                default -> throw new IllegalStateException("不是訂單流程的操作: " + operation);
+            };
+        }
+
+        /**
+         * 接單失敗（餐廳忙碌）時重試，仍失敗或找不到外送員時取消訂單；其他失敗直接結束
+         */
+        private Operation afterFailure(Operation operation) {
+            return switch (operation) {
+                case ACCEPT -> acceptAttempts <= profile.getAcceptRetries() ? Operation.ACCEPT : Operation.CANCEL;
+                case ASSIGN -> Operation.CANCEL;
+                default -> null;
+            };
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, JMException {
+        // 每筆操作都寫服務日誌會讓日誌成為瓶頸，壓測時關閉（日誌成本見 LoggingLatencyBenchmark）
+        Configurator.setLevel("org.example.service.DeliveryService", Level.OFF);
+        DeliveryService service = new DeliveryService(new SnowflakeIdGenerator(0), OrderJournal.DISABLED,
+                null, null, EtaService.createDefault(), SlaPolicy.defaults());
+        // 壓測期間可用 JConsole 觀察服務端指標
+        service.getMetrics().registerMBean(DeliveryHttpServer.METRICS_OBJECT_NAME);
+        LoadReport report = new LoadGenerator(service, LoadProfile.parse(args)).run();
+        logger.info("壓測結果\n{}", report.format());
+        logger.info("服務端指標\n{}", service.getMetrics().formatText());
+        logger.info("全部餐廳最近 5 分鐘: {}", service.getAnalytics().queryAll(5));
+        service.close();
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 壓測設定（不可變）：到達速率、持續時間、資料規模與各種操作的比例
+ * 命令列以 key=value 指定，未指定的項目使用預設值，例如：
+ * rate=5000 duration=60 reject=0.05 cancel=0.05 churn=50 stageDelay=200
+ */
+public final class LoadProfile {
+
+    private final double ordersPerSecond;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int restaurants;
+    private final int couriers;
+    private final int customers;
+    private final int kitchenCapacity;
+    private final double rejectRatio;
+    private final double cancelRatio;
+    private final int acceptRetries;
+    private final double courierChurnPerSecond;
+    private final double locationUpdatesPerSecond;
+    private final long stageDelayMillis;
+
+    /**
+     * @param ordersPerSecond          新訂單到達速率（開放式負載，不受回應速度影響）
+     * @param warmupSeconds            開始計入統計前的暖機時間，包含在 durationSeconds 內
+     * @param kitchenCapacity          每家餐廳同時處理上限
+     * @param rejectRatio              餐廳直接拒單的比例
+     * @param cancelRatio              接單後顧客取消的比例
+     * @param acceptRetries            接單失敗（餐廳忙碌）後重試的次數，用完即取消訂單
+     * @param courierChurnPerSecond    外送員上線或下線的次數
+     * @param locationUpdatesPerSecond 外送員回報位置的次數
+     * @param stageDelayMillis         訂單每個階段之間的間隔，0 表示連續執行完整流程
+     */
+    public LoadProfile(double ordersPerSecond, int durationSeconds, int warmupSeconds,
+                       int restaurants, int couriers, int customers, int kitchenCapacity,
+                       double rejectRatio, double cancelRatio, int acceptRetries,
+                       double courierChurnPerSecond, double locationUpdatesPerSecond, long stageDelayMillis) {
+        if (ordersPerSecond <= 0 || durationSeconds <= 0 || warmupSeconds < 0 || warmupSeconds >= durationSeconds) {
+            throw new IllegalArgumentException("壓測速率與時間設定不正確");
+        }
+        if (restaurants <= 0 || couriers <= 0 || customers <= 0 || kitchenCapacity <= 0) {
+            throw new IllegalArgumentException("餐廳、外送員、顧客數與廚房容量必須大於 0");
+        }
+        if (rejectRatio < 0 || cancelRatio < 0 || rejectRatio + cancelRatio > 1 || acceptRetries < 0) {
+            throw new IllegalArgumentException("拒單與取消比例必須介於 0 到 1 之間");
+        }
+        if (courierChurnPerSecond < 0 || locationUpdatesPerSecond < 0 || stageDelayMillis < 0) {
+            throw new IllegalArgumentException("外送員速率與階段間隔不可為負數");
+        }
+        this.ordersPerSecond = ordersPerSecond;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        this.restaurants = restaurants;
+        this.couriers = couriers;
+        this.customers = customers;
+        this.kitchenCapacity = kitchenCapacity;
+        this.rejectRatio = rejectRatio;
+        this.cancelRatio = cancelRatio;
+        this.acceptRetries = acceptRetries;
+        this.courierChurnPerSecond = courierChurnPerSecond;
+        this.locationUpdatesPerSecond = locationUpdatesPerSecond;
+        this.stageDelayMillis = stageDelayMillis;
+    }
+
+    /**
+     * 由 key=value 參數建立設定
+     * @throws IllegalArgumentException 未知的參數或格式錯誤
+     */
+    public static LoadProfile parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("壓測參數格式應為 key=value: " + arg);
+            }
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        try {
+            LoadProfile profile = new LoadProfile(
+                    Double.parseDouble(take(values, "rate", "2000")),
+                    Integer.parseInt(take(values, "duration", "30")),
+                    Integer.parseInt(take(values, "warmup", "5")),
+                    Integer.parseInt(take(values, "restaurants", "300")),
+                    Integer.parseInt(take(values, "couriers", "2000")),
+                    Integer.parseInt(take(values, "customers", "50000")),
+                    Integer.parseInt(take(values, "kitchen", "50")),
+                    Double.parseDouble(take(values, "reject", "0.05")),
+                    Double.parseDouble(take(values, "cancel", "0.05")),
+                    Integer.parseInt(take(values, "acceptRetries", "2")),
+                    Double.parseDouble(take(values, "churn", "20")),
+                    Double.parseDouble(take(values, "locations", "1000")),
+                    Long.parseLong(take(values, "stageDelay", "0")));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("未知的壓測參數: " + values.keySet());
+            }
+            return profile;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("壓測參數必須是數字: " + e.getMessage());
+        }
+    }
+
+    private static String take(Map<String, String> values, String key, String defaultValue) {
+        String value = values.remove(key);
+        return value == null ? defaultValue : value;
+    }
+
+    public double getOrdersPerSecond() {
+        return ordersPerSecond;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getRestaurants() {
+        return restaurants;
+    }
+
+    public int getCouriers() {
+        return couriers;
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    public int getKitchenCapacity() {
+        return kitchenCapacity;
+    }
+
+    public double getRejectRatio() {
+        return rejectRatio;
+    }
+
+    public double getCancelRatio() {
+        return cancelRatio;
+    }
+
+    public int getAcceptRetries() {
+        return acceptRetries;
+    }
+
+    public double getCourierChurnPerSecond() {
+        return courierChurnPerSecond;
+    }
+
+    public double getLocationUpdatesPerSecond() {
+        return locationUpdatesPerSecond;
+    }
+
+    public long getStageDelayMillis() {
+        return stageDelayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "rate=" + ordersPerSecond + "/s, duration=" + durationSeconds + "s (warmup " + warmupSeconds
+                + "s), restaurants=" + restaurants + ", couriers=" + couriers + ", customers=" + customers
+                + ", kitchen=" + kitchenCapacity + ", reject=" + rejectRatio + ", cancel=" + cancelRatio
+                + ", acceptRetries=" + acceptRetries + ", churn=" + courierChurnPerSecond
+                + "/s, locations=" + locationUpdatesPerSecond + "/s, stageDelay=" + stageDelayMillis + "ms";
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.load;
+
+import org.example.metrics.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 壓測結果：每種操作的延遲分佈、失敗數與吞吐量
+ * 延遲由預定開始時間起算（建立訂單以到達時間為準），排隊等待也計入，避免協調遺漏（coordinated omission）
+ */
+public final class LoadReport {
+
+    private final LoadProfile profile;
+    private final Map<Operation, OperationStats> stats;
+    private final double measuredSeconds;
+    private final long maxArrivalLagNanos;
+
+    LoadReport(LoadProfile profile, Map<Operation, OperationStats> stats, double measuredSeconds,
+               long maxArrivalLagNanos) {
+        this.profile = profile;
+        this.stats = stats;
+        this.measuredSeconds = measuredSeconds;
+        this.maxArrivalLagNanos = maxArrivalLagNanos;
+    }
+
+    static Map<Operation, OperationStats> newStats() {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        return stats;
+    }
+
+    public OperationStats get(Operation operation) {
+        return stats.get(operation);
+    }
+
+    /** 計入統計的時間（扣除暖機） */
+    public double getMeasuredSeconds() {
+        return measuredSeconds;
+    }
+
+    /** 產生到達事件的執行緒最多落後預定時間多久；數值偏大表示壓測端本身已跟不上 */
+    public long getMaxArrivalLagNanos() {
+        return maxArrivalLagNanos;
+    }
+
+    public double getThroughput(Operation operation) {
+        return stats.get(operation).getHistogram().getCount() / measuredSeconds;
+    }
+
+    /**
+     * 文字報表，延遲單位為微秒
+     */
+    public String format() {
+        StringBuilder buffer = new StringBuilder(1024);
+        buffer.append("壓測設定: ").append(profile).append('\n');
+        buffer.append(String.format("統計時間 %.1f 秒，到達事件最大延遲 %.1f ms%n",
+                measuredSeconds, maxArrivalLagNanos / 1e6));
+        buffer.append(String.format("%-16s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "mean(us)", "p50(us)", "p99(us)", "p999(us)", "max(us)"));
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            LatencyHistogram histogram = entry.getValue().getHistogram();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            buffer.append(String.format("%-16s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    entry.getKey().name(), histogram.getCount(), entry.getValue().getErrors(),
+                    getThroughput(entry.getKey()), histogram.getMeanNanos() / 1e3,
+                    histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+                    histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMaxNanos() / 1e3));
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * 單一操作的統計（失敗的操作也計入延遲）
+     */
+    public static final class OperationStats {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean success) {
+            histogram.record(nanos);
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+}
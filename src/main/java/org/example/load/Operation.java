@@ -0,0 +1,27 @@
+package org.example.load;
+
+/**
+ * 壓測中分別統計延遲的操作
+ */
+public enum Operation {
+    CREATE("建立訂單"),
+    ACCEPT("餐廳接單"),
+    REJECT("餐廳拒單"),
+    PREPARE("開始準備"),
+    READY("餐點完成"),
+    ASSIGN("自動派單"),
+    COMPLETE("完成配送"),
+    CANCEL("顧客取消"),
+    COURIER_CHURN("外送員上下線"),
+    LOCATION_UPDATE("外送員回報位置");
+
+    private final String description;
+
+    Operation(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.menu;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 單一餐廳的菜單快照（不可變）
+ * 修改一律複製出新版本，讀取端拿到的快照在計價期間不會改變
+ */
+public final class Menu {
+    private final String restaurantId;
+    private final long version;
+    private final Map<String, MenuItem> items;
+
+    private Menu(String restaurantId, long version, Map<String, MenuItem> items) {
+        this.restaurantId = restaurantId;
+        this.version = version;
+        this.items = items;
+    }
+
+    public static Menu empty(String restaurantId) {
+        return new Menu(restaurantId, 0, Collections.emptyMap());
+    }
+
+    /**
+     * 新增或取代品項
+     */
+    public Menu withItem(MenuItem item) {
+        Map<String, MenuItem> copy = copyItems(1);
+        copy.put(item.getItemId(), item);
+        return next(copy);
+    }
+
+    /**
+     * 一次新增或取代多個品項（整批只複製一次）
+     */
+    public Menu withItems(Collection<MenuItem> added) {
+        Map<String, MenuItem> copy = copyItems(added.size());
+        for (MenuItem item : added) {
+            copy.put(item.getItemId(), item);
+        }
+        return next(copy);
+    }
+
+    public Menu withoutItem(String itemId) {
+        if (!items.containsKey(itemId)) {
+            return this;
+        }
+        Map<String, MenuItem> copy = copyItems(0);
+        copy.remove(itemId);
+        return next(copy);
+    }
+
+    /**
+     * 設定品項是否供應（售完）
+     * @throws IllegalArgumentException 品項不存在
+     */
+    public Menu withAvailability(String itemId, boolean available) {
+        MenuItem item = items.get(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("餐廳 " + restaurantId + " 沒有品項 " + itemId);
+        }
+        return withItem(item.withAvailable(available));
+    }
+
+    private Map<String, MenuItem> copyItems(int extra) {
+        Map<String, MenuItem> copy = new HashMap<>((int) ((items.size() + extra) / 0.75f) + 1);
+        copy.putAll(items);
+        return copy;
+    }
+
+    private Menu next(Map<String, MenuItem> copy) {
+        return new Menu(restaurantId, version + 1, Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * @return 品項，不存在時回傳 null
+     */
+    public MenuItem get(String itemId) {
+        return items.get(itemId);
+    }
+
+    public Collection<MenuItem> getItems() {
+        return items.values();
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    /**
+     * 每次修改加一，可用來判斷兩次讀取之間菜單是否變過
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "Menu[" + restaurantId + ", v" + version + ", " + items.size() + " 項]";
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.menu;
+
+import org.example.model.LineItem;
+import org.example.model.OrderLine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * 各餐廳菜單（copy-on-write）
+ * - 讀取：由 ConcurrentHashMap 取得目前的不可變快照，不加鎖
+ * - 修改：以 compute 產生新快照後整份替換；同一餐廳的修改依序進行，不影響讀取與其他餐廳
+ * 一次計價只讀一份快照，品項與價格一定來自同一個版本
+ */
+public class MenuCatalog {
+
+    /** 單一品項的數量上限 */
+    public static final int MAX_QUANTITY = 99;
+
+    /** 一筆訂單的明細上限 */
+    public static final int MAX_LINES = 100;
+
+    private final Map<String, Menu> menus = new ConcurrentHashMap<>();
+
+    /**
+     * @return 目前的菜單快照，沒有登錄菜單時回傳 null
+     */
+    public Menu getMenu(String restaurantId) {
+        return menus.get(restaurantId);
+    }
+
+    public boolean hasMenu(String restaurantId) {
+        return menus.containsKey(restaurantId);
+    }
+
+    /**
+     * 以 update 修改餐廳菜單並替換快照（沒有菜單時由空菜單開始）
+     * @return 新的快照
+     */
+    public Menu update(String restaurantId, UnaryOperator<Menu> update) {
+        return menus.compute(restaurantId, (id, current) -> {
+            Menu next = update.apply(current == null ? Menu.empty(id) : current);
+            if (!id.equals(next.getRestaurantId())) {
+                throw new IllegalArgumentException("菜單不屬於餐廳 " + id);
+            }
+            return next;
+        });
+    }
+
+    public void remove(String restaurantId) {
+        menus.remove(restaurantId);
+    }
+
+    public Set<String> getRestaurantIds() {
+        return Collections.unmodifiableSet(menus.keySet());
+    }
+
+    /**
+     * 依目前菜單驗證品項並計價
+     * @return 明細（品名與單價取自同一份快照）
+     * @throws IllegalArgumentException 沒有菜單、沒有品項、品項不存在或售完、數量超出範圍、金額溢位
+     */
+    public List<OrderLine> price(String restaurantId, List<LineItem> items) {
+        Menu menu = menus.get(restaurantId);
+        if (menu == null) {
+            throw new IllegalArgumentException("餐廳 " + restaurantId + " 沒有登錄菜單");
+        }
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("訂單至少需要一個品項");
+        }
+        if (items.size() > MAX_LINES) {
+            throw new IllegalArgumentException("訂單品項不可超過 " + MAX_LINES + " 項");
+        }
+        List<OrderLine> lines = new ArrayList<>(items.size());
+        long total = 0;
+        for (LineItem item : items) {
+            if (item == null) {
+                throw new IllegalArgumentException("品項不可為空");
+            }
+            if (item.getQuantity() <= 0 || item.getQuantity() > MAX_QUANTITY) {
+                throw new IllegalArgumentException("品項 " + item.getItemId() + " 數量必須介於 1 到 " + MAX_QUANTITY);
+            }
+            MenuItem menuItem = menu.get(item.getItemId());
+            if (menuItem == null) {
+                throw new IllegalArgumentException("餐廳 " + restaurantId + " 沒有品項 " + item.getItemId());
+            }
+            if (!menuItem.isAvailable()) {
+                throw new IllegalArgumentException("品項 " + menuItem.getName() + " 已售完");
+            }
+            OrderLine line = new OrderLine(menuItem.getItemId(), menuItem.getName(), item.getQuantity(),
+                    menuItem.getPriceCents());
+            // 先確認合計不會溢位，建立訂單時直接加總明細
+            try {
+                total = Math.addExact(total, line.getLineTotalCents());
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("訂單金額過大");
+            }
+            lines.add(line);
+        }
+        return Collections.unmodifiableList(lines);
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.menu;
+
+/**
+ * 菜單品項（不可變）
+ */
+public final class MenuItem {
+    private final String itemId;
+    private final String name;
+    private final long priceCents;
+    private final boolean available;
+
+    /**
+     * @throws IllegalArgumentException 編號或品名為空、價格不為正
+     */
+    public MenuItem(String itemId, String name, long priceCents, boolean available) {
+        if (itemId == null || itemId.isEmpty() || name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("品項編號與品名不可為空");
+        }
+        if (priceCents <= 0) {
+            throw new IllegalArgumentException("品項 " + itemId + " 價格必須大於 0");
+        }
+        this.itemId = itemId;
+        this.name = name;
+        this.priceCents = priceCents;
+        this.available = available;
+    }
+
+    public MenuItem withAvailable(boolean value) {
+        return value == available ? this : new MenuItem(itemId, name, priceCents, value);
+    }
+
+    public MenuItem withPriceCents(long value) {
+        return new MenuItem(itemId, name, value, available);
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public String toString() {
+        return "MenuItem[" + itemId + ", " + name + ", " + priceCents + (available ? "" : ", 售完") + "]";
+    }
+}
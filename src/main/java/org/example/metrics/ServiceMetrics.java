@@ -0,0 +1,155 @@
+package org.example.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * DeliveryService 的執行期指標
+ * - 每個操作：呼叫次數、成功次數、各例外類型的次數與延遲分佈；計數器為 LongAdder，多核心同時寫入不會互相競爭
+ * - 量測值（gauge）：讀取時才計算，例如各狀態的訂單數、可接單的外送員數
+ * 記錄一次呼叫只有兩次 System.nanoTime() 與幾次無鎖遞增，不配置記憶體
+ *
+ * 指標可由 snapshot() / formatText() 讀取，或以 registerMBean() 發佈到 JMX
+ */
+public final class ServiceMetrics {
+
+    private final OperationMetrics[] operations;
+    // 量測值很少新增，以整份替換保留登錄順序
+    private volatile Map<String, LongSupplier> gauges = Map.of();
+
+    public ServiceMetrics() {
+        ServiceOperation[] values = ServiceOperation.values();
+        operations = new OperationMetrics[values.length];
+        for (ServiceOperation operation : values) {
+            operations[operation.ordinal()] = new OperationMetrics();
+        }
+    }
+
+    /**
+     * 操作開始時間，傳給 record()
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 記錄一次呼叫
+     * @param failure 呼叫拋出的例外，成功時為 null
+     */
+    public void record(ServiceOperation operation, long startNanos, Exception failure) {
+        OperationMetrics metrics = operations[operation.ordinal()];
+        metrics.latency.record(System.nanoTime() - startNanos);
+        if (failure == null) {
+            metrics.successes.increment();
+        } else {
+            metrics.failures.computeIfAbsent(failure.getClass(), type -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 登錄量測值；同名時取代原本的
+     */
+    public synchronized void registerGauge(String name, LongSupplier supplier) {
+        Map<String, LongSupplier> copy = new LinkedHashMap<>(gauges);
+        copy.put(name, supplier);
+        gauges = copy;
+    }
+
+    public OperationMetrics get(ServiceOperation operation) {
+        return operations[operation.ordinal()];
+    }
+
+    /**
+     * 所有指標的快照，依操作、量測值的順序排列；延遲單位為微秒
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> snapshot = new LinkedHashMap<>();
+        for (ServiceOperation operation : ServiceOperation.values()) {
+            OperationMetrics metrics = operations[operation.ordinal()];
+            LatencyHistogram latency = metrics.latency;
+            long calls = latency.getCount();
+            if (calls == 0) {
+                continue;
+            }
+            String prefix = operation.getMetricName() + '.';
+            snapshot.put(prefix + "calls", calls);
+            snapshot.put(prefix + "successes", metrics.getSuccesses());
+            for (Map.Entry<Class<?>, LongAdder> failure : metrics.failures.entrySet()) {
+                snapshot.put(prefix + "failures." + failure.getKey().getSimpleName(), failure.getValue().sum());
+            }
+            snapshot.put(prefix + "latency.meanMicros", latency.getMeanNanos() / 1e3);
+            snapshot.put(prefix + "latency.p50Micros", latency.getValueAtPercentile(50) / 1e3);
+            snapshot.put(prefix + "latency.p99Micros", latency.getValueAtPercentile(99) / 1e3);
+            snapshot.put(prefix + "latency.p999Micros", latency.getValueAtPercentile(99.9) / 1e3);
+            snapshot.put(prefix + "latency.maxMicros", latency.getMaxNanos() / 1e3);
+        }
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            snapshot.put(gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        return snapshot;
+    }
+
+    /**
+     * 純文字格式，每行一個指標：名稱 空白 數值
+     */
+    public String formatText() {
+        StringBuilder buffer = new StringBuilder(2048);
+        for (Map.Entry<String, Number> entry : snapshot().entrySet()) {
+            buffer.append(entry.getKey()).append(' ');
+            Number value = entry.getValue();
+            if (value instanceof Double) {
+                buffer.append(String.format("%.1f", value.doubleValue()));
+            } else {
+                buffer.append(value.longValue());
+            }
+            buffer.append('\n');
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * 發佈到平台 MBeanServer，例如 org.example:type=DeliveryService
+     * @return 登錄的名稱，可用於取消登錄
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(this), objectName);
+        return objectName;
+    }
+
+    /**
+     * 單一操作的指標
+     */
+    public static final class OperationMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder successes = new LongAdder();
+        private final Map<Class<?>, LongAdder> failures = new ConcurrentHashMap<>();
+
+        /** 呼叫次數（延遲分佈的樣本數） */
+        public long getCalls() {
+            return latency.getCount();
+        }
+
+        public long getSuccesses() {
+            return successes.sum();
+        }
+
+        /**
+         * 指定例外類型的次數
+         */
+        public long getFailures(Class<? extends Exception> type) {
+            LongAdder count = failures.get(type);
+            return count == null ? 0 : count.sum();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.metrics;
+
+/**
+ * 計入指標的 DeliveryService 操作
+ */
+public enum ServiceOperation {
+    CREATE_ORDER("createOrder"),
+    ACCEPT_ORDER("acceptOrder"),
+    PREPARE_FOOD("prepareFood"),
+    FOOD_READY("foodReady"),
+    ASSIGN_DELIVERY_PERSON("assignDeliveryPerson"),
+    AUTO_ASSIGN("autoAssign"),
+    COMPLETE_DELIVERY("completeDelivery"),
+    CANCEL_ORDER("cancelOrder"),
+    GET_ORDER("getOrder"),
+    // 批次操作：每次呼叫記一次，逐筆失敗不算呼叫失敗
+    CREATE_ORDERS("createOrders"),
+    ACCEPT_ORDERS("acceptOrders"),
+    FOOD_READY_ALL("foodReadyAll"),
+    CANCEL_ORDERS("cancelOrders");
+
+    private final String metricName;
+
+    ServiceOperation(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /** 指標名稱的前綴（與服務方法同名） */
+    public String getMetricName() {
+        return metricName;
+    }
+}
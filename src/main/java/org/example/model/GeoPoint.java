@@ -0,0 +1,50 @@
+package org.example.model;
+
+/**
+ * 經緯度座標（不可變）
+ */
+public final class GeoPoint {
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final double latitude;
+    private final double longitude;
+
+    public GeoPoint(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("座標超出範圍: " + latitude + ", " + longitude);
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * 兩點距離（公尺），以等距柱狀投影近似，城市範圍內誤差可忽略
+     */
+    public double distanceMeters(double otherLatitude, double otherLongitude) {
+        double dy = (otherLatitude - latitude) * METERS_PER_DEGREE;
+        double dx = (otherLongitude - longitude) * METERS_PER_DEGREE
+                * Math.cos(Math.toRadians((latitude + otherLatitude) / 2));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public double distanceMeters(GeoPoint other) {
+        return distanceMeters(other.latitude, other.longitude);
+    }
+
+    public static double metersPerDegree() {
+        return METERS_PER_DEGREE;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + latitude + ", " + longitude + ")";
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 編號字典：將重複出現的顧客、餐廳、外送員編號對應到 int
+ * 同一編號在所有訂單中只保存一份字串，訂單只記錄 int 代碼
+ *
+ * 代碼只增不減，字典大小與不同編號的數量成正比，與訂單數無關。
+ * 查詢代碼不需要加鎖；新增代碼只鎖住 ConcurrentHashMap 中該編號所在的桶，不同編號互不等待，
+ * 只有每 4096 個代碼配置新區塊時才取得字典的鎖（分片各自下單時不會在全域鎖上排隊）。
+ */
+public final class IdDictionary {
+    /** 不存在的代碼（對應 null） */
+    public static final int NO_CODE = -1;
+
+    private static final IdDictionary GLOBAL = new IdDictionary();
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+    // 代碼 -> 字串，分塊存放避免擴充時複製整個陣列；新增區塊時在 this 鎖內複製外層陣列後整組替換
+    private volatile String[][] chunks = new String[16][];
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * 訂單共用的字典
+     */
+    public static IdDictionary global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 取得編號的代碼，第一次出現時配發新代碼
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NO_CODE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : codes.computeIfAbsent(value, this::assign);
+    }
+
+    /**
+     * 由代碼取回編號
+     */
+    public String decode(int code) {
+        if (code == NO_CODE) {
+            return null;
+        }
+        return chunks[code >>> CHUNK_SHIFT][code & CHUNK_MASK];
+    }
+
+    /**
+     * 已配發的代碼數
+     */
+    public int size() {
+        return codes.size();
+    }
+
+    /**
+     * 在 codes 的桶鎖內執行，同一編號只配發一次；先寫入字串再由 computeIfAbsent 發布代碼，
+     * 拿到代碼的執行緒一定查得到字串
+     */
+    private Integer assign(String value) {
+        int code = next.getAndIncrement();
+        chunk(code >>> CHUNK_SHIFT)[code & CHUNK_MASK] = value;
+        return code;
+    }
+
+    private String[] chunk(int index) {
+        String[][] current = chunks;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (index >= current.length || current[index] == null) {
+                current = Arrays.copyOf(current, Math.max(current.length, Integer.highestOneBit(index) * 2));
+                current[index] = new String[CHUNK_SIZE];
+                chunks = current;
+            }
+            return current[index];
+        }
+    }
+}
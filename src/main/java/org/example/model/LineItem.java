@@ -0,0 +1,27 @@
+package org.example.model;
+
+/**
+ * 下單的品項：菜單品項編號與數量（價格由伺服器依菜單計算）
+ */
+public final class LineItem {
+    private final String itemId;
+    private final int quantity;
+
+    public LineItem(String itemId, int quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public String toString() {
+        return itemId + "x" + quantity;
+    }
+}
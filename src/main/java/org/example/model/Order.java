@@ -1,31 +1,121 @@
 package org.example.model;
 
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 訂單類別
+ * 狀態與外送員欄位以 CAS 更新，多執行緒下不需要外部鎖
+ * 以精簡的基本型別保存：編號代碼、epoch 毫秒、以分為單位的金額、以 byte 保存的狀態
+ * 實作 StringBuilderFormattable，日誌可直接寫入緩衝區而不產生暫存字串
  */
-public class Order {
+public class Order implements StringBuilderFormattable {
+    private static final VarHandle STATUS;
+    private static final VarHandle DELIVERY_PERSON_ID;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final IdDictionary IDS = IdDictionary.global();
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STATUS = lookup.findVarHandle(Order.class, "status", byte.class);
+            DELIVERY_PERSON_ID = lookup.findVarHandle(Order.class, "deliveryPersonId", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // 顧客、餐廳、外送員編號存成 IdDictionary 代碼，重複的編號不會在每筆訂單各存一份
     private final String orderId;
-    private final String customerId;
-    private final String restaurantId;
-    private String deliveryPersonId;
+    private final int customerId;
+    private final int restaurantId;
+    private volatile int deliveryPersonId = IdDictionary.NO_CODE;
     private final String foodItems;
-    private final double totalAmount;
-    private OrderStatus status;
-    private final LocalDateTime orderTime;
+    // 依菜單計價的明細，自由文字品項的訂單為 null（明細只寫入冷資料，由日誌與快照還原後只剩品項文字與金額）
+    private final OrderLine[] lines;
+    // 金額以分為單位，避免浮點數誤差
+    private final long totalAmountCents;
+    // OrderStatus 的 ordinal
+    private volatile byte status;
+    // 最後一次狀態轉換的時間（epoch 毫秒），決定終止訂單何時移出熱資料
+    private volatile long statusChangedAtMillis;
+    // 接單與餐點完成的時間（epoch 毫秒），0 表示尚未到達該狀態；兩者相減為備餐時間
+    private volatile long acceptedAtMillis;
+    private volatile long readyAtMillis;
+    private final long orderTimeMillis;
+    // 預估送達時間（epoch 毫秒），0 表示未預估
+    private volatile long estimatedDeliveryMillis;
     private final String deliveryAddress;
 
     public Order(String orderId, String customerId, String restaurantId,
                  String foodItems, double totalAmount, String deliveryAddress) {
+        this(orderId, customerId, restaurantId, foodItems, toCents(totalAmount), deliveryAddress,
+                System.currentTimeMillis(), null);
+    }
+
+    /**
+     * 依菜單計價的訂單：品項文字與金額由明細產生
+     */
+    public Order(String orderId, String customerId, String restaurantId,
+                 List<OrderLine> lines, String deliveryAddress) {
+        this(orderId, customerId, restaurantId, OrderLine.describe(lines), OrderLine.totalCents(lines),
+                deliveryAddress, System.currentTimeMillis(), lines.toArray(new OrderLine[0]));
+    }
+
+    /**
+     * 以指定的下單時間建立訂單
+     */
+    public Order(String orderId, String customerId, String restaurantId,
+                 String foodItems, double totalAmount, String deliveryAddress, LocalDateTime orderTime) {
+        this(orderId, customerId, restaurantId, foodItems, toCents(totalAmount), deliveryAddress,
+                orderTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), null);
+    }
+
+    private Order(String orderId, String customerId, String restaurantId, String foodItems,
+                  long totalAmountCents, String deliveryAddress, long orderTimeMillis, OrderLine[] lines) {
         this.orderId = orderId;
-        this.customerId = customerId;
-        this.restaurantId = restaurantId;
+        this.customerId = IDS.encode(customerId);
+        this.restaurantId = IDS.encode(restaurantId);
         this.foodItems = foodItems;
-        this.totalAmount = totalAmount;
+        this.lines = lines;
+        this.totalAmountCents = totalAmountCents;
         this.deliveryAddress = deliveryAddress;
-        this.status = OrderStatus.PENDING;
-        this.orderTime = LocalDateTime.now();
+        this.status = (byte) OrderStatus.PENDING.ordinal();
+        this.orderTimeMillis = orderTimeMillis;
+        this.statusChangedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 由日誌、快照或冷資料還原訂單（時間為 epoch 毫秒，金額以分為單位）
+     */
+    public static Order restore(String orderId, String customerId, String restaurantId, String foodItems,
+                                long totalAmountCents, String deliveryAddress, long orderTimeMillis) {
+        return restore(orderId, customerId, restaurantId, foodItems, totalAmountCents, deliveryAddress,
+                orderTimeMillis, null);
+    }
+
+    /**
+     * 連同菜單明細還原（冷資料保存明細）；lines 為 null 或空白時視為自由文字品項
+     */
+    public static Order restore(String orderId, String customerId, String restaurantId, String foodItems,
+                                long totalAmountCents, String deliveryAddress, long orderTimeMillis,
+                                List<OrderLine> lines) {
+        return new Order(orderId, customerId, restaurantId, foodItems, totalAmountCents, deliveryAddress,
+                orderTimeMillis, lines == null || lines.isEmpty() ? null : lines.toArray(new OrderLine[0]));
+    }
+
+    /**
+     * 金額換算為分（四捨五入）
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
     }
 
     // Getters
@@ -34,31 +124,46 @@ public class Order {
     }
 
     public String getCustomerId() {
-        return customerId;
+        return IDS.decode(customerId);
     }
 
     public String getRestaurantId() {
-        return restaurantId;
+        return IDS.decode(restaurantId);
     }
 
     public String getDeliveryPersonId() {
-        return deliveryPersonId;
+        return IDS.decode(deliveryPersonId);
     }
 
     public String getFoodItems() {
         return foodItems;
     }
 
+    /**
+     * 依菜單計價的明細；自由文字品項或由日誌還原的訂單回傳空清單
+     */
+    public List<OrderLine> getLineItems() {
+        return lines == null ? Collections.emptyList() : List.of(lines);
+    }
+
     public double getTotalAmount() {
-        return totalAmount;
+        return totalAmountCents / 100.0;
+    }
+
+    public long getTotalAmountCents() {
+        return totalAmountCents;
     }
 
     public OrderStatus getStatus() {
-        return status;
+        return STATUSES[status];
     }
 
     public LocalDateTime getOrderTime() {
-        return orderTime;
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(orderTimeMillis), ZoneId.systemDefault());
+    }
+
+    public long getOrderTimeMillis() {
+        return orderTimeMillis;
     }
 
     public String getDeliveryAddress() {
@@ -67,16 +172,146 @@ public class Order {
 
     // Setters
     public void setDeliveryPersonId(String deliveryPersonId) {
-        this.deliveryPersonId = deliveryPersonId;
+        this.deliveryPersonId = IDS.encode(deliveryPersonId);
     }
 
     public void setStatus(OrderStatus status) {
-        this.status = status;
+        this.status = (byte) status.ordinal();
+    }
+
+    /**
+     * 預估送達時間（epoch 毫秒），0 表示未預估；下單時與取餐時更新
+     */
+    public long getEstimatedDeliveryMillis() {
+        return estimatedDeliveryMillis;
+    }
+
+    public void setEstimatedDeliveryMillis(long estimatedDeliveryMillis) {
+        this.estimatedDeliveryMillis = estimatedDeliveryMillis;
+    }
+
+    public long getStatusChangedAtMillis() {
+        return statusChangedAtMillis;
+    }
+
+    /**
+     * 還原時使用：沿用原本的狀態轉換時間，同時記為目前狀態的轉換時間
+     */
+    public void setStatusChangedAtMillis(long statusChangedAtMillis) {
+        this.statusChangedAtMillis = statusChangedAtMillis;
+        markStatusTime(getStatus(), statusChangedAtMillis);
+    }
+
+    /**
+     * 餐廳接單時間（epoch 毫秒），0 表示尚未接單
+     */
+    public long getAcceptedAtMillis() {
+        return acceptedAtMillis;
+    }
+
+    /**
+     * 還原時使用：沿用原本的接單時間
+     */
+    public void setAcceptedAtMillis(long acceptedAtMillis) {
+        this.acceptedAtMillis = acceptedAtMillis;
+    }
+
+    /**
+     * 餐點完成時間（epoch 毫秒），0 表示尚未完成
+     */
+    public long getReadyAtMillis() {
+        return readyAtMillis;
+    }
+
+    /**
+     * 還原時使用：沿用原本的餐點完成時間
+     */
+    public void setReadyAtMillis(long readyAtMillis) {
+        this.readyAtMillis = readyAtMillis;
+    }
+
+    /**
+     * 備餐時間（ACCEPTED 到 READY，毫秒），尚未完成時回傳 -1
+     */
+    public long getPrepMillis() {
+        long accepted = acceptedAtMillis;
+        long ready = readyAtMillis;
+        return accepted == 0 || ready == 0 ? -1 : ready - accepted;
+    }
+
+    private void markStatusTime(OrderStatus status, long timeMillis) {
+        if (status == OrderStatus.ACCEPTED) {
+            acceptedAtMillis = timeMillis;
+        } else if (status == OrderStatus.READY) {
+            readyAtMillis = timeMillis;
+        }
+    }
+
+    /**
+     * 原子性狀態轉換：僅當目前狀態為 expected 時才更新
+     * @return 是否轉換成功
+     */
+    public boolean compareAndSetStatus(OrderStatus expected, OrderStatus newStatus) {
+        if (STATUS.compareAndSet(this, (byte) expected.ordinal(), (byte) newStatus.ordinal())) {
+            long now = System.currentTimeMillis();
+            markStatusTime(newStatus, now);
+            statusChangedAtMillis = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 原子性指派外送員並將狀態由 expected 轉為 newStatus
+     * 先佔用外送員欄位再轉換狀態，確保看到新狀態的執行緒一定看得到外送員
+     * @return 是否指派成功；失敗時訂單維持原狀
+     */
+    public boolean compareAndAssignDeliveryPerson(String deliveryPersonId,
+                                                  OrderStatus expected, OrderStatus newStatus) {
+        int code = IDS.encode(deliveryPersonId);
+        if (!DELIVERY_PERSON_ID.compareAndSet(this, IdDictionary.NO_CODE, code)) {
+            return false;
+        }
+        if (STATUS.compareAndSet(this, (byte) expected.ordinal(), (byte) newStatus.ordinal())) {
+            statusChangedAtMillis = System.currentTimeMillis();
+            return true;
+        }
+        // 狀態已被其他執行緒改變，還原外送員欄位
+        DELIVERY_PERSON_ID.compareAndSet(this, code, IdDictionary.NO_CODE);
+        return false;
+    }
+
+    @Override
+    public void formatTo(StringBuilder buffer) {
+        buffer.append("Order[id=").append(orderId)
+                .append(", customer=").append(getCustomerId())
+                .append(", restaurant=").append(getRestaurantId())
+                .append(", items=").append(foodItems)
+                .append(", amount=");
+        appendAmount(buffer, totalAmountCents);
+        buffer.append(", status=").append(getStatus().getDescription()).append(']');
     }
 
     @Override
     public String toString() {
-        return String.format("Order[id=%s, customer=%s, restaurant=%s, items=%s, amount=%.2f, status=%s]",
-                orderId, customerId, restaurantId, foodItems, totalAmount, status.getDescription());
+        StringBuilder buffer = new StringBuilder(128);
+        formatTo(buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * 以兩位小數輸出金額（等同 %.2f），不經過 String.format
+     */
+    private static void appendAmount(StringBuilder buffer, long cents) {
+        if (cents < 0) {
+            buffer.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        buffer.append(cents / 100).append('.');
+        if (fraction < 10) {
+            buffer.append('0');
+        }
+        buffer.append(fraction);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package org.example.model;
+
+import java.util.List;
+
+/**
+ * 訂單明細：下單當時的品名與單價（之後菜單改價不影響已成立的訂單）
+ */
+public final class OrderLine {
+    private final String itemId;
+    private final String name;
+    private final int quantity;
+    private final long unitPriceCents;
+
+    public OrderLine(String itemId, String name, int quantity, long unitPriceCents) {
+        this.itemId = itemId;
+        this.name = name;
+        this.quantity = quantity;
+        this.unitPriceCents = unitPriceCents;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    public long getLineTotalCents() {
+        return Math.multiplyExact(unitPriceCents, (long) quantity);
+    }
+
+    /**
+     * 明細合計（分）
+     * @throws ArithmeticException 金額溢位
+     */
+    public static long totalCents(List<OrderLine> lines) {
+        long total = 0;
+        for (OrderLine line : lines) {
+            total = Math.addExact(total, line.getLineTotalCents());
+        }
+        return total;
+    }
+
+    /**
+     * 與自由文字品項相同的格式：「珍珠奶茶x2, 雞排便當x1」
+     */
+    public static String describe(List<OrderLine> lines) {
+        StringBuilder buffer = new StringBuilder(lines.size() * 12);
+        for (OrderLine line : lines) {
+            if (buffer.length() > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(line.name).append('x').append(line.quantity);
+        }
+        return buffer.toString();
+    }
+
+    @Override
+    public String toString() {
+        return name + "x" + quantity + "@" + unitPriceCents;
+    }
+}
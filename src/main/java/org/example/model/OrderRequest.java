@@ -0,0 +1,62 @@
+package org.example.model;
+
+import java.util.List;
+
+/**
+ * 批次下單的單筆內容（欄位與 DeliveryService.createOrder 的參數相同）
+ * 以 lineItems 建立時依菜單計價，foodItems 與 totalAmount 不使用
+ */
+public class OrderRequest {
+    private final String customerId;
+    private final String restaurantId;
+    private final String foodItems;
+    private final double totalAmount;
+    private final String deliveryAddress;
+    private final List<LineItem> lineItems;
+
+    public OrderRequest(String customerId, String restaurantId, String foodItems,
+                        double totalAmount, String deliveryAddress) {
+        this.customerId = customerId;
+        this.restaurantId = restaurantId;
+        this.foodItems = foodItems;
+        this.totalAmount = totalAmount;
+        this.deliveryAddress = deliveryAddress;
+        this.lineItems = null;
+    }
+
+    public OrderRequest(String customerId, String restaurantId, List<LineItem> lineItems, String deliveryAddress) {
+        this.customerId = customerId;
+        this.restaurantId = restaurantId;
+        this.foodItems = null;
+        this.totalAmount = 0;
+        this.deliveryAddress = deliveryAddress;
+        this.lineItems = lineItems;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    public String getFoodItems() {
+        return foodItems;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public String getDeliveryAddress() {
+        return deliveryAddress;
+    }
+
+    /**
+     * @return 菜單品項，自由文字品項的請求回傳 null
+     */
+    public List<LineItem> getLineItems() {
+        return lineItems;
+    }
+}
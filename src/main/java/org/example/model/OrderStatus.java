@@ -1,7 +1,12 @@
 package org.example.model;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * 訂單狀態枚舉
+ * 合法的狀態轉換集中宣告於下方的轉換矩陣，以位元遮罩預先計算
  */
 public enum OrderStatus {
     PENDING("待確認"),           // 顧客已下單，等待餐廳確認
@@ -12,8 +17,34 @@ public enum OrderStatus {
     DELIVERED("已送達"),        // 訂單已完成配送
     CANCELLED("已取消");        // 訂單已取消
 
+    static {
+        // 訂單生命週期：新增狀態時只需在此宣告其轉換
+        // 轉換只能前往宣告順序較後的狀態，日誌重播依此判斷事件先後
+        allow(PENDING, ACCEPTED, CANCELLED);
+        allow(ACCEPTED, PREPARING, CANCELLED);
+        allow(PREPARING, READY, CANCELLED);
+        allow(READY, PICKED_UP, CANCELLED);
+        allow(PICKED_UP, DELIVERED, CANCELLED);
+        // DELIVERED 與 CANCELLED 為終止狀態，不允許任何轉換
+    }
+
+    private static final Set<OrderStatus> ACTIVE;
+
+    static {
+        EnumSet<OrderStatus> active = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : values()) {
+            if (!status.isTerminal()) {
+                active.add(status);
+            }
+        }
+        ACTIVE = Collections.unmodifiableSet(active);
+    }
+
     private final String description;
 
+    // 可轉換目標狀態的位元遮罩（第 n 位代表 ordinal 為 n 的狀態）
+    private int allowedTargets;
+
     OrderStatus(String description) {
         this.description = description;
     }
@@ -21,4 +52,34 @@ public enum OrderStatus {
     public String getDescription() {
         return description;
     }
-}
\ No newline at end of file
+
+    /**
+     * 是否可由目前狀態轉換到 target
+     */
+    public boolean canTransitionTo(OrderStatus target) {
+        return (allowedTargets & (1 << target.ordinal())) != 0;
+    }
+
+    /**
+     * 是否為終止狀態（不再有任何合法轉換）
+     */
+    public boolean isTerminal() {
+        return allowedTargets == 0;
+    }
+
+    /**
+     * 所有尚未結束（非終止）的狀態
+     */
+    public static Set<OrderStatus> activeStatuses() {
+        return ACTIVE;
+    }
+
+    private static void allow(OrderStatus from, OrderStatus... targets) {
+        for (OrderStatus target : targets) {
+            if (target.ordinal() <= from.ordinal()) {
+                throw new IllegalStateException("狀態轉換必須往後: " + from + " -> " + target);
+            }
+            from.allowedTargets |= 1 << target.ordinal();
+        }
+    }
+}
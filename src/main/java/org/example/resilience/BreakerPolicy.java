@@ -0,0 +1,76 @@
+package org.example.resilience;
+
+import java.time.Duration;
+
+/**
+ * 斷路器設定（不可變，with 方法回傳新的設定）
+ * 以固定筆數的視窗計算失敗率：視窗內至少 minimumCalls 筆且失敗率達門檻時斷路，
+ * 斷路 openDuration 後放行 halfOpenProbes 筆試探，全部成功才恢復，任一失敗重新斷路
+ */
+public final class BreakerPolicy {
+
+    private static final BreakerPolicy DEFAULTS = new BreakerPolicy(50, 20, 100, 5000, 3);
+
+    private final int failureRatePercent;
+    private final int minimumCalls;
+    private final int windowCalls;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    private BreakerPolicy(int failureRatePercent, int minimumCalls, int windowCalls, long openMillis,
+                          int halfOpenProbes) {
+        if (failureRatePercent <= 0 || failureRatePercent > 100) {
+            throw new IllegalArgumentException("失敗率門檻必須介於 1 到 100");
+        }
+        if (minimumCalls <= 0 || windowCalls < minimumCalls || windowCalls > CircuitBreaker.MAX_COUNT) {
+            throw new IllegalArgumentException("最少筆數必須大於 0，視窗筆數必須介於最少筆數與 " + CircuitBreaker.MAX_COUNT);
+        }
+        if (openMillis <= 0 || halfOpenProbes <= 0 || halfOpenProbes > CircuitBreaker.MAX_COUNT) {
+            throw new IllegalArgumentException("斷路時間與試探筆數必須大於 0");
+        }
+        this.failureRatePercent = failureRatePercent;
+        this.minimumCalls = minimumCalls;
+        this.windowCalls = windowCalls;
+        this.openMillis = openMillis;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * 預設：每 100 筆為一個視窗，至少 20 筆且失敗率達 50% 時斷路 5 秒，之後試探 3 筆
+     */
+    public static BreakerPolicy defaults() {
+        return DEFAULTS;
+    }
+
+    public BreakerPolicy withFailureRate(int percent, int minimumCalls, int windowCalls) {
+        return new BreakerPolicy(percent, minimumCalls, windowCalls, openMillis, halfOpenProbes);
+    }
+
+    public BreakerPolicy withOpenDuration(Duration duration) {
+        return new BreakerPolicy(failureRatePercent, minimumCalls, windowCalls, duration.toMillis(), halfOpenProbes);
+    }
+
+    public BreakerPolicy withHalfOpenProbes(int probes) {
+        return new BreakerPolicy(failureRatePercent, minimumCalls, windowCalls, openMillis, probes);
+    }
+
+    public int getFailureRatePercent() {
+        return failureRatePercent;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public int getWindowCalls() {
+        return windowCalls;
+    }
+
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    public int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+}
@@ -0,0 +1,210 @@
+package org.example.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 無鎖斷路器：狀態與計數壓縮在同一個 long，以 CAS 一次更新
+ * - 第 62~63 位元：狀態
+ * - CLOSED：低 31 位元為視窗內呼叫數，其上 31 位元為失敗數
+ * - OPEN：低 62 位元為斷路時間（epoch 毫秒）
+ * - HALF_OPEN：低 31 位元為已放行的試探數，其上 31 位元為成功數
+ *
+ * 使用方式：tryAcquirePermission() 取得許可後呼叫對方，再以 onSuccess() / onFailure() 回報結果；
+ * 取得許可後因其他原因沒有呼叫對方時以 releasePermission() 歸還
+ */
+public final class CircuitBreaker {
+
+    static final int MAX_COUNT = (1 << 30) - 1;
+
+    private static final int STATE_SHIFT = 62;
+    private static final int HIGH_SHIFT = 31;
+    private static final long LOW_MASK = (1L << HIGH_SHIFT) - 1;
+    private static final long PAYLOAD_MASK = (1L << STATE_SHIFT) - 1;
+    private static final CircuitState[] STATES = CircuitState.values();
+    private static final long CLOSED_EMPTY = pack(CircuitState.CLOSED, 0, 0);
+
+    private final String name;
+    private final BreakerPolicy policy;
+    private final CircuitBreakerListener listener;
+    private final AtomicLong state = new AtomicLong(CLOSED_EMPTY);
+    private final LongAdder rejected = new LongAdder();
+
+    public CircuitBreaker(String name, BreakerPolicy policy, CircuitBreakerListener listener) {
+        this.name = name;
+        this.policy = policy;
+        this.listener = listener;
+    }
+
+    public boolean tryAcquirePermission() {
+        return tryAcquirePermission(System.currentTimeMillis());
+    }
+
+    /**
+     * @return 是否可以呼叫；斷路中（或試探名額已滿）時回傳 false
+     */
+    public boolean tryAcquirePermission(long nowMillis) {
+        for (;;) {
+            long current = state.get();
+            switch (stateOf(current)) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (nowMillis - (current & PAYLOAD_MASK) < policy.getOpenMillis()) {
+                        rejected.increment();
+                        return false;
+                    }
+                    // 斷路時間已過：搶到轉換的呼叫成為第一筆試探
+                    if (transition(current, pack(CircuitState.HALF_OPEN, 0, 1), CircuitState.OPEN, CircuitState.HALF_OPEN)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    long probes = current & LOW_MASK;
+                    if (probes >= policy.getHalfOpenProbes()) {
+                        rejected.increment();
+                        return false;
+                    }
+                    if (state.compareAndSet(current, current + 1)) {
+                        return true;
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 歸還沒有用到的許可（不計入成功或失敗）
+     */
+    public void releasePermission() {
+        for (;;) {
+            long current = state.get();
+            if (stateOf(current) != CircuitState.HALF_OPEN || (current & LOW_MASK) == 0) {
+                return;
+            }
+            if (state.compareAndSet(current, current - 1)) {
+                return;
+            }
+        }
+    }
+
+    public void onSuccess() {
+        for (;;) {
+            long current = state.get();
+            switch (stateOf(current)) {
+                case CLOSED: {
+                    long calls = (current & LOW_MASK) + 1;
+                    long failures = high(current);
+                    long next = calls >= policy.getWindowCalls() ? CLOSED_EMPTY
+                            : pack(CircuitState.CLOSED, failures, calls);
+                    if (state.compareAndSet(current, next)) {
+                        return;
+                    }
+                    break;
+                }
+                case OPEN:
+                    // 斷路前放行的呼叫，結果不再影響狀態
+                    return;
+                default: {
+                    long successes = high(current) + 1;
+                    if (successes >= policy.getHalfOpenProbes()) {
+                        if (transition(current, CLOSED_EMPTY, CircuitState.HALF_OPEN, CircuitState.CLOSED)) {
+                            return;
+                        }
+                    } else if (state.compareAndSet(current, pack(CircuitState.HALF_OPEN, successes, current & LOW_MASK))) {
+                        return;
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    public void onFailure() {
+        onFailure(System.currentTimeMillis());
+    }
+
+    public void onFailure(long nowMillis) {
+        long opened = pack(CircuitState.OPEN, 0, 0) | (nowMillis & PAYLOAD_MASK);
+        for (;;) {
+            long current = state.get();
+            switch (stateOf(current)) {
+                case CLOSED: {
+                    long calls = (current & LOW_MASK) + 1;
+                    long failures = high(current) + 1;
+                    if (calls >= policy.getMinimumCalls()
+                            && failures * 100 >= (long) policy.getFailureRatePercent() * calls) {
+                        if (transition(current, opened, CircuitState.CLOSED, CircuitState.OPEN)) {
+                            return;
+                        }
+                        break;
+                    }
+                    long next = calls >= policy.getWindowCalls() ? CLOSED_EMPTY
+                            : pack(CircuitState.CLOSED, failures, calls);
+                    if (state.compareAndSet(current, next)) {
+                        return;
+                    }
+                    break;
+                }
+                case OPEN:
+                    return;
+                default:
+                    if (transition(current, opened, CircuitState.HALF_OPEN, CircuitState.OPEN)) {
+                        return;
+                    }
+                    break;
+            }
+        }
+    }
+
+    private boolean transition(long expected, long next, CircuitState from, CircuitState to) {
+        if (!state.compareAndSet(expected, next)) {
+            return false;
+        }
+        listener.onStateChange(name, from, to);
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitState getState() {
+        return stateOf(state.get());
+    }
+
+    /**
+     * 斷路中剩餘的毫秒數，非斷路狀態時回傳 0
+     */
+    public long getRemainingOpenMillis(long nowMillis) {
+        long current = state.get();
+        if (stateOf(current) != CircuitState.OPEN) {
+            return 0;
+        }
+        return Math.max(0, policy.getOpenMillis() - (nowMillis - (current & PAYLOAD_MASK)));
+    }
+
+    /**
+     * 因斷路而快速失敗的次數
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private static CircuitState stateOf(long value) {
+        return STATES[(int) (value >>> STATE_SHIFT)];
+    }
+
+    private static long high(long value) {
+        return (value >>> HIGH_SHIFT) & LOW_MASK;
+    }
+
+    private static long pack(CircuitState state, long high, long low) {
+        return ((long) state.ordinal() << STATE_SHIFT) | (high << HIGH_SHIFT) | low;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker[" + name + ", " + getState() + "]";
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.resilience;
+
+/**
+ * 斷路器狀態變化通知（在觸發轉換的呼叫端執行緒上呼叫，不應長時間阻塞）
+ */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+
+    /** 不處理 */
+    CircuitBreakerListener NONE = (name, from, to) -> {
+    };
+
+    void onStateChange(String name, CircuitState from, CircuitState to);
+}
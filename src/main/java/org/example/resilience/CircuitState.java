@@ -0,0 +1,20 @@
+package org.example.resilience;
+
+/**
+ * 斷路器狀態
+ */
+public enum CircuitState {
+    CLOSED("正常"),
+    OPEN("斷路"),
+    HALF_OPEN("試探中");
+
+    private final String description;
+
+    CircuitState(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
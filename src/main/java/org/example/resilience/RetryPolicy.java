@@ -0,0 +1,61 @@
+package org.example.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 重試設定：指數退避加上隨機抖動（不可變）
+ * 第 n 次重試的上限為 min(maxDelay, baseDelay * 2^(n-1))，實際延遲隨機落在上限的一半到上限之間，
+ * 避免大量呼叫端同時重試
+ */
+public final class RetryPolicy {
+
+    private static final RetryPolicy DEFAULTS = new RetryPolicy(4, 100, 2000);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * @param maxAttempts 含第一次呼叫的最多嘗試次數
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts <= 0 || baseDelayMillis <= 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("嘗試次數與延遲必須大於 0，最大延遲不可小於基本延遲");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * 預設：最多 4 次，延遲約 100、200、400 毫秒（各自隨機減少最多一半），最長 2 秒
+     */
+    public static RetryPolicy defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param retry 第幾次重試（由 1 起算）
+     */
+    public long delayMillis(int retry) {
+        int shift = Math.min(retry - 1, 30);
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << shift);
+        if (cap <= 0) {
+            cap = maxDelayMillis;
+        }
+        long half = cap / 2;
+        return half + ThreadLocalRandom.current().nextLong(cap - half + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.resilience;
+
+import org.example.sla.TimingWheel;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 非阻塞重試：失敗後把下一次嘗試排入時間輪，等待期間不佔用任何執行緒
+ * 第一次嘗試在呼叫端執行緒上執行，之後的重試在 executor 上執行（預設為虛擬執行緒）
+ */
+public class RetryScheduler implements AutoCloseable {
+
+    /** 預設時間精度 */
+    public static final long DEFAULT_TICK_MILLIS = 10;
+
+    private final TimingWheel wheel;
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    // 等待下一次嘗試的結果與其最近一次的失敗，關閉時以該失敗完成，呼叫端不會永遠等待
+    private final Map<CompletableFuture<?>, Throwable> waiting = new ConcurrentHashMap<>();
+
+    public RetryScheduler() {
+        this(DEFAULT_TICK_MILLIS);
+    }
+
+    public RetryScheduler(long tickMillis) {
+        this(tickMillis, Executors.newVirtualThreadPerTaskExecutor()::execute);
+    }
+
+    /**
+     * @param executor 執行重試（例如分片的事件迴圈，重試與其他寫入由同一條執行緒執行）
+     */
+    public RetryScheduler(long tickMillis, Executor executor) {
+        this.wheel = new TimingWheel(tickMillis, executor, "retry-timer");
+    }
+
+    /**
+     * 執行 call，失敗且 retryable 成立時依 policy 延遲後重試
+     * @return 最後一次嘗試的結果；重試用盡或不可重試時以該次的例外完成
+     */
+    public <T> CompletableFuture<T> execute(Callable<T> call, Predicate<Throwable> retryable, RetryPolicy policy) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, retryable, policy, 1, result);
+        return result;
+    }
+
+    private <T> void attempt(Callable<T> call, Predicate<Throwable> retryable, RetryPolicy policy,
+                             int attempt, CompletableFuture<T> result) {
+        waiting.remove(result);
+        if (result.isDone()) {
+            // 呼叫端已取消或排程已關閉
+            return;
+        }
+        try {
+            result.complete(call.call());
+        } catch (Throwable t) {
+            if (!retryable.test(t)) {
+                result.completeExceptionally(t);
+                return;
+            }
+            if (attempt >= policy.getMaxAttempts()) {
+                exhausted.increment();
+                result.completeExceptionally(t);
+                return;
+            }
+            scheduled.increment();
+            waiting.put(result, t);
+            try {
+                wheel.schedule(System.currentTimeMillis() + policy.delayMillis(attempt),
+                        () -> attempt(call, retryable, policy, attempt + 1, result));
+            } catch (RuntimeException e) {
+                // 時間輪已關閉
+                waiting.remove(result);
+                result.completeExceptionally(t);
+            }
+        }
+    }
+
+    /**
+     * 已排程的重試次數
+     */
+    public long getScheduled() {
+        return scheduled.sum();
+    }
+
+    /**
+     * 重試用盡仍失敗的次數
+     */
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    /**
+     * 停止計時執行緒；尚在等待重試的呼叫以最近一次的失敗完成
+     */
+    @Override
+    public void close() {
+        wheel.close();
+        for (Map.Entry<CompletableFuture<?>, Throwable> entry : waiting.entrySet()) {
+            entry.getKey().completeExceptionally(entry.getValue());
+        }
+        waiting.clear();
+    }
+}
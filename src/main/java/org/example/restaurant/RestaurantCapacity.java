@@ -0,0 +1,252 @@
+package org.example.restaurant;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 餐廳接單容量模型（無鎖）
+ * - 營業開關
+ * - 廚房同時處理上限：ACCEPTED 與 PREPARING 的訂單數，餐點完成或取消時釋放名額
+ * - 接單速率限制：以 GCRA（等同 token bucket）實作，單一 AtomicLong 即可表示桶的狀態
+ */
+public class RestaurantCapacity {
+
+    /** 不限制同時處理數 */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final String restaurantId;
+    private volatile boolean open;
+
+    // 容量設定可在營業中調整，整組替換以確保一次讀到一致的設定
+    private volatile Limits limits;
+    private final AtomicInteger inKitchen = new AtomicInteger();
+
+    // 理論上下一筆訂單可被接受的時間（theoretical arrival time）
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param maxConcurrentOrders 廚房同時處理上限，UNLIMITED 表示不限
+     * @param ordersPerMinute     每分鐘接單速率，0 表示不限速
+     * @param burst               速率限制下可連續接單的數量（桶的容量）
+     */
+    public RestaurantCapacity(String restaurantId, boolean open, int maxConcurrentOrders,
+                              int ordersPerMinute, int burst) {
+        this.restaurantId = restaurantId;
+        this.open = open;
+        this.limits = new Limits(maxConcurrentOrders, ordersPerMinute, burst);
+    }
+
+    /**
+     * 不限容量的餐廳（只有營業開關）
+     */
+    public static RestaurantCapacity unlimited(String restaurantId, boolean open) {
+        return new RestaurantCapacity(restaurantId, open, UNLIMITED, 0, 1);
+    }
+
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void setOpen(boolean open) {
+        this.open = open;
+    }
+
+    public int getMaxConcurrentOrders() {
+        return limits.maxConcurrentOrders;
+    }
+
+    /** 每分鐘接單速率，0 表示不限速 */
+    public int getOrdersPerMinute() {
+        return limits.ordersPerMinute;
+    }
+
+    public int getBurst() {
+        return limits.burst;
+    }
+
+    /**
+     * 調整容量設定；已在廚房中的訂單照常計算，只影響之後的接單
+     */
+    public void configure(int maxConcurrentOrders, int ordersPerMinute, int burst) {
+        this.limits = new Limits(maxConcurrentOrders, ordersPerMinute, burst);
+    }
+
+    /** 目前在廚房中（ACCEPTED/PREPARING）的訂單數 */
+    public int getInKitchen() {
+        return inKitchen.get();
+    }
+
+    /**
+     * 嘗試佔用一個廚房名額並消耗一個接單令牌
+     * @return 取得名額時回傳 ADMITTED，否則回傳拒絕原因；成功後必須在離開廚房時呼叫 release()
+     */
+    public Admission tryAdmit() {
+        if (!open) {
+            return Admission.CLOSED;
+        }
+        Limits current = limits;
+        if (inKitchen.incrementAndGet() > current.maxConcurrentOrders) {
+            inKitchen.decrementAndGet();
+            return Admission.KITCHEN_FULL;
+        }
+        if (current.emissionIntervalNanos != 0 && !tryAcquireToken(current)) {
+            inKitchen.decrementAndGet();
+            return Admission.RATE_LIMITED;
+        }
+        return Admission.ADMITTED;
+    }
+
+    /**
+     * 批次接單：一次佔用最多 requested 個廚房名額與接單令牌，名額與令牌各只更新一次
+     * @return 取得的名額數與不足時的原因；成功的每一筆都必須在離開廚房時釋放
+     */
+    public BatchAdmission tryAdmit(int requested) {
+        if (!open) {
+            return new BatchAdmission(0, Admission.CLOSED);
+        }
+        Limits current = limits;
+        int admitted = requested;
+        Admission denial = Admission.ADMITTED;
+        long over = (long) inKitchen.addAndGet(requested) - current.maxConcurrentOrders;
+        if (over > 0) {
+            int excess = (int) Math.min(over, requested);
+            inKitchen.addAndGet(-excess);
+            admitted -= excess;
+            denial = Admission.KITCHEN_FULL;
+        }
+        if (admitted > 0 && current.emissionIntervalNanos != 0) {
+            int tokens = tryAcquireTokens(current, admitted);
+            if (tokens < admitted) {
+                inKitchen.addAndGet(tokens - admitted);
+                admitted = tokens;
+                denial = Admission.RATE_LIMITED;
+            }
+        }
+        return new BatchAdmission(admitted, denial);
+    }
+
+    /**
+     * 釋放一個廚房名額（餐點完成、取消或接單失敗時）
+     */
+    public void release() {
+        inKitchen.decrementAndGet();
+    }
+
+    /**
+     * 一次釋放多個廚房名額
+     */
+    public void release(int count) {
+        inKitchen.addAndGet(-count);
+    }
+
+    /**
+     * 還原狀態時直接佔用名額，不檢查上限與速率
+     */
+    public void restoreInKitchen(int count) {
+        inKitchen.addAndGet(count);
+    }
+
+    private boolean tryAcquireToken(Limits current) {
+        long now = System.nanoTime();
+        for (;;) {
+            long tat = theoreticalArrival.get();
+            long start = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            if (start - now > current.burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, start + current.emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 一次取得最多 requested 個令牌
+     * @return 取得的令牌數
+     */
+    private int tryAcquireTokens(Limits current, int requested) {
+        long now = System.nanoTime();
+        for (;;) {
+            long tat = theoreticalArrival.get();
+            long start = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            long slack = current.burstToleranceNanos - (start - now);
+            if (slack < 0) {
+                return 0;
+            }
+            int tokens = (int) Math.min(requested, slack / current.emissionIntervalNanos + 1);
+            if (theoreticalArrival.compareAndSet(tat, start + tokens * current.emissionIntervalNanos)) {
+                return tokens;
+            }
+        }
+    }
+
+    /**
+     * 容量設定（不可變）
+     */
+    private static final class Limits {
+        final int maxConcurrentOrders;
+        final int ordersPerMinute;
+        final int burst;
+        // 速率限制：每筆訂單的發放間隔與可累積的突發容忍量（奈秒）；間隔為 0 表示不限速
+        final long emissionIntervalNanos;
+        final long burstToleranceNanos;
+
+        Limits(int maxConcurrentOrders, int ordersPerMinute, int burst) {
+            if (maxConcurrentOrders <= 0 || ordersPerMinute < 0 || burst <= 0) {
+                throw new IllegalArgumentException("餐廳容量設定不正確");
+            }
+            this.maxConcurrentOrders = maxConcurrentOrders;
+            this.ordersPerMinute = ordersPerMinute;
+            this.burst = burst;
+            this.emissionIntervalNanos = ordersPerMinute == 0 ? 0 : TimeUnit.MINUTES.toNanos(1) / ordersPerMinute;
+            this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        }
+    }
+
+    /**
+     * 批次接單結果：取得的名額數，以及未全部取得時的原因
+     */
+    public static final class BatchAdmission {
+        private final int admitted;
+        private final Admission denial;
+
+        BatchAdmission(int admitted, Admission denial) {
+            this.admitted = admitted;
+            this.denial = denial;
+        }
+
+        public int getAdmitted() {
+            return admitted;
+        }
+
+        /** 全部取得時為 ADMITTED */
+        public Admission getDenial() {
+            return denial;
+        }
+    }
+
+    /**
+     * 接單判定結果
+     */
+    public enum Admission {
+        ADMITTED("可接單"),
+        CLOSED("餐廳目前無法接單"),
+        KITCHEN_FULL("餐廳訂單已滿，請稍後再試"),
+        RATE_LIMITED("餐廳接單速度已達上限，請稍後再試");
+
+        private final String description;
+
+        Admission(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
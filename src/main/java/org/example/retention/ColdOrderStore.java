@@ -0,0 +1,413 @@
+package org.example.retention;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.model.Order;
+import org.example.model.OrderLine;
+import org.example.model.OrderStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.CRC32C;
+
+/**
+ * 已結束訂單的冷資料儲存：序列化後寫入記憶體映射檔，資料不佔用 Java heap
+ *
+ * 檔案格式：目錄下依序編號的 cold-NNNNNNNNNNNNNNNNNNNN.seg，每個分段固定大小並預先填零。
+ * 每筆紀錄為 [int 內容長度][int CRC32C][byte 格式版本][訂單欄位...]，長度為 0 代表分段結尾。
+ * 訂單欄位保存查詢需要的全部內容：各時間點、以分為單位的金額與菜單明細，移出熱資料前後查到的訂單相同。
+ * 查詢透過訂單編號雜湊到紀錄位置的索引（每筆 16 bytes），再讀出紀錄比對編號。
+ * 寫入只由移轉執行緒進行，查詢不需要加鎖。
+ */
+public class ColdOrderStore implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(ColdOrderStore.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "cold-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BODY_BYTES = 256 * 1024;
+    // 紀錄格式版本；讀到其他版本的紀錄時拒絕，不猜測欄位
+    private static final byte RECORD_VERSION = 1;
+    // 版本與五個時間欄位之後才是訂單編號（索引比對時直接跳過）
+    private static final int ORDER_ID_OFFSET = 1 + 5 * Long.BYTES;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final Path directory;
+    private final int segmentSize;
+
+    // 以下欄位只在持有 this 鎖時修改
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_BODY_BYTES);
+    private final CRC32C checksum = new CRC32C();
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private boolean closed;
+
+    // 查詢端讀取的分段（換分段時整個陣列替換）與編號索引
+    private volatile MappedByteBuffer[] segments;
+    private final IdIndex index = new IdIndex();
+
+    public static ColdOrderStore open(Path directory) throws IOException {
+        return new ColdOrderStore(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public ColdOrderStore(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < HEADER_BYTES + MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("分段大小至少需要 " + (HEADER_BYTES + MAX_BODY_BYTES) + " bytes");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        // 重新開啟時掃描既有分段重建索引，最後一個分段從有效紀錄的結尾繼續寫
+        List<Long> indexes = listSegments();
+        segmentIndex = indexes.isEmpty() ? 0 : indexes.get(indexes.size() - 1);
+        MappedByteBuffer[] mapped = new MappedByteBuffer[(int) segmentIndex + 1];
+        for (int i = 0; i <= segmentIndex; i++) {
+            mapped[i] = mapSegment(i);
+        }
+        segments = mapped;
+        int tail = 0;
+        for (int i = 0; i <= segmentIndex; i++) {
+            tail = scan(i, mapped[i]);
+        }
+        segment = mapped[(int) segmentIndex];
+        if (tail + 4 <= segmentSize && segment.getInt(tail) != 0) {
+            logger.warn("冷資料分段 {} 在位置 {} 有不完整的紀錄，已截斷", segmentIndex, tail);
+            for (int i = tail; i < segmentSize; i++) {
+                segment.put(i, (byte) 0);
+            }
+        }
+        segment.position(tail);
+        if (index.size() > 0) {
+            logger.info("冷資料已開啟: {}, 共 {} 筆訂單", directory, index.size());
+        }
+    }
+
+    /**
+     * 寫入一筆已結束的訂單；同一編號重複寫入時以最後一次為準
+     */
+    public synchronized void append(Order order) {
+        if (closed) {
+            throw new IllegalStateException("冷資料儲存已關閉");
+        }
+        ByteBuffer body = scratch;
+        try {
+            body.clear();
+            body.put(RECORD_VERSION);
+            body.putLong(order.getOrderTimeMillis());
+            body.putLong(order.getStatusChangedAtMillis());
+            body.putLong(order.getAcceptedAtMillis());
+            body.putLong(order.getReadyAtMillis());
+            body.putLong(order.getEstimatedDeliveryMillis());
+            putString(body, order.getOrderId());
+            putString(body, order.getCustomerId());
+            putString(body, order.getRestaurantId());
+            putString(body, order.getFoodItems());
+            body.putLong(order.getTotalAmountCents());
+            putString(body, order.getDeliveryAddress());
+            body.put((byte) order.getStatus().ordinal());
+            putString(body, order.getDeliveryPersonId());
+            List<OrderLine> lines = order.getLineItems();
+            body.putInt(lines.size());
+            for (OrderLine line : lines) {
+                putString(body, line.getItemId());
+                putString(body, line.getName());
+                body.putInt(line.getQuantity());
+                body.putLong(line.getUnitPriceCents());
+            }
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("冷資料紀錄超過 " + MAX_BODY_BYTES + " bytes: " + order.getOrderId());
+        }
+        int length = body.position();
+        checksum.reset();
+        checksum.update(body.array(), 0, length);
+
+        if (segment.remaining() < HEADER_BYTES + length) {
+            roll();
+        }
+        long position = segmentIndex * segmentSize + segment.position();
+        segment.putInt(length);
+        segment.putInt((int) checksum.getValue());
+        segment.put(body.array(), 0, length);
+        index.put(order.getOrderId(), position, this);
+    }
+
+    /**
+     * 將已寫入的紀錄落盤（移出熱資料之前呼叫，避免當機時兩邊都沒有）
+     */
+    public synchronized void force() {
+        segment.force();
+    }
+
+    /**
+     * 依編號讀取訂單
+     * @return 不在冷資料中時回傳 null
+     */
+    public Order get(String orderId) {
+        long position = index.find(orderId, this);
+        return position < 0 ? null : read(position);
+    }
+
+    public boolean contains(String orderId) {
+        return index.find(orderId, this) >= 0;
+    }
+
+    /**
+     * 冷資料中的訂單數
+     */
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segment.force();
+        logger.info("冷資料已關閉: {}", directory);
+    }
+
+    private void roll() {
+        segment.force();
+        try {
+            segment = mapSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("建立冷資料分段失敗", e);
+        }
+        segmentIndex++;
+        MappedByteBuffer[] grown = Arrays.copyOf(segments, (int) segmentIndex + 1);
+        grown[(int) segmentIndex] = segment;
+        segments = grown;
+    }
+
+    /**
+     * 掃描分段內的紀錄並加入索引
+     * @return 最後一筆有效紀錄之後的位置
+     */
+    private int scan(long segmentNumber, MappedByteBuffer mapped) {
+        CRC32C crc = new CRC32C();
+        int position = 0;
+        while (position + HEADER_BYTES <= segmentSize) {
+            int length = mapped.getInt(position);
+            if (length <= 0 || length > MAX_BODY_BYTES || position + HEADER_BYTES + length > segmentSize) {
+                break;
+            }
+            ByteBuffer body = mapped.duplicate();
+            body.position(position + HEADER_BYTES).limit(position + HEADER_BYTES + length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != mapped.getInt(position + 4)) {
+                break;
+            }
+            body.position(body.position() + ORDER_ID_OFFSET);
+            index.put(getString(body), segmentNumber * segmentSize + position, this);
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    /**
+     * 讀取位置上紀錄的訂單編號（索引比對用）
+     */
+    String readOrderId(long position) {
+        ByteBuffer body = view(position);
+        body.position(body.position() + ORDER_ID_OFFSET);
+        return getString(body);
+    }
+
+    private Order read(long position) {
+        ByteBuffer body = view(position);
+        byte version = body.get();
+        if (version != RECORD_VERSION) {
+            throw new IllegalStateException("不支援的冷資料紀錄版本: " + version);
+        }
+        long orderTime = body.getLong();
+        long statusChangedAt = body.getLong();
+        long acceptedAt = body.getLong();
+        long readyAt = body.getLong();
+        long estimatedDelivery = body.getLong();
+        String orderId = getString(body);
+        String customerId = getString(body);
+        String restaurantId = getString(body);
+        String foodItems = getString(body);
+        long totalAmountCents = body.getLong();
+        String address = getString(body);
+        OrderStatus status = STATUSES[body.get()];
+        String deliveryPersonId = getString(body);
+        int lineCount = body.getInt();
+        List<OrderLine> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(new OrderLine(getString(body), getString(body), body.getInt(), body.getLong()));
+        }
+        Order order = Order.restore(orderId, customerId, restaurantId, foodItems, totalAmountCents,
+                address, orderTime, lines);
+        order.setStatus(status);
+        order.setDeliveryPersonId(deliveryPersonId);
+        order.setStatusChangedAtMillis(statusChangedAt);
+        order.setAcceptedAtMillis(acceptedAt);
+        order.setReadyAtMillis(readyAt);
+        order.setEstimatedDeliveryMillis(estimatedDelivery);
+        return order;
+    }
+
+    private ByteBuffer view(long position) {
+        ByteBuffer body = segments[(int) (position / segmentSize)].duplicate();
+        body.position((int) (position % segmentSize) + HEADER_BYTES);
+        return body;
+    }
+
+    private static void putString(ByteBuffer body, String value) {
+        if (value == null) {
+            body.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("冷資料欄位過長: " + bytes.length + " bytes");
+        }
+        body.putShort((short) bytes.length);
+        body.put(bytes);
+    }
+
+    private static String getString(ByteBuffer body) {
+        int length = body.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                indexes.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(indexes);
+        return indexes;
+    }
+
+    private MappedByteBuffer mapSegment(long number) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    /**
+     * 訂單編號索引：開放定址雜湊表，鍵為編號的 64 位元雜湊、值為紀錄位置
+     * 雜湊相同時讀出紀錄比對編號；單一寫入者，查詢端無鎖讀取
+     */
+    static final class IdIndex {
+        private static final float LOAD_FACTOR = 0.6f;
+
+        // [鍵, 值] 交錯排列；鍵為 0 代表空位
+        private volatile AtomicLongArray table = new AtomicLongArray(2 * 1024);
+        private volatile int size;
+
+        int size() {
+            return size;
+        }
+
+        long find(String orderId, ColdOrderStore store) {
+            long key = hash(orderId);
+            AtomicLongArray current = table;
+            int mask = current.length() / 2 - 1;
+            for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+                long existing = current.get(2 * slot);
+                if (existing == 0) {
+                    return -1;
+                }
+                if (existing == key) {
+                    long position = current.get(2 * slot + 1);
+                    if (orderId.equals(store.readOrderId(position))) {
+                        return position;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 只由持有 store 鎖的執行緒呼叫
+         */
+        void put(String orderId, long position, ColdOrderStore store) {
+            if (size + 1 > LOAD_FACTOR * (table.length() / 2)) {
+                resize();
+            }
+            long key = hash(orderId);
+            AtomicLongArray current = table;
+            int mask = current.length() / 2 - 1;
+            for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+                long existing = current.get(2 * slot);
+                if (existing == 0) {
+                    // 先寫值再發布鍵，查詢端看到鍵時一定看得到值
+                    current.set(2 * slot + 1, position);
+                    current.set(2 * slot, key);
+                    size++;
+                    return;
+                }
+                if (existing == key && orderId.equals(store.readOrderId(current.get(2 * slot + 1)))) {
+                    current.set(2 * slot + 1, position);
+                    return;
+                }
+            }
+        }
+
+        private void resize() {
+            AtomicLongArray old = table;
+            AtomicLongArray grown = new AtomicLongArray(old.length() * 2);
+            int mask = grown.length() / 2 - 1;
+            for (int i = 0; i < old.length(); i += 2) {
+                long key = old.get(i);
+                if (key == 0) {
+                    continue;
+                }
+                int slot = (int) key & mask;
+                while (grown.get(2 * slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                grown.set(2 * slot + 1, old.get(i + 1));
+                grown.set(2 * slot, key);
+            }
+            table = grown;
+        }
+
+        private static long hash(String value) {
+            // FNV-1a 後再混合，0 保留給空位
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return h == 0 ? 1 : h;
+        }
+    }
+}
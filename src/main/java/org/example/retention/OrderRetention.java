@@ -0,0 +1,73 @@
+package org.example.retention;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.service.DeliveryService;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定期將結束超過寬限期的訂單移到冷資料，讓記憶體中的訂單數維持在進行中訂單的規模
+ */
+public class OrderRetention implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(OrderRetention.class);
+
+    private final DeliveryService service;
+    private final long gracePeriodMillis;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param gracePeriodMillis 訂單結束後仍留在記憶體中的時間
+     * @param intervalMillis    檢查週期
+     */
+    public OrderRetention(DeliveryService service, long gracePeriodMillis, long intervalMillis) {
+        if (gracePeriodMillis < 0) {
+            throw new IllegalArgumentException("寬限期不可為負數");
+        }
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("檢查週期必須大於 0");
+        }
+        this.service = service;
+        this.gracePeriodMillis = gracePeriodMillis;
+        this.intervalMillis = intervalMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 開始定期移轉
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::safeTick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("訂單移轉啟動，寬限期 {} 毫秒，週期 {} 毫秒", gracePeriodMillis, intervalMillis);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        logger.info("訂單移轉已停止");
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            // 不讓單次失敗終止排程
+            logger.error("移轉訂單到冷資料時發生未預期的錯誤", e);
+        }
+    }
+
+    /**
+     * 執行一次移轉（也可由呼叫端直接觸發）
+     * @return 移出的訂單數
+     */
+    public int tick() {
+        return service.evictTerminalOrders(gracePeriodMillis);
+    }
+}
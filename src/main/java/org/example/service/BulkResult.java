@@ -0,0 +1,75 @@
+package org.example.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 批次操作的逐筆結果，順序與輸入相同
+ * 單筆失敗不影響其他筆：成功的項目有值，失敗的項目記錄原本單筆 API 會拋出的例外
+ */
+public class BulkResult<T> {
+    private final Object[] values;
+    private final Exception[] failures;
+    private int failureCount;
+
+    BulkResult(int size) {
+        this.values = new Object[size];
+        this.failures = new Exception[size];
+    }
+
+    void succeed(int index, T value) {
+        values[index] = value;
+    }
+
+    void fail(int index, Exception failure) {
+        if (failures[index] == null) {
+            failureCount++;
+        }
+        failures[index] = failure;
+        values[index] = null;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isSuccess(int index) {
+        return failures[index] == null;
+    }
+
+    /**
+     * 成功項目的結果，失敗時回傳 null
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) values[index];
+    }
+
+    /**
+     * 失敗項目的例外，成功時回傳 null
+     */
+    public Exception getFailure(int index) {
+        return failures[index];
+    }
+
+    public int getSuccessCount() {
+        return values.length - failureCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * 成功項目的結果（依輸入順序）
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getSuccesses() {
+        return (List<T>) Arrays.stream(values).filter(v -> v != null).toList();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult[size=" + values.length + ", failures=" + failureCount + "]";
+    }
+}
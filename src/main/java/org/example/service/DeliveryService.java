@@ -1,161 +1,823 @@
 package org.example.service;
 
+import org.example.analytics.RestaurantAnalytics;
+import org.example.courier.Courier;
+import org.example.courier.CourierRegistry;
+import org.example.eta.EtaService;
+import org.example.id.OrderIdGenerator;
+import org.example.journal.OrderEventHandler;
+import org.example.journal.OrderJournal;
+import org.example.id.SnowflakeIdGenerator;
+import org.example.menu.Menu;
+import org.example.menu.MenuCatalog;
+import org.example.metrics.ServiceMetrics;
+import org.example.metrics.ServiceOperation;
+import org.example.model.GeoPoint;
+import org.example.model.LineItem;
 import org.example.model.Order;
+import org.example.model.OrderRequest;
 import org.example.model.OrderStatus;
+import org.example.resilience.BreakerPolicy;
+import org.example.resilience.CircuitBreaker;
+import org.example.resilience.CircuitState;
+import org.example.resilience.RetryPolicy;
+import org.example.resilience.RetryScheduler;
+import org.example.restaurant.RestaurantCapacity;
+import org.example.retention.ColdOrderStore;
+import org.example.sla.SlaAction;
+import org.example.sla.SlaMonitor;
+import org.example.sla.SlaPolicy;
+import org.example.snapshot.SnapshotHandler;
+import org.example.snapshot.SnapshotStore;
+import org.example.snapshot.SnapshotWriter;
 import org.example.exception.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * 外送平台服務類別
  * 負責處理訂單流程、餐廳接單、外送員配送等功能
+ * 執行緒安全：訂單存放於 ConcurrentHashMap，狀態轉換以 CAS 一次完成，不需要全域鎖
  */
-public class DeliveryService {
+public class DeliveryService implements AutoCloseable {
     private static final Logger logger = LogManager.getLogger(DeliveryService.class);
 
+    // 自動派單每輪查詢的候選人數與最多重試輪數
+    private static final int AUTO_ASSIGN_CANDIDATES = 8;
+    private static final int AUTO_ASSIGN_ROUNDS = 3;
+
+    private static final String CIRCUIT_OPEN_MESSAGE = "餐廳系統異常，暫停送單";
+
+    /** 預設冪等鍵保留 24 小時，最多 100,000 把 */
+    public static final Duration DEFAULT_IDEMPOTENCY_WINDOW = Duration.ofHours(24);
+    public static final int DEFAULT_IDEMPOTENCY_KEYS = 100_000;
+
+    private static final Set<OrderStatus> ALL_STATUSES = Collections.unmodifiableSet(EnumSet.allOf(OrderStatus.class));
+
     // 模擬資料庫儲存訂單
-    private final Map<String, Order> orders = new HashMap<>();
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+
+    // 依狀態、顧客、餐廳、外送員的次要索引
+    private final OrderIndex index = new OrderIndex();
+
+    // 餐廳營業狀態與接單容量
+    private final Map<String, RestaurantCapacity> restaurants = new ConcurrentHashMap<>();
+
+    // 各餐廳菜單（不可變快照，下單計價時不加鎖讀取；與餐廳位置相同屬於設定，不寫入日誌）
+    private final MenuCatalog menus = new MenuCatalog();
+
+    // 餐廳取餐位置（自動派單時使用）
+    private final Map<String, GeoPoint> restaurantLocations = new ConcurrentHashMap<>();
+
+    // 外送員狀態與位置索引
+    private final CourierRegistry couriers = new CourierRegistry();
+
+    // 訂單編號產生器
+    private final OrderIdGenerator idGenerator;
+
+    // 訂單事件日誌
+    private final OrderJournal journal;
+
+    // 狀態快照，null 表示不使用快照
+    private final SnapshotStore snapshots;
+
+    // 建立訂單在讀取鎖內「寫日誌 + 公開」，快照在寫入鎖內取得日誌位置，
+    // 位置之前的建立事件對應的訂單因此一定已經在 orders 中（單一寫入者模式不使用）
+    private final StampedLock snapshotBarrier = new StampedLock();
+
+    // 綁定的事件迴圈（分片使用）：設定後只有該執行緒寫入本服務，計時器工作也交給它執行；null 表示多執行緒共用
+    private volatile Executor eventLoop;
 
-    // 模擬餐廳狀態
-    private final Map<String, Boolean> restaurantAvailability = new HashMap<>();
+    // 已結束訂單的冷資料，null 表示訂單一直留在記憶體中
+    private final ColdOrderStore coldStore;
 
-    // 模擬外送員狀態
-    private final Map<String, Boolean> deliveryPersonAvailability = new HashMap<>();
+    // 預估送達時間，null 表示不預估
+    private final EtaService eta;
 
-    private final Random random = new Random();
+    // 各狀態停留期限（逾時自動取消或升級通報），null 表示不追蹤
+    private final SlaMonitor sla;
+
+    // 各操作的呼叫次數、例外與延遲，以及訂單、外送員、餐廳的量測值
+    private final ServiceMetrics metrics = new ServiceMetrics();
+
+    // 各餐廳最近 5、15、60 分鐘的即時統計（重啟後由空白開始，不由日誌重建）
+    private final RestaurantAnalytics analytics = new RestaurantAnalytics();
+
+    // 各餐廳接單的斷路器（第一次接單時建立）與狀態轉換次數
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final LongAdder[] breakerTransitions = new LongAdder[CircuitState.values().length];
+    private volatile BreakerPolicy breakerPolicy = BreakerPolicy.defaults();
+
+    // 下單的冪等鍵（只在記憶體中，重啟後清空）
+    private volatile IdempotencyCache idempotency =
+            new IdempotencyCache(DEFAULT_IDEMPOTENCY_WINDOW.toMillis(), DEFAULT_IDEMPOTENCY_KEYS);
+
+    // 非同步接單的重試排程，第一次使用時才建立計時執行緒
+    private volatile RetryScheduler retries;
+
+    private volatile boolean closed;
 
     public DeliveryService() {
+        this(new SnowflakeIdGenerator(0));
+    }
+
+    public DeliveryService(OrderIdGenerator idGenerator) {
+        this(idGenerator, OrderJournal.DISABLED);
+    }
+
+    public DeliveryService(OrderIdGenerator idGenerator, OrderJournal journal) {
+        this(idGenerator, journal, null);
+    }
+
+    /**
+     * 啟動時先載入最新快照，再從快照記錄的位置重播日誌，重建訂單、餐廳與外送員狀態；
+     * 之後的變更都會寫入日誌
+     * @param snapshots 快照存放目錄，null 表示每次都從頭重播日誌
+     */
+    public DeliveryService(OrderIdGenerator idGenerator, OrderJournal journal, SnapshotStore snapshots) {
+        this(idGenerator, journal, snapshots, null);
+    }
+
+    /**
+     * @param coldStore 已結束訂單移出記憶體後的存放處，null 表示不移出
+     */
+    public DeliveryService(OrderIdGenerator idGenerator, OrderJournal journal, SnapshotStore snapshots,
+                           ColdOrderStore coldStore) {
+        this(idGenerator, journal, snapshots, coldStore, null);
+    }
+
+    /**
+     * @param eta 下單與取餐時預估送達時間，null 表示不預估；餐廳需以 setRestaurantLocation 登錄位置
+     */
+    public DeliveryService(OrderIdGenerator idGenerator, OrderJournal journal, SnapshotStore snapshots,
+                           ColdOrderStore coldStore, EtaService eta) {
+        this(idGenerator, journal, snapshots, coldStore, eta, null);
+    }
+
+    /**
+     * @param slaPolicy 各狀態的停留期限，null 或空白表示不追蹤；還原後的進行中訂單由原本的狀態轉換時間起算
+     */
+    public DeliveryService(OrderIdGenerator idGenerator, OrderJournal journal, SnapshotStore snapshots,
+                           ColdOrderStore coldStore, EtaService eta, SlaPolicy slaPolicy) {
+        this.idGenerator = idGenerator;
+        this.journal = journal;
+        this.snapshots = snapshots;
+        this.coldStore = coldStore;
+        this.eta = eta;
+        this.sla = slaPolicy == null || slaPolicy.isEmpty() ? null
+                : new SlaMonitor(slaPolicy, this::onSlaBreach, SlaMonitor.DEFAULT_TICK_MILLIS, this::runTimerTask);
+
+        for (CircuitState state : CircuitState.values()) {
+            breakerTransitions[state.ordinal()] = new LongAdder();
+        }
+
         // 初始化一些測試資料
-        restaurantAvailability.put("R001", true);
-        restaurantAvailability.put("R002", false); // 這家餐廳目前不營業
-        restaurantAvailability.put("R003", true);
+        restaurants.put("R001", RestaurantCapacity.unlimited("R001", true));
+        restaurants.put("R002", RestaurantCapacity.unlimited("R002", false)); // 這家餐廳目前不營業
+        restaurants.put("R003", RestaurantCapacity.unlimited("R003", true));
+
+        couriers.register("D001", true);
+        couriers.register("D002", true);
+        couriers.register("D003", false);
 
-        deliveryPersonAvailability.put("D001", true);
-        deliveryPersonAvailability.put("D002", true);
-        deliveryPersonAvailability.put("D003", false);
+        recover();
+        if (sla != null) {
+            for (Order order : orders.values()) {
+                if (!order.getStatus().isTerminal()) {
+                    sla.track(order);
+                }
+            }
+        }
+        registerGauges();
+    }
+
+    private void registerGauges() {
+        for (OrderStatus status : OrderStatus.values()) {
+            metrics.registerGauge("orders." + status.name(), () -> index.countByStatus(status));
+        }
+        metrics.registerGauge("orders.inMemory", orders::size);
+        metrics.registerGauge("menu.restaurants", () -> menus.getRestaurantIds().size());
+        metrics.registerGauge("idempotency.keys", () -> idempotency.size());
+        metrics.registerGauge("idempotency.replays", () -> idempotency.getReplays());
+        metrics.registerGauge("idempotency.evicted", () -> idempotency.getEvicted());
+        metrics.registerGauge("couriers.available", couriers::countAvailable);
+        metrics.registerGauge("restaurants.open", () -> {
+            long open = 0;
+            for (RestaurantCapacity restaurant : restaurants.values()) {
+                if (restaurant.isOpen()) {
+                    open++;
+                }
+            }
+            return open;
+        });
+        if (eta != null) {
+            metrics.registerGauge("eta.geocodeHits", eta.getGeocoder()::getHits);
+            metrics.registerGauge("eta.geocodeMisses", eta.getGeocoder()::getMisses);
+            metrics.registerGauge("eta.precomputedRestaurants", eta.getZones()::precomputedCount);
+        }
+        metrics.registerGauge("breaker.open", () -> countBreakers(CircuitState.OPEN));
+        metrics.registerGauge("breaker.halfOpen", () -> countBreakers(CircuitState.HALF_OPEN));
+        metrics.registerGauge("breaker.opened", breakerTransitions[CircuitState.OPEN.ordinal()]::sum);
+        metrics.registerGauge("breaker.closed", breakerTransitions[CircuitState.CLOSED.ordinal()]::sum);
+        metrics.registerGauge("breaker.rejected", () -> {
+            long rejected = 0;
+            for (CircuitBreaker breaker : breakers.values()) {
+                rejected += breaker.getRejected();
+            }
+            return rejected;
+        });
+        metrics.registerGauge("retry.scheduled", () -> retries == null ? 0 : retries.getScheduled());
+        metrics.registerGauge("retry.exhausted", () -> retries == null ? 0 : retries.getExhausted());
+        if (sla != null) {
+            metrics.registerGauge("sla.activeTimers", sla::getActiveTimers);
+            metrics.registerGauge("sla.autoCancelled", () -> sla.getBreaches(SlaAction.AUTO_CANCEL));
+            metrics.registerGauge("sla.escalated", () -> sla.getBreaches(SlaAction.ESCALATE));
+        }
     }
 
     /**
-     * 顧客下單
+     * 顧客下單（自由文字品項，金額由呼叫端提供）
+     * 已登錄菜單的餐廳只接受依菜單品項下單
      * @return 訂單物件
      */
     public Order createOrder(String customerId, String restaurantId, String foodItems,
                              double totalAmount, String deliveryAddress) {
-        try {
-            logger.info("顧客 {} 正在建立訂單，餐廳: {}, 品項: {}, 金額: {}",
-                    customerId, restaurantId, foodItems, totalAmount);
+        return createOrder(customerId, restaurantId, foodItems, totalAmount, null, deliveryAddress);
+    }
 
-            // 驗證訂單金額 (Unchecked Exception 可能發生的地方)
-            if (totalAmount <= 0) {
-                throw new IllegalArgumentException("訂單金額必須大於 0");
+    /**
+     * 顧客依菜單品項下單：品項由伺服器依餐廳目前的菜單驗證，品名、單價與金額一律以菜單為準
+     * @throws IllegalArgumentException 餐廳沒有菜單、品項不存在或售完、數量不正確、地址為空
+     */
+    public Order createOrder(String customerId, String restaurantId, List<LineItem> items, String deliveryAddress) {
+        return createOrder(customerId, restaurantId, null, 0, items, deliveryAddress);
+    }
+
+    /**
+     * 可安全重試的下單：同一位顧客以同一個冪等鍵在時間窗內重複提交時，回傳第一次建立的訂單，不會重複建立
+     * 同時送達的重複提交只有一筆會建立訂單，其餘等待並取得同一筆；第一次建立失敗時鍵會被移除，可重新提交
+     * @param idempotencyKey 由用戶端產生（例如 UUID），null 或空字串時等同一般下單
+     * @throws IllegalArgumentException 內容不正確，或同一把鍵用於內容不同的訂單
+     */
+    public Order createOrder(String idempotencyKey, String customerId, String restaurantId, String foodItems,
+                             double totalAmount, String deliveryAddress) {
+        String request = canonicalRequest(restaurantId, foodItems, Order.toCents(totalAmount), deliveryAddress);
+        return createOnce(idempotencyKey, customerId, request,
+                () -> createOrder(customerId, restaurantId, foodItems, totalAmount, null, deliveryAddress));
+    }
+
+    /**
+     * 可安全重試的依菜單下單，冪等鍵的規則同上
+     */
+    public Order createOrder(String idempotencyKey, String customerId, String restaurantId, List<LineItem> items,
+                             String deliveryAddress) {
+        List<Object> fields = new ArrayList<>();
+        fields.add(restaurantId);
+        fields.add(deliveryAddress);
+        fields.add(items == null ? null : items.size());
+        if (items != null) {
+            for (LineItem item : items) {
+                fields.add(item == null ? null : item.getItemId());
+                fields.add(item == null ? null : item.getQuantity());
+            }
+        }
+        String request = canonicalRequest(fields.toArray());
+        return createOnce(idempotencyKey, customerId, request,
+                () -> createOrder(customerId, restaurantId, null, 0, items, deliveryAddress));
+    }
+
+    /**
+     * 冪等鍵比對用的請求內容：每個欄位以「長度:內容」串接（null 記為 -），內容不同的請求不會得到相同的字串
+     */
+    private static String canonicalRequest(Object... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (Object field : fields) {
+            if (field == null) {
+                sb.append('-');
+            } else {
+                String value = field.toString();
+                sb.append(value.length()).append(':').append(value);
+            }
+        }
+        return sb.toString();
+    }
+
+    private Order createOnce(String idempotencyKey, String customerId, String request, Supplier<Order> create) {
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return create.get();
+        }
+        // 鍵以顧客區隔，不同顧客碰巧使用相同的鍵也不會拿到別人的訂單
+        String key = customerId + '\u0000' + idempotencyKey;
+        IdempotencyCache cache = idempotency;
+        CompletableFuture<Order> pending = new CompletableFuture<>();
+        CompletableFuture<Order> result = cache.claim(key, request, System.currentTimeMillis(), pending);
+        if (result != pending) {
+            logger.info("顧客 {} 重複提交冪等鍵 {}，回傳原訂單", customerId, idempotencyKey);
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
             }
+        }
+        try {
+            Order order = create.get();
+            pending.complete(order);
+            return order;
+        } catch (Throwable t) {
+            // 包含 Error：結果一定會完成，等待同一把鍵的重複提交不會永遠阻塞
+            cache.abandon(key, pending, t);
+            throw t;
+        }
+    }
+
+    /**
+     * 更換冪等鍵的時間窗與數量上限；既有的鍵全部清除
+     */
+    public void configureIdempotency(Duration window, int maxKeys) {
+        idempotency = new IdempotencyCache(window.toMillis(), maxKeys);
+        logger.info("冪等鍵設定更新: 保留 {} 秒, 最多 {} 把", Unbox.box(window.toSeconds()), Unbox.box(maxKeys));
+    }
 
-            // 驗證地址不為空
-            if (deliveryAddress == null || deliveryAddress.trim().isEmpty()) {
-                throw new IllegalArgumentException("外送地址不可為空");
+    private Order createOrder(String customerId, String restaurantId, String foodItems, double totalAmount,
+                              List<LineItem> items, String deliveryAddress) {
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            if (items == null) {
+                logger.info("顧客 {} 正在建立訂單，餐廳: {}, 品項: {}, 金額: {}",
+                        customerId, restaurantId, foodItems, Unbox.box(totalAmount));
+            } else {
+                logger.info("顧客 {} 正在依菜單建立訂單，餐廳: {}, 品項: {}", customerId, restaurantId, items);
             }
 
-            String orderId = "ORD" + System.currentTimeMillis();
-            Order order = new Order(orderId, customerId, restaurantId,
-                    foodItems, totalAmount, deliveryAddress);
+            // 驗證金額與地址、依菜單計價 (Unchecked Exception 可能發生的地方)
+            Order order = newOrder(customerId, restaurantId, foodItems, totalAmount, items, deliveryAddress);
+            String orderId = order.getOrderId();
+            if (eta != null) {
+                order.setEstimatedDeliveryMillis(eta.estimateAtCreation(restaurantId, deliveryAddress,
+                        order.getOrderTimeMillis()));
+            }
 
-            orders.put(orderId, order);
+            // 先寫日誌再公開訂單：其他執行緒看得到訂單（並轉換狀態）時，建立事件一定已在日誌中；
+            // 寫入日誌失敗時訂單從未公開。落盤等待移到屏障外，快照不必等待進行中的 fsync，
+            // 呼叫端仍在落盤後才取得訂單（其他執行緒的轉換事件在其後，會等待到更後面的位置）
+            boolean shared = eventLoop == null;
+            long end;
+            long stamp = shared ? snapshotBarrier.readLock() : 0;
+            try {
+                end = journal.writeOrderCreated(order);
+                if (orders.putIfAbsent(orderId, order) != null) {
+                    throw new IllegalStateException("訂單編號重複: " + orderId);
+                }
+                index.add(order);
+            } finally {
+                if (shared) {
+                    snapshotBarrier.unlockRead(stamp);
+                }
+            }
+            journal.awaitDurable(end);
+            analytics.onOrderCreated(restaurantId, order.getOrderTimeMillis());
+            trackSla(order);
 
             logger.info("訂單建立成功: {}", order);
             return order;
 
         } catch (IllegalArgumentException e) {
-            // 處理 Unchecked Exception
-            logger.error("建立訂單時發生參數錯誤: {}", e.getMessage(), e);
+            // 處理 Unchecked Exception（驗證失敗屬於預期結果，不記錄堆疊）
+            failure = e;
+            logger.warn("建立訂單時發生參數錯誤: {}", e.getMessage());
             throw e; // 重新拋出讓呼叫端處理
         } catch (Exception e) {
-            // 捕捉其他意外錯誤
+            // 捕捉其他意外錯誤（指標記錄原本的例外類型）
+            failure = e;
             logger.error("建立訂單時發生未預期的錯誤", e);
             throw new RuntimeException("系統錯誤，請稍後再試", e);
+        } finally {
+            metrics.record(ServiceOperation.CREATE_ORDER, start, failure);
+        }
+    }
+
+    /**
+     * 檢查下單內容並建立訂單（尚未公開）；items 不為 null 時依菜單計價
+     * @throws IllegalArgumentException 內容不正確，或內容過長無法寫入日誌
+     */
+    private Order newOrder(String customerId, String restaurantId, String foodItems, double totalAmount,
+                           List<LineItem> items, String deliveryAddress) {
+        if (deliveryAddress == null || deliveryAddress.trim().isEmpty()) {
+            throw new IllegalArgumentException("外送地址不可為空");
+        }
+        Order order;
+        if (items != null) {
+            order = new Order(idGenerator.nextOrderId(), customerId, restaurantId,
+                    menus.price(restaurantId, items), deliveryAddress);
+        } else {
+            // 金額以分保存，不足一分視為 0
+            if (Order.toCents(totalAmount) <= 0) {
+                throw new IllegalArgumentException("訂單金額必須大於 0");
+            }
+            if (menus.hasMenu(restaurantId)) {
+                throw new IllegalArgumentException("餐廳 " + restaurantId + " 已登錄菜單，請以菜單品項下單");
+            }
+            order = new Order(idGenerator.nextOrderId(), customerId, restaurantId, foodItems, totalAmount,
+                    deliveryAddress);
+        }
+        journal.checkOrderCreated(order);
+        return order;
+    }
+
+    /**
+     * 批次下單（合作平台一次送來數百筆）
+     * 逐筆驗證後一次寫入日誌、只記一行日誌；內容錯誤的項目記為 IllegalArgumentException，其餘照常建立
+     * @return 逐筆結果，成功項目為建立的訂單
+     */
+    public BulkResult<Order> createOrders(List<OrderRequest> requests) {
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            BulkResult<Order> result = new BulkResult<>(requests.size());
+            List<Order> created = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                OrderRequest request = requests.get(i);
+                if (request == null) {
+                    result.fail(i, new IllegalArgumentException("訂單內容不可為空"));
+                    continue;
+                }
+                Order order;
+                try {
+                    order = newOrder(request.getCustomerId(), request.getRestaurantId(), request.getFoodItems(),
+                            request.getTotalAmount(), request.getLineItems(), request.getDeliveryAddress());
+                } catch (IllegalArgumentException e) {
+                    result.fail(i, e);
+                    continue;
+                }
+                if (eta != null) {
+                    order.setEstimatedDeliveryMillis(eta.estimateAtCreation(request.getRestaurantId(),
+                            request.getDeliveryAddress(), order.getOrderTimeMillis()));
+                }
+                created.add(order);
+                result.succeed(i, order);
+            }
+
+            // 與 createOrder 相同：在快照屏障內先寫日誌再公開訂單，快照不會漏掉整批寫入日誌後才公開的訂單；
+            // 落盤等待在屏障外
+            boolean shared = eventLoop == null;
+            long end;
+            long stamp = shared ? snapshotBarrier.readLock() : 0;
+            try {
+                end = journal.writeOrdersCreated(created);
+                for (Order order : created) {
+                    if (orders.putIfAbsent(order.getOrderId(), order) != null) {
+                        throw new IllegalStateException("訂單編號重複: " + order.getOrderId());
+                    }
+                    index.add(order);
+                }
+            } finally {
+                if (shared) {
+                    snapshotBarrier.unlockRead(stamp);
+                }
+            }
+            journal.awaitDurable(end);
+            for (Order order : created) {
+                analytics.onOrderCreated(order.getRestaurantId(), order.getOrderTimeMillis());
+                trackSla(order);
+            }
+
+            logger.info("批次建立訂單: 成功 {} 筆, 失敗 {} 筆",
+                    Unbox.box(result.getSuccessCount()), Unbox.box(result.getFailureCount()));
+            return result;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.CREATE_ORDERS, start, failure);
         }
     }
 
     /**
      * 餐廳接單
-     * @throws RestaurantBusyException 餐廳忙碌或不可用
+     * 接單需要取得餐廳的廚房名額與接單令牌，名額在餐點完成或訂單取消時自動釋放
+     * @throws RestaurantBusyException 餐廳忙碌、容量已滿或不可用
      * @throws OrderNotFoundException 訂單不存在
      * @throws InvalidOrderStatusException 訂單狀態不正確
      */
     public void acceptOrder(String orderId, String restaurantId)
             throws RestaurantBusyException, OrderNotFoundException, InvalidOrderStatusException {
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            logger.info("餐廳 {} 嘗試接受訂單: {}", restaurantId, orderId);
 
-        logger.info("餐廳 {} 嘗試接受訂單: {}", restaurantId, orderId);
+            // 檢查訂單是否存在
+            Order order = orders.get(orderId);
+            if (order == null) {
+                logger.error("訂單不存在: {}", orderId);
+                throw new OrderNotFoundException(orderId);
+            }
 
-        // 檢查訂單是否存在
-        Order order = orders.get(orderId);
-        if (order == null) {
-            logger.error("訂單不存在: {}", orderId);
-            throw new OrderNotFoundException(orderId);
-        }
+            // 檢查訂單狀態（快速失敗，實際轉換仍由下方 CAS 保證）
+            OrderStatus current = order.getStatus();
+            if (!current.canTransitionTo(OrderStatus.ACCEPTED)) {
+                logger.warn("訂單 {} 當前狀態為 {}，無法接單", orderId, current);
+                throw new InvalidOrderStatusException(orderId, current, OrderStatus.ACCEPTED);
+            }
 
-        // 檢查訂單狀態
-        if (order.getStatus() != OrderStatus.PENDING) {
-            logger.warn("訂單 {} 當前狀態為 {}，無法接單", orderId, order.getStatus());
-            throw new InvalidOrderStatusException(orderId, order.getStatus(), OrderStatus.ACCEPTED);
-        }
+            // 名額記在訂單所屬餐廳，釋放時才能對應
+            if (!order.getRestaurantId().equals(restaurantId)) {
+                throw new IllegalArgumentException("訂單 " + orderId + " 不屬於餐廳 " + restaurantId);
+            }
+
+            // 斷路中直接拒絕，不再把訂單送到餐廳系統
+            RestaurantCapacity restaurant = restaurants.get(restaurantId);
+            CircuitBreaker breaker = restaurant == null ? null : breakerFor(restaurantId);
+            if (breaker != null && !breaker.tryAcquirePermission()) {
+                logger.warn("餐廳 {} 斷路中，暫停送單", restaurantId);
+                throw new RestaurantBusyException(restaurantId, CIRCUIT_OPEN_MESSAGE);
+            }
 
-        // 檢查餐廳是否可用
-        Boolean isAvailable = restaurantAvailability.get(restaurantId);
-        if (isAvailable == null || !isAvailable) {
-            logger.warn("餐廳 {} 目前無法接單（可能暫停營業或訂單已滿）", restaurantId);
-            throw new RestaurantBusyException(restaurantId, "餐廳目前無法接單");
+            // 檢查餐廳是否可用並佔用廚房名額
+            RestaurantCapacity.Admission admission = restaurant == null
+                    ? RestaurantCapacity.Admission.CLOSED : restaurant.tryAdmit();
+            if (admission != RestaurantCapacity.Admission.ADMITTED) {
+                if (breaker != null) {
+                    breaker.releasePermission();
+                }
+                logger.warn("餐廳 {} 目前無法接單: {}", restaurantId, admission.getDescription());
+                throw new RestaurantBusyException(restaurantId, admission.getDescription());
+            }
+
+            // 模擬隨機失敗情況（例如系統延遲、網路問題）
+            if (ThreadLocalRandom.current().nextInt(10) < 2) { // 20% 機率失敗
+                restaurant.release();
+                breaker.onFailure();
+                logger.error("餐廳 {} 接單時發生系統錯誤", restaurantId);
+                throw new RestaurantBusyException(restaurantId, "系統忙碌中，請稍後再試", true);
+            }
+            breaker.onSuccess();
+
+            try {
+                transition(order, OrderStatus.ACCEPTED);
+            } catch (InvalidOrderStatusException e) {
+                restaurant.release();
+                throw e;
+            }
+            logger.info("餐廳 {} 成功接受訂單: {}", restaurantId, order);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.ACCEPT_ORDER, start, failure);
         }
+    }
 
-        // 模擬隨機失敗情況（例如系統延遲、網路問題）
-        if (random.nextInt(10) < 2) { // 20% 機率失敗
-            logger.error("餐廳 {} 接單時發生系統錯誤", restaurantId);
-            throw new RestaurantBusyException(restaurantId, "系統忙碌中，請稍後再試");
+    /**
+     * 非同步接單：餐廳端暫時性錯誤時依 RetryPolicy.defaults() 延遲後重試
+     */
+    public CompletableFuture<Void> acceptOrderAsync(String orderId, String restaurantId) {
+        return acceptOrderAsync(orderId, restaurantId, RetryPolicy.defaults());
+    }
+
+    /**
+     * 非同步接單：只重試餐廳端暫時性錯誤，重試排入計時器，等待期間不佔用執行緒
+     * 斷路中、容量已滿、訂單狀態不符等其他失敗立即以該例外完成
+     */
+    public CompletableFuture<Void> acceptOrderAsync(String orderId, String restaurantId, RetryPolicy policy) {
+        return retryScheduler().execute(() -> {
+            acceptOrder(orderId, restaurantId);
+            return null;
+        }, e -> e instanceof RestaurantBusyException busy && busy.isTransientFailure(), policy);
+    }
+
+    private RetryScheduler retryScheduler() {
+        RetryScheduler scheduler = retries;
+        if (scheduler == null) {
+            synchronized (this) {
+                if (closed) {
+                    throw new IllegalStateException("服務已關閉");
+                }
+                scheduler = retries;
+                if (scheduler == null) {
+                    scheduler = new RetryScheduler(RetryScheduler.DEFAULT_TICK_MILLIS, this::runTimerTask);
+                    retries = scheduler;
+                }
+            }
         }
+        return scheduler;
+    }
+
+    /**
+     * 餐廳批次接單（平板一次確認多筆訂單）
+     * 先逐筆檢查訂單，再一次向餐廳取得所需的廚房名額與接單令牌；名額不足的項目記為 RestaurantBusyException
+     * 單筆失敗的類型與 acceptOrder 相同：OrderNotFoundException、InvalidOrderStatusException、
+     * RestaurantBusyException、IllegalArgumentException（訂單不屬於該餐廳）
+     * @return 逐筆結果，成功項目為接單後的訂單
+     */
+    public BulkResult<Order> acceptOrders(String restaurantId, List<String> orderIds) {
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            BulkResult<Order> result = new BulkResult<>(orderIds.size());
+            List<Integer> candidates = new ArrayList<>(orderIds.size());
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < orderIds.size(); i++) {
+                String orderId = orderIds.get(i);
+                Order order = orders.get(orderId);
+                if (order == null) {
+                    result.fail(i, new OrderNotFoundException(orderId));
+                    continue;
+                }
+                OrderStatus current = order.getStatus();
+                if (!current.canTransitionTo(OrderStatus.ACCEPTED)) {
+                    result.fail(i, new InvalidOrderStatusException(orderId, current, OrderStatus.ACCEPTED));
+                    continue;
+                }
+                if (!order.getRestaurantId().equals(restaurantId)) {
+                    result.fail(i, new IllegalArgumentException("訂單 " + orderId + " 不屬於餐廳 " + restaurantId));
+                    continue;
+                }
+                result.succeed(i, order);
+                candidates.add(i);
+            }
+
+            // 與單筆接單相同：每筆各取得一次斷路器許可並各回報一次結果，半開時只有試探名額內的訂單會送出
+            RestaurantCapacity restaurant = restaurants.get(restaurantId);
+            CircuitBreaker breaker = restaurant == null ? null : breakerFor(restaurantId);
+            if (breaker != null) {
+                for (Iterator<Integer> it = candidates.iterator(); it.hasNext(); ) {
+                    int i = it.next();
+                    if (!breaker.tryAcquirePermission()) {
+                        result.fail(i, new RestaurantBusyException(restaurantId, CIRCUIT_OPEN_MESSAGE));
+                        it.remove();
+                    }
+                }
+            }
+
+            // 整批只向餐廳取得一次名額與令牌；沒有取得名額的項目歸還許可
+            int admitted = 0;
+            String denial = RestaurantCapacity.Admission.CLOSED.getDescription();
+            if (restaurant != null && !candidates.isEmpty()) {
+                RestaurantCapacity.BatchAdmission admission = restaurant.tryAdmit(candidates.size());
+                admitted = admission.getAdmitted();
+                denial = admission.getDenial().getDescription();
+            }
+
+            List<String> accepted = new ArrayList<>(admitted);
+            int unused = 0;
+            for (int k = 0; k < candidates.size(); k++) {
+                int i = candidates.get(k);
+                if (k >= admitted) {
+                    if (breaker != null) {
+                        breaker.releasePermission();
+                    }
+                    result.fail(i, new RestaurantBusyException(restaurantId, denial));
+                    continue;
+                }
+                // 模擬隨機失敗情況，與單筆接單相同在取得名額之後發生
+                if (random.nextInt(10) < 2) {
+                    unused++;
+                    breaker.onFailure();
+                    result.fail(i, new RestaurantBusyException(restaurantId, "系統忙碌中，請稍後再試", true));
+                    continue;
+                }
+                breaker.onSuccess();
+                try {
+                    applyTransition(result.get(i), OrderStatus.ACCEPTED);
+                    accepted.add(orderIds.get(i));
+                } catch (InvalidOrderStatusException e) {
+                    unused++;
+                    result.fail(i, e);
+                }
+            }
+            if (unused > 0) {
+                restaurant.release(unused);
+            }
+            journal.appendStatusChanges(accepted, OrderStatus.ACCEPTED);
 
-        order.setStatus(OrderStatus.ACCEPTED);
-        logger.info("餐廳 {} 成功接受訂單: {}", restaurantId, order);
+            logger.info("餐廳 {} 批次接單: 成功 {} 筆, 失敗 {} 筆", restaurantId,
+                    Unbox.box(result.getSuccessCount()), Unbox.box(result.getFailureCount()));
+            return result;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.ACCEPT_ORDERS, start, failure);
+        }
     }
 
     /**
      * 餐廳準備餐點
      */
     public void prepareFood(String orderId) throws OrderNotFoundException, InvalidOrderStatusException {
-        logger.info("開始準備訂單: {}", orderId);
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            logger.info("開始準備訂單: {}", orderId);
 
-        Order order = orders.get(orderId);
-        if (order == null) {
-            throw new OrderNotFoundException(orderId);
-        }
+            Order order = orders.get(orderId);
+            if (order == null) {
+                throw new OrderNotFoundException(orderId);
+            }
 
-        if (order.getStatus() != OrderStatus.ACCEPTED) {
-            throw new InvalidOrderStatusException(orderId, order.getStatus(), OrderStatus.PREPARING);
+            transition(order, OrderStatus.PREPARING);
+            logger.info("訂單 {} 進入準備狀態", orderId);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.PREPARE_FOOD, start, failure);
         }
-
-        order.setStatus(OrderStatus.PREPARING);
-        logger.info("訂單 {} 進入準備狀態", orderId);
     }
 
     /**
      * 餐點準備完成
      */
     public void foodReady(String orderId) throws OrderNotFoundException, InvalidOrderStatusException {
-        logger.info("訂單餐點準備完成: {}", orderId);
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            logger.info("訂單餐點準備完成: {}", orderId);
 
-        Order order = orders.get(orderId);
-        if (order == null) {
-            throw new OrderNotFoundException(orderId);
-        }
+            Order order = orders.get(orderId);
+            if (order == null) {
+                throw new OrderNotFoundException(orderId);
+            }
 
-        if (order.getStatus() != OrderStatus.PREPARING) {
-            throw new InvalidOrderStatusException(orderId, order.getStatus(), OrderStatus.READY);
+            transition(order, OrderStatus.READY);
+            releaseKitchenSlot(order);
+            logger.info("訂單 {} 已完成準備，等待外送員取餐", orderId);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.FOOD_READY, start, failure);
         }
+    }
+
+    /**
+     * 批次標記餐點完成；廚房名額依餐廳合併後一次釋放
+     * @return 逐筆結果，失敗項目為 OrderNotFoundException 或 InvalidOrderStatusException
+     */
+    public BulkResult<Order> foodReadyAll(List<String> orderIds) {
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            BulkResult<Order> result = new BulkResult<>(orderIds.size());
+            List<String> ready = new ArrayList<>(orderIds.size());
+            Map<String, Integer> releases = new HashMap<>();
+            for (int i = 0; i < orderIds.size(); i++) {
+                String orderId = orderIds.get(i);
+                Order order = orders.get(orderId);
+                if (order == null) {
+                    result.fail(i, new OrderNotFoundException(orderId));
+                    continue;
+                }
+                try {
+                    applyTransition(order, OrderStatus.READY);
+                } catch (InvalidOrderStatusException e) {
+                    result.fail(i, e);
+                    continue;
+                }
+                releases.merge(order.getRestaurantId(), 1, Integer::sum);
+                ready.add(orderId);
+                result.succeed(i, order);
+            }
+            releaseKitchenSlots(releases);
+            journal.appendStatusChanges(ready, OrderStatus.READY);
 
-        order.setStatus(OrderStatus.READY);
-        logger.info("訂單 {} 已完成準備，等待外送員取餐", orderId);
+            logger.info("批次完成餐點: 成功 {} 筆, 失敗 {} 筆",
+                    Unbox.box(result.getSuccessCount()), Unbox.box(result.getFailureCount()));
+            return result;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.FOOD_READY_ALL, start, failure);
+        }
     }
 
     /**
@@ -164,109 +826,834 @@ public class DeliveryService {
      */
     public void assignDeliveryPerson(String orderId, String deliveryPersonId)
             throws OrderNotFoundException, InvalidOrderStatusException, DeliveryPersonUnavailableException {
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            logger.info("外送員 {} 嘗試接受訂單: {}", deliveryPersonId, orderId);
 
-        logger.info("外送員 {} 嘗試接受訂單: {}", deliveryPersonId, orderId);
+            Order order = orders.get(orderId);
+            if (order == null) {
+                throw new OrderNotFoundException(orderId);
+            }
 
-        Order order = orders.get(orderId);
-        if (order == null) {
-            throw new OrderNotFoundException(orderId);
-        }
+            OrderStatus current = order.getStatus();
+            if (!current.canTransitionTo(OrderStatus.PICKED_UP)) {
+                logger.warn("訂單 {} 尚未準備完成，無法派送", orderId);
+                throw new InvalidOrderStatusException(orderId, current, OrderStatus.PICKED_UP);
+            }
 
-        if (order.getStatus() != OrderStatus.READY) {
-            logger.warn("訂單 {} 尚未準備完成，無法派送", orderId);
-            throw new InvalidOrderStatusException(orderId, order.getStatus(), OrderStatus.PICKED_UP);
-        }
+            // 原子性佔用外送員（可接單 -> 忙碌），同一位外送員只會被一筆訂單搶到
+            if (!couriers.tryClaim(deliveryPersonId)) {
+                logger.warn("外送員 {} 目前不可用", deliveryPersonId);
+                throw new DeliveryPersonUnavailableException(orderId, "外送員目前不可用");
+            }
 
-        // 檢查外送員是否可用
-        Boolean isAvailable = deliveryPersonAvailability.get(deliveryPersonId);
-        if (isAvailable == null || !isAvailable) {
-            logger.warn("外送員 {} 目前不可用", deliveryPersonId);
-            throw new DeliveryPersonUnavailableException(orderId, "外送員目前不可用");
+            assignClaimedCourier(order, current, deliveryPersonId);
+            logger.info("外送員 {} 已取餐，開始配送訂單: {}", deliveryPersonId, orderId);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.ASSIGN_DELIVERY_PERSON, start, failure);
         }
+    }
+
+    /**
+     * 自動派單：由餐廳位置找出最近的可用外送員並原子性佔用
+     * @return 被指派的外送員編號
+     * @throws DeliveryPersonUnavailableException 附近沒有可用外送員或餐廳位置未知
+     */
+    public String autoAssign(String orderId)
+            throws OrderNotFoundException, InvalidOrderStatusException, DeliveryPersonUnavailableException {
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                throw new OrderNotFoundException(orderId);
+            }
+
+            OrderStatus current = order.getStatus();
+            if (!current.canTransitionTo(OrderStatus.PICKED_UP)) {
+                logger.warn("訂單 {} 尚未準備完成，無法派送", orderId);
+                throw new InvalidOrderStatusException(orderId, current, OrderStatus.PICKED_UP);
+            }
+
+            GeoPoint pickup = restaurantLocations.get(order.getRestaurantId());
+            if (pickup == null) {
+                logger.warn("餐廳 {} 沒有登錄位置，無法自動派單", order.getRestaurantId());
+                throw new DeliveryPersonUnavailableException(orderId, "餐廳位置未知，無法自動派單");
+            }
 
-        order.setDeliveryPersonId(deliveryPersonId);
-        order.setStatus(OrderStatus.PICKED_UP);
-        deliveryPersonAvailability.put(deliveryPersonId, false); // 標記為忙碌
+            // 候選人可能同時被其他訂單搶走，搶不到就重新查詢
+            for (int round = 0; round < AUTO_ASSIGN_ROUNDS; round++) {
+                List<Courier> candidates = couriers.findNearestAvailable(pickup, AUTO_ASSIGN_CANDIDATES);
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                for (Courier courier : candidates) {
+                    if (courier.tryClaim()) {
+                        String deliveryPersonId = courier.getDeliveryPersonId();
+                        assignClaimedCourier(order, current, deliveryPersonId);
+                        logger.info("自動派單：外送員 {} 已取餐，開始配送訂單: {}", deliveryPersonId, orderId);
+                        return deliveryPersonId;
+                    }
+                }
+            }
 
-        logger.info("外送員 {} 已取餐，開始配送訂單: {}", deliveryPersonId, orderId);
+            logger.warn("訂單 {} 附近沒有可用的外送員", orderId);
+            throw new DeliveryPersonUnavailableException(orderId, "附近沒有可用的外送員");
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.AUTO_ASSIGN, start, failure);
+        }
+    }
+
+    /**
+     * 將已佔用的外送員指派給訂單；訂單已被其他請求處理時歸還外送員
+     */
+    private void assignClaimedCourier(Order order, OrderStatus expected, String deliveryPersonId)
+            throws InvalidOrderStatusException {
+        if (!order.compareAndAssignDeliveryPerson(deliveryPersonId, expected, OrderStatus.PICKED_UP)) {
+            couriers.release(deliveryPersonId);
+            logger.warn("訂單 {} 已被其他請求處理，無法派送", order.getOrderId());
+            throw new InvalidOrderStatusException(order.getOrderId(), order.getStatus(), OrderStatus.PICKED_UP);
+        }
+        index.onStatusChanged(order, expected, OrderStatus.PICKED_UP);
+        journal.appendStatusChanged(order.getOrderId(), OrderStatus.PICKED_UP, deliveryPersonId);
+        trackSla(order);
+        if (eta != null) {
+            // 取餐後只剩行駛時間
+            order.setEstimatedDeliveryMillis(eta.estimateAtPickup(order.getRestaurantId(),
+                    order.getDeliveryAddress(), order.getStatusChangedAtMillis()));
+        }
     }
 
     /**
      * 完成配送
      */
     public void completeDelivery(String orderId) throws OrderNotFoundException, InvalidOrderStatusException {
-        logger.info("嘗試完成訂單配送: {}", orderId);
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            logger.info("嘗試完成訂單配送: {}", orderId);
+
+            Order order = orders.get(orderId);
+            if (order == null) {
+                throw new OrderNotFoundException(orderId);
+            }
+
+            transition(order, OrderStatus.DELIVERED);
 
-        Order order = orders.get(orderId);
-        if (order == null) {
-            throw new OrderNotFoundException(orderId);
+            // 記錄實際送達與預估的差距（正數表示晚到）
+            long estimated = order.getEstimatedDeliveryMillis();
+            if (estimated != EtaService.NO_ESTIMATE) {
+                logger.debug("訂單 {} 實際送達與預估相差 {} 秒", orderId,
+                        Unbox.box((order.getStatusChangedAtMillis() - estimated) / 1000));
+            }
+
+            // 釋放外送員
+            if (order.getDeliveryPersonId() != null) {
+                couriers.release(order.getDeliveryPersonId());
+            }
+
+            logger.info("訂單 {} 配送完成！外送員: {}", orderId, order.getDeliveryPersonId());
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.COMPLETE_DELIVERY, start, failure);
         }
+    }
+
+    /**
+     * 取消訂單
+     */
+    public void cancelOrder(String orderId, String reason)
+            throws OrderNotFoundException, InvalidOrderStatusException {
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            logger.warn("收到訂單取消請求: {}, 原因: {}", orderId, reason);
 
-        if (order.getStatus() != OrderStatus.PICKED_UP) {
-            throw new InvalidOrderStatusException(orderId, order.getStatus(), OrderStatus.DELIVERED);
+            Order order = orders.get(orderId);
+            if (order == null) {
+                throw new OrderNotFoundException(orderId);
+            }
+
+            // 已配送或已取消的訂單不能取消
+            OrderStatus previous = transition(order, OrderStatus.CANCELLED);
+
+            // 還在廚房中的訂單釋放餐廳名額
+            if (previous == OrderStatus.ACCEPTED || previous == OrderStatus.PREPARING) {
+                releaseKitchenSlot(order);
+            }
+
+            // 如果外送員已接單，需要釋放外送員
+            if (previous == OrderStatus.PICKED_UP && order.getDeliveryPersonId() != null) {
+                couriers.release(order.getDeliveryPersonId());
+                logger.info("已釋放外送員: {}", order.getDeliveryPersonId());
+            }
+
+            logger.info("訂單 {} 已取消，原因: {}", orderId, reason);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.CANCEL_ORDER, start, failure);
         }
+    }
 
-        // 模擬配送過程中可能發生的 Unchecked Exception
+    /**
+     * 批次取消訂單；廚房名額依餐廳合併後一次釋放，配送中的外送員逐一釋放
+     * @return 逐筆結果，失敗項目為 OrderNotFoundException 或 InvalidOrderStatusException
+     */
+    public BulkResult<Order> cancelOrders(List<String> orderIds, String reason) {
+        long start = metrics.start();
+        Exception failure = null;
         try {
-            // 假設這裡有個計算配送時間的邏輯
-            String address = order.getDeliveryAddress();
-            int distance = address.length(); // 用地址長度模擬距離
-            // 注意：這裡故意不除以 0，讓程式正常運行
-            double deliveryTime = distance * 2.5; // 修正計算邏輯
-            logger.debug("計算配送時間: {} 分鐘", deliveryTime);
+            BulkResult<Order> result = new BulkResult<>(orderIds.size());
+            List<String> cancelled = new ArrayList<>(orderIds.size());
+            Map<String, Integer> releases = new HashMap<>();
+            for (int i = 0; i < orderIds.size(); i++) {
+                String orderId = orderIds.get(i);
+                Order order = orders.get(orderId);
+                if (order == null) {
+                    result.fail(i, new OrderNotFoundException(orderId));
+                    continue;
+                }
+                OrderStatus previous;
+                try {
+                    previous = applyTransition(order, OrderStatus.CANCELLED);
+                } catch (InvalidOrderStatusException e) {
+                    result.fail(i, e);
+                    continue;
+                }
+                if (previous == OrderStatus.ACCEPTED || previous == OrderStatus.PREPARING) {
+                    releases.merge(order.getRestaurantId(), 1, Integer::sum);
+                }
+                if (previous == OrderStatus.PICKED_UP && order.getDeliveryPersonId() != null) {
+                    couriers.release(order.getDeliveryPersonId());
+                }
+                cancelled.add(orderId);
+                result.succeed(i, order);
+            }
+            releaseKitchenSlots(releases);
+            journal.appendStatusChanges(cancelled, OrderStatus.CANCELLED);
 
-        } catch (ArithmeticException e) {
-            // 處理計算錯誤，但不影響配送完成
-            logger.error("計算配送時間時發生錯誤，但配送已完成: {}", e.getMessage());
+            logger.warn("批次取消訂單: 成功 {} 筆, 失敗 {} 筆, 原因: {}",
+                    Unbox.box(result.getSuccessCount()), Unbox.box(result.getFailureCount()), reason);
+            return result;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.CANCEL_ORDERS, start, failure);
         }
+    }
 
-        order.setStatus(OrderStatus.DELIVERED);
+    /**
+     * 查詢訂單；已移到冷資料的訂單會從冷資料讀出（回傳的是唯讀副本）
+     */
+    public Order getOrder(String orderId) throws OrderNotFoundException {
+        long start = metrics.start();
+        Exception failure = null;
+        try {
+            Order order = orders.get(orderId);
+            if (order == null && coldStore != null) {
+                order = coldStore.get(orderId);
+            }
+            if (order == null) {
+                logger.warn("查詢不存在的訂單: {}", orderId);
+                throw new OrderNotFoundException(orderId);
+            }
+            return order;
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.GET_ORDER, start, failure);
+        }
+    }
+
+    /**
+     * 查詢指定狀態的所有訂單
+     */
+    public List<Order> getOrdersByStatus(OrderStatus status) {
+        return index.byStatus(status);
+    }
+
+    /**
+     * 查詢顧客的所有訂單
+     */
+    public List<Order> getOrdersByCustomer(String customerId) {
+        return index.byCustomer(customerId, ALL_STATUSES);
+    }
+
+    /**
+     * 查詢顧客指定狀態的訂單，例如 OrderStatus.activeStatuses() 取得進行中的訂單
+     */
+    public List<Order> getOrdersByCustomer(String customerId, Set<OrderStatus> statuses) {
+        return index.byCustomer(customerId, statuses);
+    }
+
+    /**
+     * 查詢餐廳的所有訂單
+     */
+    public List<Order> getOrdersByRestaurant(String restaurantId) {
+        return index.byRestaurant(restaurantId, ALL_STATUSES);
+    }
+
+    /**
+     * 查詢餐廳指定狀態的訂單，例如廚房中的 ACCEPTED 與 PREPARING
+     */
+    public List<Order> getOrdersByRestaurant(String restaurantId, Set<OrderStatus> statuses) {
+        return index.byRestaurant(restaurantId, statuses);
+    }
+
+    /**
+     * 查詢外送員配送過的所有訂單
+     */
+    public List<Order> getOrdersByDeliveryPerson(String deliveryPersonId) {
+        return index.byDeliveryPerson(deliveryPersonId, ALL_STATUSES);
+    }
+
+    /**
+     * 查詢外送員指定狀態的訂單，例如 PICKED_UP 為配送中的訂單
+     */
+    public List<Order> getOrdersByDeliveryPerson(String deliveryPersonId, Set<OrderStatus> statuses) {
+        return index.byDeliveryPerson(deliveryPersonId, statuses);
+    }
+
+    /**
+     * 取得餐廳取餐位置，未登錄時回傳 null
+     */
+    public GeoPoint getRestaurantLocation(String restaurantId) {
+        return restaurantLocations.get(restaurantId);
+    }
+
+    /**
+     * 外送員登錄表（位置與可接單狀態）
+     */
+    public CourierRegistry getCourierRegistry() {
+        return couriers;
+    }
+
+    /**
+     * 執行期指標，可由 ServiceMetrics.registerMBean() 發佈到 JMX
+     */
+    public ServiceMetrics getMetrics() {
+        return metrics;
+    }
 
-        // 釋放外送員
-        if (order.getDeliveryPersonId() != null) {
-            deliveryPersonAvailability.put(order.getDeliveryPersonId(), true);
+    /**
+     * 狀態期限追蹤，未設定 SlaPolicy 時回傳 null
+     */
+    public SlaMonitor getSlaMonitor() {
+        return sla;
+    }
+
+    /**
+     * 各餐廳的即時統計
+     */
+    public RestaurantAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    /**
+     * 設定餐廳營業狀態（新增或更新）
+     */
+    public void setRestaurantAvailability(String restaurantId, boolean available) {
+        restaurants.computeIfAbsent(restaurantId, id -> RestaurantCapacity.unlimited(id, available))
+                .setOpen(available);
+        journal.appendRestaurantAvailability(restaurantId, available);
+        logger.info("餐廳 {} 營業狀態更新為: {}", restaurantId, available ? "營業中" : "暫停營業");
+    }
+
+    /**
+     * 設定餐廳接單容量（營業中可調整，已在廚房中的訂單照常計算）
+     * @param maxConcurrentOrders 廚房同時處理上限（ACCEPTED + PREPARING）
+     * @param ordersPerMinute     每分鐘接單速率，0 表示不限速
+     * @param burst               可連續接單的數量
+     */
+    public void configureRestaurantCapacity(String restaurantId, int maxConcurrentOrders,
+                                            int ordersPerMinute, int burst) {
+        restaurants.computeIfAbsent(restaurantId, id -> RestaurantCapacity.unlimited(id, true))
+                .configure(maxConcurrentOrders, ordersPerMinute, burst);
+        journal.appendRestaurantCapacity(restaurantId, maxConcurrentOrders, ordersPerMinute, burst);
+        logger.info("餐廳 {} 容量設定: 同時處理 {} 筆, 每分鐘 {} 筆, 突發 {} 筆",
+                restaurantId, maxConcurrentOrders, ordersPerMinute, burst);
+    }
+
+    /**
+     * 取得餐廳容量狀態，未登錄時回傳 null
+     */
+    public RestaurantCapacity getRestaurantCapacity(String restaurantId) {
+        return restaurants.get(restaurantId);
+    }
+
+    /**
+     * 更換斷路器設定；既有的斷路器全部重設為正常狀態
+     */
+    public void configureCircuitBreakers(BreakerPolicy policy) {
+        breakerPolicy = policy;
+        breakers.clear();
+        logger.info("斷路器設定更新: 失敗率 {}%（至少 {} 筆）, 斷路 {} 毫秒, 試探 {} 筆",
+                Unbox.box(policy.getFailureRatePercent()), Unbox.box(policy.getMinimumCalls()),
+                Unbox.box(policy.getOpenMillis()), Unbox.box(policy.getHalfOpenProbes()));
+    }
+
+    /**
+     * 取得餐廳的斷路器，尚未接過單時回傳 null
+     */
+    public CircuitBreaker getCircuitBreaker(String restaurantId) {
+        return breakers.get(restaurantId);
+    }
+
+    private CircuitBreaker breakerFor(String restaurantId) {
+        CircuitBreaker breaker = breakers.get(restaurantId);
+        if (breaker == null) {
+            breaker = breakers.computeIfAbsent(restaurantId,
+                    id -> new CircuitBreaker(id, breakerPolicy, this::onBreakerStateChange));
         }
+        return breaker;
+    }
 
-        logger.info("訂單 {} 配送完成！外送員: {}", orderId, order.getDeliveryPersonId());
+    private void onBreakerStateChange(String restaurantId, CircuitState from, CircuitState to) {
+        breakerTransitions[to.ordinal()].increment();
+        logger.warn("餐廳 {} 斷路器狀態: {} -> {}", restaurantId, from.getDescription(), to.getDescription());
+    }
+
+    private long countBreakers(CircuitState state) {
+        long count = 0;
+        for (CircuitBreaker breaker : breakers.values()) {
+            if (breaker.getState() == state) {
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
-     * 取消訂單
+     * 設定外送員是否可接單（新增或更新）
      */
-    public void cancelOrder(String orderId, String reason)
-            throws OrderNotFoundException, InvalidOrderStatusException {
+    public void setDeliveryPersonAvailability(String deliveryPersonId, boolean available) {
+        couriers.register(deliveryPersonId, available);
+        journal.appendCourierAvailability(deliveryPersonId, available);
+        logger.info("外送員 {} 狀態更新為: {}", deliveryPersonId, available ? "可接單" : "不可用");
+    }
+
+    /**
+     * 移除外送員（移交給其他服務或離線），之後的位置回報會以忙碌狀態重新登錄
+     * @return 外送員是否存在
+     */
+    public boolean removeDeliveryPerson(String deliveryPersonId) {
+        if (couriers.remove(deliveryPersonId) == null) {
+            return false;
+        }
+        journal.appendCourierAvailability(deliveryPersonId, false);
+        return true;
+    }
+
+    /**
+     * 移交距離 origin 最近的可用外送員：佔用後由本服務移除，由呼叫端登錄到其他服務
+     * @return 被移交的外送員（保留最後回報的位置），附近沒有可用外送員時回傳 null
+     */
+    public Courier handOffNearestDeliveryPerson(GeoPoint origin) {
+        for (Courier courier : couriers.findNearestAvailable(origin, AUTO_ASSIGN_CANDIDATES)) {
+            if (courier.tryClaim()) {
+                return detachClaimedCourier(courier);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 移交指定的外送員：只有目前可接單時才會移交
+     * @return 被移交的外送員，不存在或忙碌時回傳 null
+     */
+    public Courier handOffDeliveryPerson(String deliveryPersonId) {
+        Courier courier = couriers.get(deliveryPersonId);
+        return courier != null && courier.tryClaim() ? detachClaimedCourier(courier) : null;
+    }
+
+    private Courier detachClaimedCourier(Courier courier) {
+        removeDeliveryPerson(courier.getDeliveryPersonId());
+        logger.info("外送員 {} 移交給其他分區", courier.getDeliveryPersonId());
+        return courier;
+    }
+
+    /**
+     * 修改餐廳菜單：update 由目前的快照產生新版本後整份替換，進行中的計價仍使用舊快照
+     * @return 新的菜單快照
+     */
+    public Menu updateMenu(String restaurantId, UnaryOperator<Menu> update) {
+        Menu menu = menus.update(restaurantId, update);
+        logger.info("餐廳 {} 菜單更新為第 {} 版，共 {} 項", restaurantId, Unbox.box(menu.getVersion()),
+                Unbox.box(menu.size()));
+        return menu;
+    }
+
+    public MenuCatalog getMenuCatalog() {
+        return menus;
+    }
+
+    /**
+     * 登錄餐廳取餐位置
+     */
+    public void setRestaurantLocation(String restaurantId, GeoPoint location) {
+        restaurantLocations.put(restaurantId, location);
+        if (eta != null) {
+            eta.registerRestaurant(restaurantId, location);
+        }
+    }
 
-        logger.warn("收到訂單取消請求: {}, 原因: {}", orderId, reason);
+    /**
+     * 外送員回報位置（高頻呼叫，不記錄日誌）
+     */
+    public void updateDeliveryPersonLocation(String deliveryPersonId, double latitude, double longitude) {
+        couriers.updateLocation(deliveryPersonId, latitude, longitude);
+    }
 
-        Order order = orders.get(orderId);
-        if (order == null) {
-            throw new OrderNotFoundException(orderId);
+    /**
+     * 將結束超過 gracePeriodMillis 的訂單移到冷資料，記憶體中只保留進行中與剛結束的訂單
+     * 冷資料落盤後才移出記憶體與索引；次要索引查詢只涵蓋記憶體中的訂單
+     * @return 移出的訂單數
+     */
+    public int evictTerminalOrders(long gracePeriodMillis) {
+        if (coldStore == null) {
+            throw new IllegalStateException("未設定冷資料儲存");
+        }
+        long cutoff = System.currentTimeMillis() - gracePeriodMillis;
+        List<Order> evicted = new ArrayList<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            if (!status.isTerminal()) {
+                continue;
+            }
+            for (Order order : index.byStatus(status)) {
+                if (order.getStatusChangedAtMillis() <= cutoff) {
+                    coldStore.append(order);
+                    evicted.add(order);
+                }
+            }
         }
+        if (evicted.isEmpty()) {
+            return 0;
+        }
+        coldStore.force();
+        for (Order order : evicted) {
+            orders.remove(order.getOrderId(), order);
+            index.remove(order);
+        }
+        logger.info("已將 {} 筆結束的訂單移到冷資料，記憶體中剩餘 {} 筆",
+                Unbox.box(evicted.size()), Unbox.box(orders.size()));
+        return evicted.size();
+    }
 
-        // 已配送的訂單不能取消
-        if (order.getStatus() == OrderStatus.DELIVERED) {
-            throw new InvalidOrderStatusException(orderId, order.getStatus(), OrderStatus.CANCELLED);
+    /**
+     * 在背景執行緒寫入快照，請求執行緒照常處理訂單
+     * @return 完成時回傳寫入的紀錄數
+     */
+    public CompletableFuture<Long> snapshotAsync() {
+        if (snapshots == null) {
+            throw new IllegalStateException("未設定快照目錄");
         }
+        if (eventLoop != null) {
+            // 單一寫入者：在事件迴圈上取得位置，命令之間沒有寫入日誌但尚未公開的訂單
+            long position = journal.getWrittenPosition();
+            return snapshots.submit(() -> writeSnapshot(position));
+        }
+        return snapshots.submit(() -> {
+            // 位置在屏障的寫入鎖內取得：已寫入日誌但尚未公開的訂單先完成公開，不會同時缺席於快照與重播範圍
+            long position;
+            long stamp = snapshotBarrier.writeLock();
+            try {
+                position = journal.getWrittenPosition();
+            } finally {
+                snapshotBarrier.unlockWrite(stamp);
+            }
+            return writeSnapshot(position);
+        });
+    }
 
-        // 如果外送員已接單，需要釋放外送員
-        if (order.getStatus() == OrderStatus.PICKED_UP && order.getDeliveryPersonId() != null) {
-            deliveryPersonAvailability.put(order.getDeliveryPersonId(), true);
-            logger.info("已釋放外送員: {}", order.getDeliveryPersonId());
+    /**
+     * 先記下日誌位置再逐筆讀取狀態：讀取期間的變更都在該位置之後，還原時重播即可補齊，
+     * 重播對已在快照中的狀態不會造成影響
+     */
+    private long writeSnapshot(long position) throws IOException {
+        long started = System.nanoTime();
+        try (SnapshotWriter writer = snapshots.begin(position)) {
+            for (RestaurantCapacity restaurant : restaurants.values()) {
+                writer.writeRestaurant(restaurant);
+            }
+            // 配送中的外送員在還原時由訂單狀態重新標記為忙碌，快照中記為可接單
+            Set<String> delivering = new HashSet<>();
+            for (Order order : orders.values()) {
+                writer.writeOrder(order);
+                if (order.getStatus() == OrderStatus.PICKED_UP && order.getDeliveryPersonId() != null) {
+                    delivering.add(order.getDeliveryPersonId());
+                }
+            }
+            for (Courier courier : couriers.getAll()) {
+                writer.writeCourier(courier.getDeliveryPersonId(),
+                        courier.isAvailable() || delivering.contains(courier.getDeliveryPersonId()));
+            }
+            long size = writer.commit();
+            snapshots.prune();
+            logger.info("快照完成: {} 筆紀錄, {} bytes, 耗時 {} ms", Unbox.box(writer.getRecordCount()),
+                    Unbox.box(size), Unbox.box((System.nanoTime() - started) / 1_000_000));
+            return writer.getRecordCount();
         }
+    }
 
-        order.setStatus(OrderStatus.CANCELLED);
-        logger.info("訂單 {} 已取消，原因: {}", orderId, reason);
+    /**
+     * 綁定事件迴圈（單一寫入者模式）：之後所有寫入都必須在該執行緒上呼叫，建立訂單不再取得快照屏障的讀取鎖，
+     * SLA 逾時處理與延遲重試也交給事件迴圈執行；必須在服務開始使用前呼叫
+     */
+    public void bindEventLoop(Executor loop) {
+        eventLoop = loop;
+        logger.info("服務綁定事件迴圈，改為單一寫入者模式");
     }
 
     /**
-     * 查詢訂單
+     * 計時器到期的工作：綁定事件迴圈時排入事件迴圈，否則在虛擬執行緒上執行
      */
-    public Order getOrder(String orderId) throws OrderNotFoundException {
-        Order order = orders.get(orderId);
-        if (order == null) {
-            logger.warn("查詢不存在的訂單: {}", orderId);
-            throw new OrderNotFoundException(orderId);
+    private void runTimerTask(Runnable task) {
+        Executor loop = eventLoop;
+        if (loop != null) {
+            loop.execute(task);
+        } else {
+            Thread.startVirtualThread(task);
+        }
+    }
+
+    /**
+     * 停止服務自己建立的計時執行緒（狀態期限、非同步接單重試）；日誌、快照與冷資料由建立者關閉
+     * 關閉後仍可查詢與轉換訂單，但不再追蹤期限，也不再接受非同步接單
+     */
+    @Override
+    public void close() {
+        RetryScheduler scheduler;
+        synchronized (this) {
+            closed = true;
+            scheduler = retries;
+        }
+        if (sla != null) {
+            sla.close();
+        }
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    /**
+     * 訂單離開廚房（完成或取消）時釋放所屬餐廳的名額
+     */
+    private void releaseKitchenSlot(Order order) {
+        RestaurantCapacity restaurant = restaurants.get(order.getRestaurantId());
+        if (restaurant != null) {
+            restaurant.release();
+        }
+    }
+
+    /**
+     * 批次操作依餐廳合併的廚房名額釋放
+     */
+    private void releaseKitchenSlots(Map<String, Integer> countsByRestaurant) {
+        for (Map.Entry<String, Integer> entry : countsByRestaurant.entrySet()) {
+            RestaurantCapacity restaurant = restaurants.get(entry.getKey());
+            if (restaurant != null) {
+                restaurant.release(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 單筆狀態轉換並寫入日誌
+     * @return 轉換前的狀態
+     * @throws InvalidOrderStatusException 目前狀態不允許轉換到 target
+     */
+    private OrderStatus transition(Order order, OrderStatus target) throws InvalidOrderStatusException {
+        OrderStatus previous = applyTransition(order, target);
+        journal.appendStatusChanged(order.getOrderId(), target, null);
+        return previous;
+    }
+
+    /**
+     * 所有狀態轉換的單一路徑（不寫日誌，批次操作整批寫入）：依 OrderStatus 轉換矩陣檢查後以 CAS 更新
+     * 若狀態在檢查後被其他執行緒改變，會以新狀態重新判斷
+     * @return 轉換前的狀態
+     * @throws InvalidOrderStatusException 目前狀態不允許轉換到 target
+     */
+    private OrderStatus applyTransition(Order order, OrderStatus target) throws InvalidOrderStatusException {
+        OrderStatus current;
+        do {
+            current = order.getStatus();
+            if (!current.canTransitionTo(target)) {
+                throw new InvalidOrderStatusException(order.getOrderId(), current, target);
+            }
+        } while (!order.compareAndSetStatus(current, target));
+        index.onStatusChanged(order, current, target);
+        recordAnalytics(order, current, target);
+        trackSla(order);
+        return current;
+    }
+
+    /**
+     * 訂單進入新狀態時重設期限；終止狀態取消期限
+     */
+    private void trackSla(Order order) {
+        if (sla == null || closed) {
+            return;
+        }
+        if (order.getStatus().isTerminal()) {
+            sla.untrack(order.getOrderId());
+        } else {
+            sla.track(order);
+        }
+    }
+
+    /**
+     * 訂單在某狀態逾時：AUTO_CANCEL 經由 cancelOrder 取消，ESCALATE 只記錄
+     */
+    private void onSlaBreach(Order order, OrderStatus status, SlaAction action) {
+        if (action == SlaAction.ESCALATE) {
+            logger.warn("訂單 {} 停留在「{}」超過期限，升級通報", order.getOrderId(), status.getDescription());
+            return;
+        }
+        try {
+            cancelOrder(order.getOrderId(), status.getDescription() + "逾時自動取消");
+        } catch (OrderNotFoundException | InvalidOrderStatusException e) {
+            // 到期的同時訂單已被處理
+            logger.debug("訂單 {} 逾時取消略過: {}", order.getOrderId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 依狀態轉換更新餐廳統計；接單前取消視為拒單
+     */
+    private void recordAnalytics(Order order, OrderStatus previous, OrderStatus target) {
+        switch (target) {
+            case ACCEPTED -> analytics.onAccepted(order.getRestaurantId(), order.getAcceptedAtMillis());
+            case READY -> analytics.onReady(order.getRestaurantId(), order.getReadyAtMillis(), order.getPrepMillis());
+            case DELIVERED -> analytics.onDelivered(order.getRestaurantId(), order.getStatusChangedAtMillis(),
+                    order.getTotalAmountCents());
+            case CANCELLED -> {
+                if (previous == OrderStatus.PENDING) {
+                    analytics.onRejected(order.getRestaurantId(), order.getStatusChangedAtMillis());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 載入快照並重播之後的日誌，再依訂單狀態重建外送員忙碌狀態與餐廳廚房名額
+     */
+    private void recover() {
+        long position = 0;
+        if (snapshots != null) {
+            try {
+                position = Math.max(0, snapshots.load(new SnapshotRecovery()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("載入快照失敗", e);
+            }
+        }
+        long events = journal.replayFrom(position, new JournalRecovery());
+        if (events == 0 && orders.isEmpty()) {
+            return;
+        }
+        for (Iterator<Order> it = orders.values().iterator(); it.hasNext(); ) {
+            Order order = it.next();
+            OrderStatus status = order.getStatus();
+            // 日誌重播出已移到冷資料的訂單，不再放回記憶體
+            if (status.isTerminal() && coldStore != null && coldStore.contains(order.getOrderId())) {
+                it.remove();
+                continue;
+            }
+            index.add(order);
+            if (status == OrderStatus.PICKED_UP && order.getDeliveryPersonId() != null) {
+                couriers.register(order.getDeliveryPersonId(), false);
+            } else if (status == OrderStatus.ACCEPTED || status == OrderStatus.PREPARING) {
+                restaurants.computeIfAbsent(order.getRestaurantId(), id -> RestaurantCapacity.unlimited(id, true))
+                        .restoreInKitchen(1);
+            }
+        }
+        logger.info("由日誌還原 {} 筆事件，目前共有 {} 筆訂單", Unbox.box(events), Unbox.box(orders.size()));
+    }
+
+    /**
+     * 將快照紀錄直接套用到記憶體狀態
+     */
+    private final class SnapshotRecovery implements SnapshotHandler {
+        @Override
+        public void onRestaurant(String restaurantId, boolean open, int maxConcurrentOrders,
+                                 int ordersPerMinute, int burst) {
+            restaurants.put(restaurantId,
+                    new RestaurantCapacity(restaurantId, open, maxConcurrentOrders, ordersPerMinute, burst));
+        }
+
+        @Override
+        public void onCourier(String deliveryPersonId, boolean available) {
+            couriers.register(deliveryPersonId, available);
+        }
+
+        @Override
+        public void onOrder(Order order) {
+            orders.put(order.getOrderId(), order);
+        }
+    }
+
+    /**
+     * 將日誌事件直接套用到記憶體狀態（不再寫回日誌）
+     */
+    private final class JournalRecovery implements OrderEventHandler {
+        @Override
+        public void onOrderCreated(long timestampMillis, String orderId, String customerId, String restaurantId,
+                                   String foodItems, double totalAmount, String deliveryAddress) {
+            Order order = Order.restore(orderId, customerId, restaurantId, foodItems, Order.toCents(totalAmount),
+                    deliveryAddress, timestampMillis);
+            order.setStatusChangedAtMillis(timestampMillis);
+            // 快照之後才建立的訂單可能已在快照中，保留快照中的狀態
+            orders.putIfAbsent(orderId, order);
+        }
+
+        @Override
+        public void onStatusChanged(long timestampMillis, String orderId, OrderStatus status,
+                                    String deliveryPersonId) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                return;
+            }
+            if (deliveryPersonId != null) {
+                order.setDeliveryPersonId(deliveryPersonId);
+            }
+            // 同一訂單的事件可能因並行寫入而順序交錯，狀態只會往後轉換，因此保留最後面的狀態
+            if (status.ordinal() > order.getStatus().ordinal()) {
+                order.setStatus(status);
+                order.setStatusChangedAtMillis(timestampMillis);
+            }
+        }
+
+        @Override
+        public void onRestaurantAvailability(long timestampMillis, String restaurantId, boolean available) {
+            restaurants.computeIfAbsent(restaurantId, id -> RestaurantCapacity.unlimited(id, available))
+                    .setOpen(available);
+        }
+
+        @Override
+        public void onRestaurantCapacity(long timestampMillis, String restaurantId, int maxConcurrentOrders,
+                                         int ordersPerMinute, int burst) {
+            restaurants.computeIfAbsent(restaurantId, id -> RestaurantCapacity.unlimited(id, true))
+                    .configure(maxConcurrentOrders, ordersPerMinute, burst);
+        }
+
+        @Override
+        public void onCourierAvailability(long timestampMillis, String deliveryPersonId, boolean available) {
+            couriers.register(deliveryPersonId, available);
         }
-        return order;
     }
-}
\ No newline at end of file
+}
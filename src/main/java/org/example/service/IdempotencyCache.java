@@ -0,0 +1,159 @@
+package org.example.service;
+
+import org.example.model.Order;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 冪等鍵快取：同一把鍵在時間窗內重複下單時回傳第一次建立的訂單
+ * 依鍵的雜湊分成多段，每段是依建立順序排列的 LinkedHashMap 並各自加鎖（同 eta.LruCache），沒有全域鎖
+ * - 時間淘汰：所有鍵的時間窗相同，建立順序即到期順序，每次登記時由段首移除已過期的鍵
+ * - 容量淘汰：每段最多保存 maxKeys / 段數 把鍵，超過時移除最舊的鍵
+ * 兩種淘汰都略過尚在建立中的鍵（結果還沒完成），否則同時送達的重試會再建立一筆；建立中的鍵數受並行請求數限制
+ * 同時送達的重複請求在段鎖內決定由誰建立，其餘等待同一個結果
+ */
+final class IdempotencyCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final long windowMillis;
+    private final int maxKeys;
+    private final Segment[] segments;
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    IdempotencyCache(long windowMillis, int maxKeys) {
+        if (windowMillis <= 0 || maxKeys < SEGMENTS) {
+            throw new IllegalArgumentException("時間窗必須大於 0，鍵數上限至少為 " + SEGMENTS);
+        }
+        this.windowMillis = windowMillis;
+        this.maxKeys = maxKeys;
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maxKeys / SEGMENTS);
+        }
+    }
+
+    /**
+     * 登記一次提交
+     * @param request 請求內容的標準字串，同一把鍵內容不同時拒絕
+     * @param pending     本次提交的結果；登記成功時由呼叫端建立訂單後完成，失敗時呼叫 abandon
+     * @return 鍵第一次出現時回傳 pending，重複提交時回傳第一次提交的結果
+     * @throws IllegalArgumentException 鍵已用於內容不同的請求
+     */
+    CompletableFuture<Order> claim(String key, String request, long nowMillis, CompletableFuture<Order> pending) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.purgeExpired(nowMillis - windowMillis);
+            Entry existing = segment.get(key);
+            if (existing != null) {
+                if (!Objects.equals(existing.request, request)) {
+                    throw new IllegalArgumentException("冪等鍵已用於不同的訂單內容");
+                }
+                replays.increment();
+                return existing.result;
+            }
+            segment.put(key, new Entry(request, nowMillis, pending));
+            segment.trimToCapacity();
+            return pending;
+        }
+    }
+
+    /**
+     * 建立失敗：移除鍵讓之後的重試可以重新建立，正在等待的重複提交收到同一個例外
+     */
+    void abandon(String key, CompletableFuture<Order> pending, Throwable failure) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry != null && entry.result == pending) {
+                segment.remove(key);
+            }
+        }
+        pending.completeExceptionally(failure);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    long getWindowMillis() {
+        return windowMillis;
+    }
+
+    int getMaxKeys() {
+        return maxKeys;
+    }
+
+    long getReplays() {
+        return replays.sum();
+    }
+
+    long getEvicted() {
+        return evicted.sum();
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static final class Entry {
+        final String request;
+        final long createdAtMillis;
+        // 由第一次提交完成，重複提交只讀取
+        final CompletableFuture<Order> result;
+
+        Entry(String request, long createdAtMillis, CompletableFuture<Order> result) {
+            this.request = request;
+            this.createdAtMillis = createdAtMillis;
+            this.result = result;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<String, Entry> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, false);
+            this.capacity = capacity;
+        }
+
+        void purgeExpired(long cutoffMillis) {
+            Iterator<Entry> it = values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.createdAtMillis > cutoffMillis) {
+                    return;
+                }
+                if (entry.result.isDone()) {
+                    it.remove();
+                    evicted.increment();
+                }
+            }
+        }
+
+        /**
+         * 超過容量時由最舊的鍵開始移除已完成的鍵
+         */
+        void trimToCapacity() {
+            Iterator<Entry> it = values().iterator();
+            while (size() > capacity && it.hasNext()) {
+                if (it.next().result.isDone()) {
+                    it.remove();
+                    evicted.increment();
+                }
+            }
+        }
+    }
+}
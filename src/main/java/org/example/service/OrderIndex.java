@@ -0,0 +1,235 @@
+package org.example.service;
+
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 訂單次要索引：依狀態、顧客、餐廳、外送員分組，每組再依狀態分桶
+ * 查詢只走訪符合條件的桶，成本與結果數量成正比
+ *
+ * 狀態轉換以 CAS 完成後才更新索引：先加入新狀態的桶、再移出舊狀態的桶，
+ * 最後若訂單已被其他執行緒轉往更後面的狀態，再移出剛加入的桶（狀態只會往後，不會回到同一桶）。
+ * 查詢時再確認一次訂單狀態，因此結果不會出現已離開該狀態的訂單。
+ *
+ * 顧客、餐廳、外送員的分組在最後一筆訂單移出後整組移除，索引大小與記憶體中的訂單數成正比。
+ * 加入訂單前先登記使用中的分組，移除只會發生在沒有登記者且所有桶都是空的時候；已移除的分組無法再登記，加入端改用新的分組。
+ */
+final class OrderIndex {
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final Buckets byStatus = new Buckets();
+    private final Map<String, Buckets> byCustomer = new ConcurrentHashMap<>();
+    private final Map<String, Buckets> byRestaurant = new ConcurrentHashMap<>();
+    private final Map<String, Buckets> byDeliveryPerson = new ConcurrentHashMap<>();
+
+    /**
+     * 新訂單（或還原的訂單）加入索引
+     */
+    void add(Order order) {
+        update(order, null, order.getStatus());
+    }
+
+    /**
+     * 訂單已由 from 轉換到 to（外送員指派與 PICKED_UP 同時發生，也由此加入外送員索引）
+     */
+    void onStatusChanged(Order order, OrderStatus from, OrderStatus to) {
+        update(order, from, to);
+    }
+
+    /**
+     * 訂單移出索引；分組因此變空時一併移除
+     */
+    void remove(Order order) {
+        byStatus.removeEverywhere(order);
+        remove(byCustomer, order.getCustomerId(), order);
+        remove(byRestaurant, order.getRestaurantId(), order);
+        String deliveryPersonId = order.getDeliveryPersonId();
+        if (deliveryPersonId != null) {
+            remove(byDeliveryPerson, deliveryPersonId, order);
+        }
+    }
+
+    private void update(Order order, OrderStatus from, OrderStatus to) {
+        byStatus.move(order, from, to);
+        move(byCustomer, order.getCustomerId(), order, from, to);
+        move(byRestaurant, order.getRestaurantId(), order, from, to);
+        String deliveryPersonId = order.getDeliveryPersonId();
+        if (deliveryPersonId != null) {
+            move(byDeliveryPerson, deliveryPersonId, order, from, to);
+        }
+    }
+
+    private static void move(Map<String, Buckets> index, String key, Order order, OrderStatus from, OrderStatus to) {
+        while (true) {
+            Buckets buckets = index.get(key);
+            if (buckets == null) {
+                buckets = index.computeIfAbsent(key, k -> new Buckets());
+            }
+            // 分組剛被移除時重新取得
+            if (buckets.enter()) {
+                try {
+                    buckets.move(order, from, to);
+                } finally {
+                    buckets.exit();
+                }
+                return;
+            }
+        }
+    }
+
+    private static void remove(Map<String, Buckets> index, String key, Order order) {
+        Buckets buckets = index.get(key);
+        if (buckets == null) {
+            return;
+        }
+        buckets.removeEverywhere(order);
+        if (buckets.isEmpty()) {
+            index.computeIfPresent(key, (k, current) -> current.tryRetire() ? null : current);
+        }
+    }
+
+    List<Order> byStatus(OrderStatus status) {
+        List<Order> result = new ArrayList<>();
+        byStatus.collect(status, result);
+        return result;
+    }
+
+    /**
+     * 指定狀態的訂單數（近似值：轉換進行中的訂單可能短暫同時計入新舊兩個狀態）
+     */
+    long countByStatus(OrderStatus status) {
+        return byStatus.size(status);
+    }
+
+    List<Order> byCustomer(String customerId, Collection<OrderStatus> statuses) {
+        return collect(byCustomer.get(customerId), statuses);
+    }
+
+    List<Order> byRestaurant(String restaurantId, Collection<OrderStatus> statuses) {
+        return collect(byRestaurant.get(restaurantId), statuses);
+    }
+
+    List<Order> byDeliveryPerson(String deliveryPersonId, Collection<OrderStatus> statuses) {
+        return collect(byDeliveryPerson.get(deliveryPersonId), statuses);
+    }
+
+    private static List<Order> collect(Buckets buckets, Collection<OrderStatus> statuses) {
+        List<Order> result = new ArrayList<>();
+        if (buckets != null) {
+            for (OrderStatus status : statuses) {
+                buckets.collect(status, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 依狀態分桶的訂單集合，桶在第一次使用時才建立
+     */
+    private static final class Buckets {
+        private static final int RETIRED = -1;
+
+        private final AtomicReferenceArray<Set<Order>> sets = new AtomicReferenceArray<>(STATUSES.length);
+        // 正在加入訂單的執行緒數；RETIRED 表示已自索引移除
+        private final AtomicInteger users = new AtomicInteger();
+
+        /**
+         * 登記使用；已移除時回傳 false
+         */
+        boolean enter() {
+            while (true) {
+                int current = users.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+                if (users.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void exit() {
+            users.decrementAndGet();
+        }
+
+        /**
+         * 在索引的 computeIfPresent 內呼叫：沒有登記者且所有桶都是空的才移除，之後無法再登記
+         */
+        boolean tryRetire() {
+            if (!users.compareAndSet(0, RETIRED)) {
+                return false;
+            }
+            if (isEmpty()) {
+                return true;
+            }
+            users.set(0);
+            return false;
+        }
+
+        boolean isEmpty() {
+            for (int i = 0; i < sets.length(); i++) {
+                Set<Order> set = sets.get(i);
+                if (set != null && !set.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void move(Order order, OrderStatus from, OrderStatus to) {
+            Set<Order> target = bucket(to);
+            target.add(order);
+            if (from != null) {
+                bucket(from).remove(order);
+            }
+            if (order.getStatus() != to) {
+                target.remove(order);
+            }
+        }
+
+        void removeEverywhere(Order order) {
+            for (int i = 0; i < sets.length(); i++) {
+                Set<Order> set = sets.get(i);
+                if (set != null) {
+                    set.remove(order);
+                }
+            }
+        }
+
+        int size(OrderStatus status) {
+            Set<Order> set = sets.get(status.ordinal());
+            return set == null ? 0 : set.size();
+        }
+
+        void collect(OrderStatus status, List<Order> result) {
+            Set<Order> set = sets.get(status.ordinal());
+            if (set == null) {
+                return;
+            }
+            for (Order order : set) {
+                if (order.getStatus() == status) {
+                    result.add(order);
+                }
+            }
+        }
+
+        private Set<Order> bucket(OrderStatus status) {
+            int slot = status.ordinal();
+            Set<Order> set = sets.get(slot);
+            if (set == null) {
+                sets.compareAndSet(slot, null, ConcurrentHashMap.newKeySet());
+                set = sets.get(slot);
+            }
+            return set;
+        }
+    }
+}
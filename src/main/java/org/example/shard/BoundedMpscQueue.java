@@ -0,0 +1,81 @@
+package org.example.shard;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界的多生產者、單消費者環狀佇列
+ * - 生產者以 CAS 推進 tail 取得位置後寫入元素；佇列滿時直接回傳 false，不阻塞
+ * - 消費者只有一個執行緒，head 不需要 CAS，只以 lazySet 公布給生產者判斷是否已滿
+ */
+final class BoundedMpscQueue<E> {
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final int capacity;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity 容量，會向上取到 2 的冪次
+     */
+    BoundedMpscQueue(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("佇列容量必須介於 1 到 2^30");
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.mask = this.capacity - 1;
+    }
+
+    /**
+     * 生產者放入元素
+     * @return 佇列已滿時回傳 false
+     */
+    boolean offer(E element) {
+        for (;;) {
+            long t = tail.get();
+            if (t - head.get() >= capacity) {
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                buffer.lazySet((int) t & mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 消費者取出元素（僅限單一執行緒呼叫）
+     * @return 佇列為空時回傳 null
+     */
+    E poll() {
+        long h = head.get();
+        int index = (int) h & mask;
+        E element = buffer.get(index);
+        if (element == null) {
+            if (tail.get() == h) {
+                return null;
+            }
+            // 生產者已取得位置但尚未寫入，稍等即可
+            do {
+                Thread.onSpinWait();
+                element = buffer.get(index);
+            } while (element == null);
+        }
+        buffer.lazySet(index, null);
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.shard;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.service.DeliveryService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 單一分片：一個 DeliveryService 與唯一寫入它的事件迴圈執行緒
+ * 呼叫端把命令放入有界佇列後立即取得 future；佇列滿時直接以 RejectedExecutionException 完成，由呼叫端決定重試或降級
+ * 服務自己的計時器工作（SLA 逾時處理、延遲重試）經由 execute 排入另一個無界佇列，同樣在事件迴圈上執行
+ */
+final class Shard implements AutoCloseable, Executor {
+    private static final Logger logger = LogManager.getLogger(Shard.class);
+
+    // 佇列空時先自旋一小段時間再 park，降低連續命令的喚醒延遲
+    private static final int SPINS_BEFORE_PARK = 64;
+
+    private final int index;
+    private final DeliveryService service;
+    private final BoundedMpscQueue<Task<?>> queue;
+    // 服務內部的計時器工作：數量受到期的計時限制，不佔用命令佇列的容量，命令佇列已滿時也不會遺失
+    private final ConcurrentLinkedQueue<Runnable> timerTasks = new ConcurrentLinkedQueue<>();
+    private final Thread loop;
+    private final LongAdder rejected = new LongAdder();
+    private volatile long executed;
+    private volatile boolean parked;
+    private volatile boolean closed;
+    // 正在放入命令的呼叫端數：先遞增再檢查 closed，關閉時等它歸零後再清空佇列，關閉後放入的命令不會無人處理
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    Shard(int index, DeliveryService service, int queueCapacity) {
+        this.index = index;
+        this.service = service;
+        this.queue = new BoundedMpscQueue<>(queueCapacity);
+        this.loop = new Thread(this::runLoop, "shard-" + index);
+        loop.setDaemon(true);
+        // 事件迴圈啟動前綁定，之後服務只由事件迴圈寫入
+        service.bindEventLoop(this);
+        loop.start();
+    }
+
+    /**
+     * 提交命令到分片的事件迴圈
+     */
+    <T> CompletableFuture<T> submit(ShardCommand<T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        submitting.incrementAndGet();
+        try {
+            if (closed) {
+                future.completeExceptionally(new RejectedExecutionException("分片 " + index + " 已關閉"));
+                return future;
+            }
+            if (!queue.offer(new Task<>(command, future))) {
+                rejected.increment();
+                future.completeExceptionally(new RejectedExecutionException("分片 " + index + " 佇列已滿"));
+                return future;
+            }
+        } finally {
+            submitting.decrementAndGet();
+        }
+        // offer 的 CAS 與 parked 的讀取構成 Dekker 交握：事件迴圈 park 前會再檢查一次佇列
+        if (parked) {
+            LockSupport.unpark(loop);
+        }
+        return future;
+    }
+
+    /**
+     * 在事件迴圈上執行服務的計時器工作（由 DeliveryService 的計時器呼叫）
+     * @throws RejectedExecutionException 分片已關閉
+     */
+    @Override
+    public void execute(Runnable task) {
+        submitting.incrementAndGet();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("分片 " + index + " 已關閉");
+            }
+            timerTasks.offer(task);
+        } finally {
+            submitting.decrementAndGet();
+        }
+        if (parked) {
+            LockSupport.unpark(loop);
+        }
+    }
+
+    private void runLoop() {
+        long count = 0;
+        int idle = 0;
+        while (!closed || !isIdle()) {
+            Runnable timerTask = timerTasks.poll();
+            if (timerTask != null) {
+                runTimerTask(timerTask);
+                idle = 0;
+                continue;
+            }
+            Task<?> task = queue.poll();
+            if (task != null) {
+                task.run(service);
+                executed = ++count;
+                idle = 0;
+            } else if (idle < SPINS_BEFORE_PARK) {
+                idle++;
+                Thread.onSpinWait();
+            } else {
+                parked = true;
+                if (isIdle() && !closed) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        }
+        logger.info("分片 {} 事件迴圈結束，共執行 {} 個命令", index, count);
+    }
+
+    private boolean isIdle() {
+        return queue.isEmpty() && timerTasks.isEmpty();
+    }
+
+    private void runTimerTask(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            logger.error("分片 {} 執行計時器工作失敗", index, t);
+        }
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    DeliveryService getService() {
+        return service;
+    }
+
+    int getQueueSize() {
+        return queue.size();
+    }
+
+    long getExecuted() {
+        return executed;
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 停止接受新命令，等待佇列中的命令執行完畢，再關閉分片的服務
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(loop);
+        try {
+            loop.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            service.close();
+        }
+        // 關閉期間才放入的命令：事件迴圈已結束，等看到 closed 之前就開始放入的呼叫端完成後直接拒絕
+        if (!loop.isAlive()) {
+            while (submitting.get() != 0) {
+                Thread.onSpinWait();
+            }
+            timerTasks.clear();
+            Task<?> task;
+            while ((task = queue.poll()) != null) {
+                task.future.completeExceptionally(new RejectedExecutionException("分片 " + index + " 已關閉"));
+            }
+        }
+    }
+
+    private static final class Task<T> {
+        private final ShardCommand<T> command;
+        private final CompletableFuture<T> future;
+
+        Task(ShardCommand<T> command, CompletableFuture<T> future) {
+            this.command = command;
+            this.future = future;
+        }
+
+        void run(DeliveryService service) {
+            try {
+                future.complete(command.execute(service));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.shard;
+
+import org.example.service.DeliveryService;
+
+/**
+ * 在分片的事件迴圈執行緒上執行的命令
+ * 命令內可以直接呼叫分片的 DeliveryService；丟出的例外會讓結果 future 以例外完成
+ */
+@FunctionalInterface
+public interface ShardCommand<T> {
+
+    T execute(DeliveryService service) throws Exception;
+}
@@ -0,0 +1,470 @@
+package org.example.shard;
+
+import org.example.courier.Courier;
+import org.example.exception.DeliveryPersonUnavailableException;
+import org.example.exception.OrderNotFoundException;
+import org.example.id.SnowflakeIdGenerator;
+import org.example.journal.OrderJournal;
+import org.example.menu.Menu;
+import org.example.model.GeoPoint;
+import org.example.model.LineItem;
+import org.example.model.Order;
+import org.example.service.DeliveryService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * 分片的單一寫入者模式：把餐廳、訂單與外送員切到 N 個分片，每個分片由一條事件迴圈執行緒獨佔
+ * - 餐廳依雜湊（或 assignRestaurant 指定的區域）決定分片，訂單跟隨餐廳
+ * - 訂單編號由分片自己的 SnowflakeIdGenerator（節點編號 = 分片編號）產生，之後的狀態轉換直接由編號解出分片
+ * - 外送員有所屬分片，位置回報與可接單狀態送到所屬分片
+ * - 呼叫端經由有界佇列提交命令並取得 CompletableFuture；佇列滿時 future 以 RejectedExecutionException 完成
+ *
+ * 跨分片：訂單所在分片沒有可用外送員時，依鄰近分片順序請求移交最近的可用外送員。
+ * 移交在來源分片的事件迴圈上佔用並移除外送員、改寫所屬分片，再由目的分片登錄並派單，
+ * 同一位外送員任何時刻只屬於一個分片：目的分片拒絕移交時改回來源分片，
+ * 已不屬於某分片的外送員，該分片佇列中的位置回報會被略過、可接單狀態轉送到新的所屬分片。
+ *
+ * 每個分片的 DeliveryService 只由事件迴圈寫入：服務自己的計時器工作（SLA 逾時自動取消、acceptOrderAsync 的延遲重試）
+ * 也排入事件迴圈執行，服務因此以單一寫入者模式運作，建立訂單時略過快照屏障的讀取鎖。
+ *
+ * future 在分片執行緒上完成，後續的 thenApply 等回呼也會在分片執行緒上執行，耗時的處理請改用 *Async
+ */
+public class ShardedDeliveryService implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private final Shard[] shards;
+    // 指定區域的餐廳；未指定時依雜湊
+    private final Map<String, Integer> restaurantShards = new ConcurrentHashMap<>();
+    // 外送員目前所屬的分片；未登錄時依雜湊
+    private final Map<String, Integer> courierShards = new ConcurrentHashMap<>();
+    // 每個分片借用外送員時詢問的鄰近分片順序（整組替換）
+    private volatile int[][] neighbours;
+    private final LongAdder handOffs = new LongAdder();
+
+    /**
+     * 每個分片使用不寫日誌的 DeliveryService
+     */
+    public ShardedDeliveryService(int shardCount) {
+        this(shardCount, shard -> new DeliveryService(new SnowflakeIdGenerator(shard), OrderJournal.DISABLED),
+                DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param serviceFactory 建立第 i 個分片的服務；必須使用 new SnowflakeIdGenerator(i)，訂單才能依編號找回分片
+     * @param queueCapacity  每個分片的命令佇列容量
+     */
+    public ShardedDeliveryService(int shardCount, IntFunction<DeliveryService> serviceFactory, int queueCapacity) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("分片數必須大於 0");
+        }
+        this.shards = new Shard[shardCount];
+        int[][] ring = new int[shardCount][shardCount - 1];
+        for (int i = 0; i < shardCount; i++) {
+            for (int j = 1; j < shardCount; j++) {
+                ring[i][j - 1] = (i + j) % shardCount;
+            }
+        }
+        this.neighbours = ring;
+
+        for (int i = 0; i < shardCount; i++) {
+            DeliveryService service = serviceFactory.apply(i);
+            // 服務內建的外送員只留在所屬分片，避免同一人同時出現在多個分片
+            List<String> ids = new ArrayList<>();
+            for (Courier courier : service.getCourierRegistry().getAll()) {
+                ids.add(courier.getDeliveryPersonId());
+            }
+            for (String id : ids) {
+                if (shardOfCourier(id) != i) {
+                    service.removeDeliveryPerson(id);
+                }
+            }
+            shards[i] = new Shard(i, service, queueCapacity);
+        }
+    }
+
+    // ---- 路由 ----
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * 指定餐廳所在的分片（依區域分區時使用），必須在該餐廳有訂單之前設定
+     */
+    public void assignRestaurant(String restaurantId, int shard) {
+        checkShard(shard);
+        restaurantShards.put(restaurantId, shard);
+    }
+
+    /**
+     * 設定分片借用外送員時詢問的鄰近分片（依優先順序），預設為環狀順序的其餘所有分片
+     */
+    public synchronized void setNeighbours(int shard, int... neighbourShards) {
+        checkShard(shard);
+        for (int neighbour : neighbourShards) {
+            checkShard(neighbour);
+            if (neighbour == shard) {
+                throw new IllegalArgumentException("鄰近分片不可包含自己");
+            }
+        }
+        int[][] copy = neighbours.clone();
+        copy[shard] = neighbourShards.clone();
+        neighbours = copy;
+    }
+
+    public int shardOfRestaurant(String restaurantId) {
+        Integer shard = restaurantShards.get(restaurantId);
+        return shard != null ? shard : Math.floorMod(restaurantId.hashCode(), shards.length);
+    }
+
+    public int shardOfCourier(String deliveryPersonId) {
+        Integer shard = courierShards.get(deliveryPersonId);
+        return shard != null ? shard : Math.floorMod(deliveryPersonId.hashCode(), shards.length);
+    }
+
+    /**
+     * @return 訂單所在的分片，編號格式不符時回傳 -1
+     */
+    public int shardOfOrder(String orderId) {
+        long id = SnowflakeIdGenerator.parseCompactString(orderId);
+        if (id < 0) {
+            return -1;
+        }
+        int shard = SnowflakeIdGenerator.extractNodeId(id);
+        return shard < shards.length ? shard : -1;
+    }
+
+    private void checkShard(int shard) {
+        if (shard < 0 || shard >= shards.length) {
+            throw new IllegalArgumentException("分片編號必須介於 0 到 " + (shards.length - 1));
+        }
+    }
+
+    /**
+     * 在指定分片的事件迴圈上執行任意命令（查詢或批次作業）
+     */
+    public <T> CompletableFuture<T> execute(int shard, ShardCommand<T> command) {
+        checkShard(shard);
+        return shards[shard].submit(command);
+    }
+
+    private <T> CompletableFuture<T> onOrderShard(String orderId, ShardCommand<T> command) {
+        int shard = shardOfOrder(orderId);
+        if (shard < 0) {
+            return CompletableFuture.failedFuture(new OrderNotFoundException(orderId));
+        }
+        return shards[shard].submit(command);
+    }
+
+    // ---- 訂單 ----
+
+    public CompletableFuture<Order> createOrder(String customerId, String restaurantId, String foodItems,
+                                               double totalAmount, String deliveryAddress) {
+        return shards[shardOfRestaurant(restaurantId)].submit(service ->
+                service.createOrder(customerId, restaurantId, foodItems, totalAmount, deliveryAddress));
+    }
+
+    public CompletableFuture<Order> createOrder(String customerId, String restaurantId, List<LineItem> items,
+                                               String deliveryAddress) {
+        return shards[shardOfRestaurant(restaurantId)].submit(service ->
+                service.createOrder(customerId, restaurantId, items, deliveryAddress));
+    }
+
+    /**
+     * 帶冪等鍵的下單；同一家餐廳一定落在同一個分片，重複提交由該分片的冪等鍵快取處理
+     */
+    public CompletableFuture<Order> createOrder(String idempotencyKey, String customerId, String restaurantId,
+                                               String foodItems, double totalAmount, String deliveryAddress) {
+        return shards[shardOfRestaurant(restaurantId)].submit(service ->
+                service.createOrder(idempotencyKey, customerId, restaurantId, foodItems, totalAmount, deliveryAddress));
+    }
+
+    public CompletableFuture<Order> createOrder(String idempotencyKey, String customerId, String restaurantId,
+                                               List<LineItem> items, String deliveryAddress) {
+        return shards[shardOfRestaurant(restaurantId)].submit(service ->
+                service.createOrder(idempotencyKey, customerId, restaurantId, items, deliveryAddress));
+    }
+
+    public CompletableFuture<Void> acceptOrder(String orderId, String restaurantId) {
+        return onOrderShard(orderId, service -> {
+            service.acceptOrder(orderId, restaurantId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> prepareFood(String orderId) {
+        return onOrderShard(orderId, service -> {
+            service.prepareFood(orderId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> foodReady(String orderId) {
+        return onOrderShard(orderId, service -> {
+            service.foodReady(orderId);
+            return null;
+        });
+    }
+
+    /**
+     * 指定外送員接單；外送員屬於其他分片時先移交（只有可接單時才會移交）
+     */
+    public CompletableFuture<Void> assignDeliveryPerson(String orderId, String deliveryPersonId) {
+        int shard = shardOfOrder(orderId);
+        if (shard < 0) {
+            return CompletableFuture.failedFuture(new OrderNotFoundException(orderId));
+        }
+        int home = shardOfCourier(deliveryPersonId);
+        if (home == shard) {
+            return shards[shard].submit(service -> {
+                service.assignDeliveryPerson(orderId, deliveryPersonId);
+                return null;
+            });
+        }
+        return shards[home].submit(service -> detach(service.handOffDeliveryPerson(deliveryPersonId), shard))
+                .thenCompose(courier -> {
+                    if (courier == null) {
+                        return CompletableFuture.failedFuture(
+                                new DeliveryPersonUnavailableException(orderId, "外送員目前不可用"));
+                    }
+                    return attachAndAssign(home, shard, courier, orderId).thenApply(id -> null);
+                });
+    }
+
+    /**
+     * 自動派單；所在分片沒有可用外送員時依序向鄰近分片借用
+     * @return 被指派的外送員編號
+     */
+    public CompletableFuture<String> autoAssign(String orderId) {
+        int shard = shardOfOrder(orderId);
+        if (shard < 0) {
+            return CompletableFuture.failedFuture(new OrderNotFoundException(orderId));
+        }
+        return shards[shard].submit(service -> localAutoAssign(service, orderId))
+                .thenCompose(attempt -> attempt.deliveryPersonId != null
+                        ? CompletableFuture.completedFuture(attempt.deliveryPersonId)
+                        : borrowAndAssign(shard, orderId, attempt.pickup, 0));
+    }
+
+    private AssignAttempt localAutoAssign(DeliveryService service, String orderId) throws Exception {
+        try {
+            return new AssignAttempt(service.autoAssign(orderId), null);
+        } catch (DeliveryPersonUnavailableException e) {
+            GeoPoint pickup = service.getRestaurantLocation(service.getOrder(orderId).getRestaurantId());
+            if (pickup == null) {
+                throw e;
+            }
+            return new AssignAttempt(null, pickup);
+        }
+    }
+
+    private CompletableFuture<String> borrowAndAssign(int shard, String orderId, GeoPoint pickup, int attempt) {
+        int[] candidates = neighbours[shard];
+        if (attempt >= candidates.length) {
+            return CompletableFuture.failedFuture(
+                    new DeliveryPersonUnavailableException(orderId, "附近與鄰近分區都沒有可用的外送員"));
+        }
+        int source = candidates[attempt];
+        return shards[source].submit(service -> detach(service.handOffNearestDeliveryPerson(pickup), shard))
+                .thenCompose(courier -> courier == null
+                        ? borrowAndAssign(shard, orderId, pickup, attempt + 1)
+                        : attachAndAssign(source, shard, courier, orderId));
+    }
+
+    /**
+     * 在來源分片上執行：外送員已被移除，改寫所屬分片，之後的位置回報會送到目的分片
+     */
+    private Courier detach(Courier courier, int target) {
+        if (courier != null) {
+            courierShards.put(courier.getDeliveryPersonId(), target);
+            handOffs.increment();
+        }
+        return courier;
+    }
+
+    /**
+     * 在目的分片上登錄移交過來的外送員並派單；派單失敗時外送員留在目的分片，恢復可接單。
+     * 目的分片拒絕命令（佇列滿或已關閉）時外送員尚未登錄，改回來源分片並恢復可接單，future 仍以原本的例外完成
+     */
+    private CompletableFuture<String> attachAndAssign(int source, int shard, Courier courier, String orderId) {
+        String deliveryPersonId = courier.getDeliveryPersonId();
+        CompletableFuture<String> assigned = shards[shard].submit(service -> {
+            attach(service, courier);
+            service.assignDeliveryPerson(orderId, deliveryPersonId);
+            return deliveryPersonId;
+        });
+        return assigned.exceptionallyCompose(e -> {
+            if (!(unwrap(e) instanceof RejectedExecutionException)) {
+                return assigned;
+            }
+            // 目的分片上排隊中的位置回報會因所屬分片已改回而被略過
+            courierShards.put(deliveryPersonId, source);
+            handOffs.decrement();
+            // 來源分片也拒絕時只能放棄；之後的位置回報會在來源分片以忙碌狀態重新登錄
+            return shards[source].submit(service -> {
+                attach(service, courier);
+                return null;
+            }).handle((ignored, restoreFailure) -> null).thenCompose(ignored -> assigned);
+        });
+    }
+
+    /**
+     * 在分片的事件迴圈上登錄移交過來的外送員並恢復可接單
+     */
+    private static void attach(DeliveryService service, Courier courier) {
+        String deliveryPersonId = courier.getDeliveryPersonId();
+        service.setDeliveryPersonAvailability(deliveryPersonId, true);
+        // 移交期間已送到這個分片的位置較新，不覆蓋
+        Courier local = service.getCourierRegistry().get(deliveryPersonId);
+        if (courier.isLocated() && !local.isLocated()) {
+            service.updateDeliveryPersonLocation(deliveryPersonId, courier.getLatitude(), courier.getLongitude());
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    public CompletableFuture<Void> completeDelivery(String orderId) {
+        return onOrderShard(orderId, service -> {
+            service.completeDelivery(orderId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> cancelOrder(String orderId, String reason) {
+        return onOrderShard(orderId, service -> {
+            service.cancelOrder(orderId, reason);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Order> getOrder(String orderId) {
+        return onOrderShard(orderId, service -> service.getOrder(orderId));
+    }
+
+    public CompletableFuture<List<Order>> getOrdersByRestaurant(String restaurantId) {
+        return shards[shardOfRestaurant(restaurantId)].submit(service -> service.getOrdersByRestaurant(restaurantId));
+    }
+
+    // ---- 餐廳與外送員 ----
+
+    public CompletableFuture<Void> setRestaurantAvailability(String restaurantId, boolean available) {
+        return shards[shardOfRestaurant(restaurantId)].submit(service -> {
+            service.setRestaurantAvailability(restaurantId, available);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> configureRestaurantCapacity(String restaurantId, int maxConcurrentOrders,
+                                                               int ordersPerMinute, int burst) {
+        return shards[shardOfRestaurant(restaurantId)].submit(service -> {
+            service.configureRestaurantCapacity(restaurantId, maxConcurrentOrders, ordersPerMinute, burst);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Menu> updateMenu(String restaurantId, UnaryOperator<Menu> update) {
+        return shards[shardOfRestaurant(restaurantId)].submit(service -> service.updateMenu(restaurantId, update));
+    }
+
+    public CompletableFuture<Void> setRestaurantLocation(String restaurantId, GeoPoint location) {
+        return shards[shardOfRestaurant(restaurantId)].submit(service -> {
+            service.setRestaurantLocation(restaurantId, location);
+            return null;
+        });
+    }
+
+    /**
+     * 設定外送員可接單狀態；命令執行時外送員已移交到其他分片，就轉送到新的所屬分片
+     */
+    public CompletableFuture<Void> setDeliveryPersonAvailability(String deliveryPersonId, boolean available) {
+        int shard = shardOfCourier(deliveryPersonId);
+        return shards[shard].submit(service -> {
+            if (shardOfCourier(deliveryPersonId) != shard) {
+                return Boolean.FALSE;
+            }
+            service.setDeliveryPersonAvailability(deliveryPersonId, available);
+            return Boolean.TRUE;
+        }).thenCompose(applied -> applied
+                ? CompletableFuture.<Void>completedFuture(null)
+                : setDeliveryPersonAvailability(deliveryPersonId, available));
+    }
+
+    /**
+     * 外送員回報位置；命令執行時外送員已移交到其他分片就略過（否則會在舊分片重新登錄），下一次回報會送到新的所屬分片
+     */
+    public CompletableFuture<Void> updateDeliveryPersonLocation(String deliveryPersonId,
+                                                                double latitude, double longitude) {
+        int shard = shardOfCourier(deliveryPersonId);
+        return shards[shard].submit(service -> {
+            if (shardOfCourier(deliveryPersonId) == shard) {
+                service.updateDeliveryPersonLocation(deliveryPersonId, latitude, longitude);
+            }
+            return null;
+        });
+    }
+
+    // ---- 監控 ----
+
+    /**
+     * 分片的服務（供讀取指標使用；寫入請經由 execute 送到事件迴圈）
+     */
+    public DeliveryService getShardService(int shard) {
+        checkShard(shard);
+        return shards[shard].getService();
+    }
+
+    public int getQueueSize(int shard) {
+        checkShard(shard);
+        return shards[shard].getQueueSize();
+    }
+
+    public long getExecuted(int shard) {
+        checkShard(shard);
+        return shards[shard].getExecuted();
+    }
+
+    public long getRejected() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.getRejected();
+        }
+        return total;
+    }
+
+    public long getHandOffs() {
+        return handOffs.sum();
+    }
+
+    /**
+     * 停止所有事件迴圈（佇列中的命令會先執行完）並關閉各分片的服務
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private static final class AssignAttempt {
+        final String deliveryPersonId;
+        final GeoPoint pickup;
+
+        AssignAttempt(String deliveryPersonId, GeoPoint pickup) {
+            this.deliveryPersonId = deliveryPersonId;
+            this.pickup = pickup;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.sla;
+
+/**
+ * 訂單停留在某狀態超過期限時的處理方式
+ */
+public enum SlaAction {
+    AUTO_CANCEL("逾時自動取消"),     // 經由 cancelOrder 取消訂單
+    ESCALATE("逾時升級通報");         // 只通知 SlaListener，訂單維持原狀
+
+    private final String description;
+
+    SlaAction(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
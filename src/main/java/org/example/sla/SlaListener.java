@@ -0,0 +1,21 @@
+package org.example.sla;
+
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+
+/**
+ * 訂單逾時通知（在計時的工作執行緒上呼叫，不應長時間阻塞）
+ */
+@FunctionalInterface
+public interface SlaListener {
+
+    /** 不處理 */
+    SlaListener NONE = (order, status, action) -> {
+    };
+
+    /**
+     * @param status 逾時的狀態
+     * @param action 已執行的處理；AUTO_CANCEL 時訂單已取消
+     */
+    void onBreach(Order order, OrderStatus status, SlaAction action);
+}
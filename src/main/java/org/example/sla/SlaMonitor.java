@@ -0,0 +1,152 @@
+package org.example.sla;
+
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 追蹤每筆訂單在目前狀態的期限
+ * 每次狀態轉換時取消舊的計時，依新狀態的期限重新排程；終止狀態只取消不排程
+ * 到期時若訂單仍停留在同一狀態，交給 breachHandler 處理（例如自動取消），再通知 SlaPolicy 的 listener
+ */
+public class SlaMonitor implements AutoCloseable {
+
+    /** 預設時間精度 */
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    private final SlaPolicy policy;
+    private final SlaListener breachHandler;
+    private final TimingWheel wheel;
+    private final Map<String, Deadline> timers = new ConcurrentHashMap<>();
+    private final LongAdder[] breaches = new LongAdder[SlaAction.values().length];
+
+    /**
+     * @param breachHandler 執行逾時處理（例如經由 cancelOrder 取消），之後才通知 policy 的 listener
+     */
+    public SlaMonitor(SlaPolicy policy, SlaListener breachHandler) {
+        this(policy, breachHandler, DEFAULT_TICK_MILLIS);
+    }
+
+    public SlaMonitor(SlaPolicy policy, SlaListener breachHandler, long tickMillis) {
+        // 到期處理可能寫日誌，交給虛擬執行緒，計時執行緒只負責前進
+        this(policy, breachHandler, tickMillis, Executors.newVirtualThreadPerTaskExecutor()::execute);
+    }
+
+    /**
+     * @param executor 執行到期處理（例如分片的事件迴圈，逾時取消與其他寫入由同一條執行緒執行）
+     */
+    public SlaMonitor(SlaPolicy policy, SlaListener breachHandler, long tickMillis, Executor executor) {
+        this.policy = policy;
+        this.breachHandler = breachHandler;
+        this.wheel = new TimingWheel(tickMillis, executor, "sla-timer");
+        for (SlaAction action : SlaAction.values()) {
+            breaches[action.ordinal()] = new LongAdder();
+        }
+    }
+
+    /**
+     * 訂單進入目前狀態（建立、轉換或還原後）時呼叫；期限由訂單的狀態轉換時間起算
+     * 並行的轉換可能以任意順序呼叫，只保留狀態最新的期限：較舊的呼叫不會取代或取消較新的期限
+     */
+    public void track(Order order) {
+        OrderStatus status = order.getStatus();
+        long changedAt = order.getStatusChangedAtMillis();
+        SlaPolicy.Rule rule = policy.getRule(status);
+        timers.compute(order.getOrderId(), (orderId, current) -> {
+            // 讀取之後訂單已再次轉換，由該次轉換負責排程
+            if (order.getStatus() != status || order.getStatusChangedAtMillis() != changedAt) {
+                return current;
+            }
+            if (current != null && current.isNewerThan(status, changedAt)) {
+                return current;
+            }
+            Deadline deadline = null;
+            if (rule != null) {
+                Deadline scheduled = new Deadline(status, changedAt);
+                scheduled.timeout = wheel.schedule(changedAt + rule.getLimitMillis(),
+                        () -> onDeadline(order, scheduled, rule));
+                deadline = scheduled;
+            }
+            if (current != null) {
+                current.timeout.cancel();
+            }
+            return deadline;
+        });
+    }
+
+    /**
+     * 不再追蹤（訂單結束或移出記憶體）
+     */
+    public void untrack(String orderId) {
+        Deadline previous = timers.remove(orderId);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    private void onDeadline(Order order, Deadline deadline, SlaPolicy.Rule rule) {
+        OrderStatus status = deadline.status;
+        // 期間已轉換過狀態（計時取消前就已到期）時不處理
+        if (order.getStatus() != status || order.getStatusChangedAtMillis() != deadline.changedAt) {
+            return;
+        }
+        SlaAction action = rule.getAction();
+        if (action == SlaAction.ESCALATE) {
+            timers.remove(order.getOrderId(), deadline);
+        }
+        breachHandler.onBreach(order, status, action);
+        // 自動取消與其他請求同時發生時可能沒有取消成功，此時不算逾時處理
+        if (action == SlaAction.AUTO_CANCEL && order.getStatus() != OrderStatus.CANCELLED) {
+            return;
+        }
+        breaches[action.ordinal()].increment();
+        policy.getListener().onBreach(order, status, action);
+    }
+
+    /**
+     * 等待中的期限數
+     */
+    public long getActiveTimers() {
+        return wheel.size();
+    }
+
+    public long getBreaches(SlaAction action) {
+        return breaches[action.ordinal()].sum();
+    }
+
+    public SlaPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public void close() {
+        wheel.close();
+    }
+
+    /**
+     * 一筆訂單目前的期限與其對應的狀態
+     */
+    private static final class Deadline {
+        final OrderStatus status;
+        final long changedAt;
+        Timeout timeout;
+
+        Deadline(OrderStatus status, long changedAt) {
+            this.status = status;
+            this.changedAt = changedAt;
+        }
+
+        /**
+         * 狀態只會往後轉換：轉換時間較晚，或同一毫秒內狀態較後面者為新
+         */
+        boolean isNewerThan(OrderStatus otherStatus, long otherChangedAt) {
+            return changedAt != otherChangedAt ? changedAt > otherChangedAt
+                    : status.ordinal() > otherStatus.ordinal();
+        }
+    }
+}
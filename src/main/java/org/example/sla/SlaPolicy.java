@@ -0,0 +1,123 @@
+package org.example.sla;
+
+import org.example.model.OrderStatus;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 各訂單狀態的停留期限與逾時處理（不可變，with 方法回傳新的設定）
+ *
+ * SlaPolicy.none()
+ *         .withRule(OrderStatus.PENDING, Duration.ofMinutes(10), SlaAction.AUTO_CANCEL)
+ *         .withRule(OrderStatus.READY, Duration.ofMinutes(15), SlaAction.ESCALATE)
+ */
+public final class SlaPolicy {
+
+    private static final SlaPolicy NONE = new SlaPolicy(new EnumMap<>(OrderStatus.class), SlaListener.NONE);
+
+    private final Map<OrderStatus, Rule> rules;
+    private final SlaListener listener;
+
+    private SlaPolicy(Map<OrderStatus, Rule> rules, SlaListener listener) {
+        this.rules = Collections.unmodifiableMap(rules);
+        this.listener = listener;
+    }
+
+    public static SlaPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * 預設期限：10 分鐘沒有餐廳接單自動取消，餐點完成 15 分鐘沒有外送員取餐、配送超過 60 分鐘升級通報
+     */
+    public static SlaPolicy defaults() {
+        return none()
+                .withRule(OrderStatus.PENDING, Duration.ofMinutes(10), SlaAction.AUTO_CANCEL)
+                .withRule(OrderStatus.READY, Duration.ofMinutes(15), SlaAction.ESCALATE)
+                .withRule(OrderStatus.PICKED_UP, Duration.ofMinutes(60), SlaAction.ESCALATE);
+    }
+
+    /**
+     * 設定（或取代）某狀態的期限
+     * @throws IllegalArgumentException 終止狀態或期限不為正
+     */
+    public SlaPolicy withRule(OrderStatus status, Duration limit, SlaAction action) {
+        if (status.isTerminal()) {
+            throw new IllegalArgumentException("終止狀態不需要期限: " + status);
+        }
+        if (limit.isNegative() || limit.isZero()) {
+            throw new IllegalArgumentException("期限必須大於 0");
+        }
+        Map<OrderStatus, Rule> copy = copyRules();
+        copy.put(status, new Rule(limit.toMillis(), action));
+        return new SlaPolicy(copy, listener);
+    }
+
+    public SlaPolicy withoutRule(OrderStatus status) {
+        Map<OrderStatus, Rule> copy = copyRules();
+        copy.remove(status);
+        return new SlaPolicy(copy, listener);
+    }
+
+    /**
+     * 逾時通知對象（自動取消後與升級通報時呼叫）
+     */
+    public SlaPolicy withListener(SlaListener listener) {
+        return new SlaPolicy(copyRules(), listener);
+    }
+
+    private Map<OrderStatus, Rule> copyRules() {
+        Map<OrderStatus, Rule> copy = new EnumMap<>(OrderStatus.class);
+        copy.putAll(rules);
+        return copy;
+    }
+
+    /**
+     * @return 該狀態的期限，沒有設定時回傳 null
+     */
+    public Rule getRule(OrderStatus status) {
+        return rules.get(status);
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    public SlaListener getListener() {
+        return listener;
+    }
+
+    @Override
+    public String toString() {
+        return "SlaPolicy" + rules;
+    }
+
+    /**
+     * 單一狀態的期限
+     */
+    public static final class Rule {
+        private final long limitMillis;
+        private final SlaAction action;
+
+        Rule(long limitMillis, SlaAction action) {
+            this.limitMillis = limitMillis;
+            this.action = action;
+        }
+
+        public long getLimitMillis() {
+            return limitMillis;
+        }
+
+        public SlaAction getAction() {
+            return action;
+        }
+
+        @Override
+        public String toString() {
+            return action.name() + " after " + limitMillis / 1000 + "s";
+        }
+    }
+}
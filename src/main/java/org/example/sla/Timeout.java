@@ -0,0 +1,68 @@
+package org.example.sla;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * TimingWheel 中的一個計時
+ * 狀態以 CAS 轉換（等待中 → 取消 或 等待中 → 到期），取消與到期只會有一方成功
+ * 時間槽串列指標只由計時執行緒讀寫
+ */
+public final class Timeout {
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    static final int WAITING = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED = 2;
+
+    private final TimingWheel wheel;
+    private final long deadlineMillis;
+    final long deadlineTick;
+    final Runnable task;
+    private volatile int state = WAITING;
+
+    // 等待放入與等待移除的堆疊串接
+    Timeout pendingNext;
+    Timeout cancelledNext;
+    // 計時執行緒已取出（之後取消需要排入移除）
+    volatile boolean placed;
+
+    // 所在時間槽的雙向串列（計時執行緒專用）
+    Timeout prev;
+    Timeout next;
+    TimingWheel.Slot slot;
+
+    Timeout(TimingWheel wheel, long deadlineMillis, long deadlineTick, Runnable task) {
+        this.wheel = wheel;
+        this.deadlineMillis = deadlineMillis;
+        this.deadlineTick = deadlineTick;
+        this.task = task;
+    }
+
+    /**
+     * 取消計時；已到期或已取消時回傳 false
+     */
+    public boolean cancel() {
+        if (!STATE.compareAndSet(this, WAITING, CANCELLED)) {
+            return false;
+        }
+        wheel.onCancelled(this);
+        return true;
+    }
+
+    boolean expire() {
+        return STATE.compareAndSet(this, WAITING, EXPIRED);
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    public boolean isExpired() {
+        return state == EXPIRED;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+}
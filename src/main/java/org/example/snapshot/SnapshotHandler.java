@@ -0,0 +1,18 @@
+package org.example.snapshot;
+
+import org.example.model.Order;
+
+/**
+ * 載入快照時依序收到的紀錄
+ */
+public interface SnapshotHandler {
+
+    void onRestaurant(String restaurantId, boolean open, int maxConcurrentOrders, int ordersPerMinute, int burst);
+
+    void onCourier(String deliveryPersonId, boolean available);
+
+    /**
+     * @param order 已還原狀態、外送員與狀態轉換時間的訂單
+     */
+    void onOrder(Order order);
+}
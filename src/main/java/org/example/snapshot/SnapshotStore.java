@@ -0,0 +1,327 @@
+package org.example.snapshot;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.model.Order;
+import org.example.model.OrderStatus;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32C;
+
+/**
+ * 服務狀態快照的存放目錄
+ *
+ * 檔案格式：snapshot-NNNNNNNNNNNNNNNNNNNN.snap，編號為快照開始時的日誌位置。
+ * [int 魔數][short 版本][long 日誌位置][long 建立時間]，接著是以類型開頭的紀錄，類型 0 代表結束，
+ * 訂單中重複出現的字串以字典紀錄寫一次，之後以編號參照；金額以分保存，
+ * 訂單紀錄最後是 [byte 時間欄位數][long...]，依 ORDER_TIME_FIELDS 的順序，讀取時只套用認得的欄位；
+ * 最後是 [long 紀錄數][int CRC32C]（涵蓋結尾之前的所有內容）。
+ * 還原時載入最新且完整的快照，再從快照記錄的日誌位置繼續重播。
+ */
+public class SnapshotStore implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SnapshotStore.class);
+
+    public static final int DEFAULT_RETAINED = 2;
+
+    static final int MAGIC = 0x46445350; // "FDSP"
+    static final short VERSION = 2;
+    static final int HEADER_BYTES = 4 + 2 + 8 + 8;
+    static final int TRAILER_BYTES = 8 + 4;
+    static final String TEMP_SUFFIX = ".tmp";
+
+    static final byte END = 0;
+    static final byte RESTAURANT = 1;
+    static final byte COURIER = 2;
+    static final byte ORDER = 3;
+    static final byte DICTIONARY = 4;
+
+    // 訂單紀錄的時間欄位（epoch 毫秒）依序為：最後一次狀態轉換、預估送達、接單、餐點完成
+    static final int ORDER_TIME_FIELDS = 4;
+
+    private static final String FILE_PREFIX = "snapshot-";
+    private static final String FILE_SUFFIX = ".snap";
+    private static final int READ_BUFFER_BYTES = 4 * 1024 * 1024;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final Path directory;
+    private final int retained;
+
+    // 背景寫入快照的執行緒，同時只會有一份快照在寫
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SnapshotStore(Path directory) throws IOException {
+        this(directory, DEFAULT_RETAINED);
+    }
+
+    /**
+     * @param retained 保留最近幾份快照（最新一份損毀時可退回上一份）
+     */
+    public SnapshotStore(Path directory, int retained) throws IOException {
+        if (retained < 1) {
+            throw new IllegalArgumentException("至少需要保留一份快照");
+        }
+        this.directory = directory;
+        this.retained = retained;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * 開始寫入一份快照
+     * @param journalPosition 開始讀取狀態之前的日誌位置，之後的事件在還原時重播
+     */
+    public SnapshotWriter begin(long journalPosition) throws IOException {
+        return new SnapshotWriter(directory.resolve(fileName(journalPosition)), journalPosition);
+    }
+
+    /**
+     * 在背景執行緒執行寫入工作，不佔用呼叫端執行緒
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        writer.execute(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 刪除超出保留份數的舊快照與未完成的暫存檔
+     */
+    public void prune() throws IOException {
+        List<Long> positions = listSnapshots();
+        for (int i = 0; i < positions.size() - retained; i++) {
+            Files.deleteIfExists(directory.resolve(fileName(positions.get(i))));
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            for (Path temp : stream) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * 載入最新且完整的快照；損毀的快照會略過並改用前一份
+     * @return 快照記錄的日誌位置，沒有可用快照時回傳 -1
+     */
+    public long load(SnapshotHandler handler) throws IOException {
+        List<Long> positions = listSnapshots();
+        for (int i = positions.size() - 1; i >= 0; i--) {
+            Path file = directory.resolve(fileName(positions.get(i)));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // 先驗證整份檔案，避免套用到一半才發現損毀
+                if (!verify(channel)) {
+                    logger.warn("快照 {} 不完整或已損毀，改用前一份", file);
+                    continue;
+                }
+                long position = read(channel, handler);
+                logger.info("已載入快照 {}", file);
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown();
+    }
+
+    private boolean verify(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES + 1 + TRAILER_BYTES) {
+            return false;
+        }
+        long bodyEnd = size - TRAILER_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+        CRC32C checksum = new CRC32C();
+        long position = 0;
+        while (position < bodyEnd) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), bodyEnd - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            buffer.flip();
+            checksum.update(buffer);
+            position += read;
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+        channel.read(trailer, bodyEnd);
+        trailer.flip();
+        if (trailer.remaining() < TRAILER_BYTES) {
+            return false;
+        }
+        trailer.getLong();
+        return trailer.getInt() == (int) checksum.getValue();
+    }
+
+    private long read(FileChannel channel, SnapshotHandler handler) throws IOException {
+        channel.position(0);
+        Reader in = new Reader(channel);
+        in.ensure(HEADER_BYTES);
+        ByteBuffer buffer = in.buffer;
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("不是快照檔");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("不支援的快照版本: " + version);
+        }
+        long journalPosition = buffer.getLong();
+        buffer.getLong();
+        List<String> dictionary = new ArrayList<>();
+
+        while (true) {
+            in.ensure(1);
+            byte type = buffer.get();
+            switch (type) {
+                case END:
+                    return journalPosition;
+                case RESTAURANT: {
+                    String restaurantId = in.string();
+                    in.ensure(13);
+                    handler.onRestaurant(restaurantId, buffer.get() != 0,
+                            buffer.getInt(), buffer.getInt(), buffer.getInt());
+                    break;
+                }
+                case COURIER: {
+                    String deliveryPersonId = in.string();
+                    in.ensure(1);
+                    handler.onCourier(deliveryPersonId, buffer.get() != 0);
+                    break;
+                }
+                case DICTIONARY:
+                    dictionary.add(in.string());
+                    break;
+                case ORDER: {
+                    in.ensure(8);
+                    long orderTime = buffer.getLong();
+                    String orderId = in.string();
+                    in.ensure(12);
+                    String customerId = lookup(dictionary, buffer.getInt());
+                    String restaurantId = lookup(dictionary, buffer.getInt());
+                    String foodItems = lookup(dictionary, buffer.getInt());
+                    in.ensure(8);
+                    long totalAmountCents = buffer.getLong();
+                    String address = in.string();
+                    in.ensure(5);
+                    OrderStatus status = STATUSES[buffer.get()];
+                    String deliveryPersonId = lookup(dictionary, buffer.getInt());
+                    Order order = Order.restore(orderId, customerId, restaurantId, foodItems, totalAmountCents,
+                            address, orderTime);
+                    order.setStatus(status);
+                    order.setDeliveryPersonId(deliveryPersonId);
+                    restoreTimes(in, order);
+                    handler.onOrder(order);
+                    break;
+                }
+                default:
+                    throw new IOException("未知的快照紀錄類型: " + type);
+            }
+        }
+    }
+
+    /**
+     * 讀取訂單紀錄的時間欄位；較新版本多寫的欄位略過
+     */
+    private static void restoreTimes(Reader in, Order order) throws IOException {
+        in.ensure(1);
+        int fields = in.buffer.get();
+        in.ensure(8 * fields);
+        ByteBuffer buffer = in.buffer;
+        for (int i = 0; i < fields; i++) {
+            long value = buffer.getLong();
+            switch (i) {
+                case 0 -> order.setStatusChangedAtMillis(value);
+                case 1 -> order.setEstimatedDeliveryMillis(value);
+                case 2 -> order.setAcceptedAtMillis(value);
+                case 3 -> order.setReadyAtMillis(value);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static String lookup(List<String> dictionary, int index) {
+        return index < 0 ? null : dictionary.get(index);
+    }
+
+    private List<Long> listSnapshots() throws IOException {
+        List<Long> positions = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                positions.add(Long.parseLong(name.substring(FILE_PREFIX.length(),
+                        name.length() - FILE_SUFFIX.length())));
+            }
+        }
+        Collections.sort(positions);
+        return positions;
+    }
+
+    private static String fileName(long journalPosition) {
+        return String.format("%s%020d%s", FILE_PREFIX, journalPosition, FILE_SUFFIX);
+    }
+
+    /**
+     * 以固定大小的緩衝區循序讀取，不受檔案大小限制
+     */
+    private static final class Reader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+
+        Reader(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("快照檔提前結束");
+                }
+            }
+            buffer.flip();
+        }
+
+        String string() throws IOException {
+            ensure(2);
+            int length = buffer.getShort();
+            if (length < 0) {
+                return null;
+            }
+            ensure(length);
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.snapshot;
+
+import org.example.model.Order;
+import org.example.restaurant.RestaurantCapacity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * 寫入一份快照；先寫到暫存檔，commit 時落盤後再改名，未完成的快照不會被載入
+ * 非執行緒安全，同一份快照只由一條執行緒寫入
+ */
+public class SnapshotWriter implements Closeable {
+    private static final int BUFFER_BYTES = 1024 * 1024;
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final CRC32C checksum = new CRC32C();
+    // 重複出現的字串（顧客、餐廳、品項、外送員）只寫一次，之後以編號參照
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private long records;
+    private boolean committed;
+
+    SnapshotWriter(Path target, long journalPosition) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + SnapshotStore.TEMP_SUFFIX);
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(SnapshotStore.MAGIC);
+        buffer.putShort(SnapshotStore.VERSION);
+        buffer.putLong(journalPosition);
+        buffer.putLong(System.currentTimeMillis());
+    }
+
+    public void writeRestaurant(RestaurantCapacity restaurant) throws IOException {
+        byte[] id = encode(restaurant.getRestaurantId());
+        ensure(1 + stringBytes(id) + 1 + 12);
+        buffer.put(SnapshotStore.RESTAURANT);
+        putString(id);
+        buffer.put(restaurant.isOpen() ? (byte) 1 : (byte) 0);
+        buffer.putInt(restaurant.getMaxConcurrentOrders());
+        buffer.putInt(restaurant.getOrdersPerMinute());
+        buffer.putInt(restaurant.getBurst());
+        records++;
+    }
+
+    public void writeCourier(String deliveryPersonId, boolean available) throws IOException {
+        byte[] id = encode(deliveryPersonId);
+        ensure(1 + stringBytes(id) + 1);
+        buffer.put(SnapshotStore.COURIER);
+        putString(id);
+        buffer.put(available ? (byte) 1 : (byte) 0);
+        records++;
+    }
+
+    /**
+     * 寫入訂單當下的狀態；狀態、外送員與時間分別讀取，之間的變更會由日誌重播補齊
+     */
+    public void writeOrder(Order order) throws IOException {
+        int customerId = reference(order.getCustomerId());
+        int restaurantId = reference(order.getRestaurantId());
+        int foodItems = reference(order.getFoodItems());
+        int deliveryPersonId = reference(order.getDeliveryPersonId());
+        byte[] orderId = encode(order.getOrderId());
+        byte[] address = encode(order.getDeliveryAddress());
+        byte status = (byte) order.getStatus().ordinal();
+        ensure(1 + 8 + stringBytes(orderId) + 12 + 8 + stringBytes(address) + 1 + 4
+                + 1 + 8 * SnapshotStore.ORDER_TIME_FIELDS);
+        buffer.put(SnapshotStore.ORDER);
+        buffer.putLong(order.getOrderTimeMillis());
+        putString(orderId);
+        buffer.putInt(customerId);
+        buffer.putInt(restaurantId);
+        buffer.putInt(foodItems);
+        buffer.putLong(order.getTotalAmountCents());
+        putString(address);
+        buffer.put(status);
+        buffer.putInt(deliveryPersonId);
+        buffer.put((byte) SnapshotStore.ORDER_TIME_FIELDS);
+        buffer.putLong(order.getStatusChangedAtMillis());
+        buffer.putLong(order.getEstimatedDeliveryMillis());
+        buffer.putLong(order.getAcceptedAtMillis());
+        buffer.putLong(order.getReadyAtMillis());
+        records++;
+    }
+
+    /**
+     * 取得字串的字典編號，第一次出現時先寫入字典紀錄
+     * @return 字典編號，null 為 -1
+     */
+    private int reference(String value) throws IOException {
+        if (value == null) {
+            return -1;
+        }
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            return index;
+        }
+        byte[] bytes = encode(value);
+        ensure(1 + stringBytes(bytes));
+        buffer.put(SnapshotStore.DICTIONARY);
+        putString(bytes);
+        index = dictionary.size();
+        dictionary.put(value, index);
+        return index;
+    }
+
+    /**
+     * 寫入結尾（紀錄數與 CRC32C）、落盤並改名為正式檔名
+     * @return 快照檔大小
+     */
+    public long commit() throws IOException {
+        ensure(1);
+        buffer.put(SnapshotStore.END);
+        drain();
+        ByteBuffer trailer = ByteBuffer.allocate(SnapshotStore.TRAILER_BYTES);
+        trailer.putLong(records);
+        trailer.putInt((int) checksum.getValue());
+        trailer.flip();
+        while (trailer.hasRemaining()) {
+            channel.write(trailer);
+        }
+        channel.force(true);
+        long size = channel.size();
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+        return size;
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.close();
+        }
+        if (!committed) {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (bytes > buffer.capacity()) {
+            throw new IllegalArgumentException("快照紀錄過長: " + bytes + " bytes");
+        }
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        checksum.update(buffer.array(), 0, buffer.limit());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void putString(byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static int stringBytes(byte[] bytes) {
+        return 2 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("快照欄位過長: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndMonotonicPerThread() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            Set<Long> seen = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get(60, TimeUnit.SECONDS);
+                for (int i = 0; i < ids.length; i++) {
+                    // 同一條執行緒取得的編號必須嚴格遞增
+                    if (i > 0) {
+                        assertTrue(ids[i] > ids[i - 1], "編號未遞增: " + ids[i - 1] + " -> " + ids[i]);
+                    }
+                    assertTrue(seen.add(ids[i]), "編號重複: " + ids[i]);
+                    assertEquals(7, SnowflakeIdGenerator.extractNodeId(ids[i]));
+                }
+            }
+            assertEquals(THREADS * IDS_PER_THREAD, seen.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void compactStringRoundTripsAndSortsInCreationOrder() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        long previous = generator.nextId();
+        String previousString = SnowflakeIdGenerator.toCompactString(previous);
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            String s = SnowflakeIdGenerator.toCompactString(id);
+            assertEquals(id, SnowflakeIdGenerator.parseCompactString(s));
+            assertTrue(s.compareTo(previousString) > 0);
+            previousString = s;
+        }
+        assertEquals(-1, SnowflakeIdGenerator.parseCompactString("ORDxyz"));
+        // 超出 long 範圍的字串不可溢位成其他編號
+        assertEquals(Long.MAX_VALUE,
+                SnowflakeIdGenerator.parseCompactString(SnowflakeIdGenerator.toCompactString(Long.MAX_VALUE)));
+        assertEquals(-1, SnowflakeIdGenerator.parseCompactString(SnowflakeIdGenerator.toCompactString(Long.MIN_VALUE)));
+        assertEquals(-1, SnowflakeIdGenerator.parseCompactString("ORDZZZZZZZZZZZZZ"));
+    }
+
+    @Test
+    void timestampIsExtractable() {
+        long before = System.currentTimeMillis();
+        long id = new SnowflakeIdGenerator(0).nextId();
+        long after = System.currentTimeMillis();
+        long ts = SnowflakeIdGenerator.extractTimestampMillis(id);
+        // 同一毫秒序號用盡時會借用下一毫秒
+        assertTrue(ts >= before && ts <= after + 1);
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+    }
+}
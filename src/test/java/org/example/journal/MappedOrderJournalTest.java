@@ -0,0 +1,175 @@
+package org.example.journal;
+
+import org.example.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedOrderJournalTest {
+
+    // 允許的最小分段：標頭 8 bytes 加上單筆紀錄上限 64 KB
+    private static final int SEGMENT_SIZE = 8 + 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private MappedOrderJournal open() throws IOException {
+        return new MappedOrderJournal(directory, FsyncPolicy.OS_MANAGED, SEGMENT_SIZE, 0);
+    }
+
+    @Test
+    void tornTailIsTruncatedOnReopen() throws IOException {
+        long intact;
+        long torn;
+        try (MappedOrderJournal journal = open()) {
+            journal.appendRestaurantAvailability("R1", true);
+            journal.appendRestaurantAvailability("R2", true);
+            intact = journal.getWrittenPosition();
+            journal.appendRestaurantAvailability("R3", true);
+            torn = journal.getWrittenPosition();
+        }
+        // 模擬當機：最後一筆紀錄只寫了一半（內容與 CRC 不符）
+        corrupt(segmentFile(0), torn - 1);
+
+        try (MappedOrderJournal journal = open()) {
+            assertEquals(intact, journal.getWrittenPosition(), "應截斷到最後一筆完整紀錄之後");
+            RecordingHandler replayed = new RecordingHandler();
+            assertEquals(2, journal.replayFrom(0, replayed));
+            assertEquals(List.of("R1", "R2"), replayed.restaurants);
+
+            // 截斷後從該位置繼續寫，新紀錄可以重播
+            journal.appendRestaurantAvailability("R4", false);
+        }
+        try (MappedOrderJournal journal = open()) {
+            RecordingHandler replayed = new RecordingHandler();
+            assertEquals(3, journal.replayFrom(0, replayed));
+            assertEquals(List.of("R1", "R2", "R4"), replayed.restaurants);
+        }
+    }
+
+    @Test
+    void partialHeaderIsTruncatedOnReopen() throws IOException {
+        long intact;
+        try (MappedOrderJournal journal = open()) {
+            journal.appendRestaurantAvailability("R1", true);
+            intact = journal.getWrittenPosition();
+        }
+        // 只寫入長度欄位，CRC 與內容都還沒寫
+        try (FileChannel channel = FileChannel.open(segmentFile(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 32), intact);
+        }
+        try (MappedOrderJournal journal = open()) {
+            assertEquals(intact, journal.getWrittenPosition());
+            journal.appendRestaurantAvailability("R2", true);
+            RecordingHandler replayed = new RecordingHandler();
+            assertEquals(2, journal.replayFrom(0, replayed));
+            assertEquals(List.of("R1", "R2"), replayed.restaurants);
+        }
+    }
+
+    @Test
+    void replayFromSnapshotPositionSkipsEarlierEvents() throws IOException {
+        int before = 5_000;
+        int after = 7_000;
+        long snapshotPosition;
+        try (MappedOrderJournal journal = open()) {
+            for (int i = 0; i < before; i++) {
+                journal.appendRestaurantAvailability("B" + i, true);
+            }
+            // 快照記錄的位置：之後的事件才需要重播
+            snapshotPosition = journal.getWrittenPosition();
+            for (int i = 0; i < after; i++) {
+                journal.appendRestaurantAvailability("A" + i, i % 2 == 0);
+            }
+        }
+        assertTrue(countSegments() > 2, "事件應跨越多個分段");
+
+        try (MappedOrderJournal journal = open()) {
+            RecordingHandler replayed = new RecordingHandler();
+            assertEquals(after, journal.replayFrom(snapshotPosition, replayed));
+            assertEquals(after, replayed.restaurants.size());
+            for (int i = 0; i < after; i++) {
+                assertEquals("A" + i, replayed.restaurants.get(i));
+            }
+            assertEquals(before + after, journal.replayFrom(0, new RecordingHandler()));
+        }
+    }
+
+    @Test
+    void replayDecodesEveryEventType() throws IOException {
+        try (MappedOrderJournal journal = open()) {
+            journal.appendStatusChanged("ORD1", OrderStatus.PICKED_UP, "D1");
+            journal.appendRestaurantCapacity("R1", 5, 30, 10);
+            journal.appendCourierAvailability("D1", false);
+        }
+        try (MappedOrderJournal journal = open()) {
+            RecordingHandler replayed = new RecordingHandler();
+            assertEquals(3, journal.replayFrom(0, replayed));
+            assertEquals(List.of("ORD1:PICKED_UP:D1", "R1:5/30/10", "D1:false"), replayed.events);
+        }
+    }
+
+    private Path segmentFile(long index) {
+        return directory.resolve(String.format("journal-%020d.seg", index));
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static void corrupt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) (one.get(0) ^ 0xFF));
+            one.rewind();
+            channel.write(one, position);
+        }
+    }
+
+    private static final class RecordingHandler implements OrderEventHandler {
+        final List<String> restaurants = new ArrayList<>();
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onOrderCreated(long timestampMillis, String orderId, String customerId, String restaurantId,
+                                   String foodItems, double totalAmount, String deliveryAddress) {
+            events.add(orderId);
+        }
+
+        @Override
+        public void onStatusChanged(long timestampMillis, String orderId, OrderStatus status, String deliveryPersonId) {
+            events.add(orderId + ':' + status + ':' + deliveryPersonId);
+        }
+
+        @Override
+        public void onRestaurantAvailability(long timestampMillis, String restaurantId, boolean available) {
+            restaurants.add(restaurantId);
+        }
+
+        @Override
+        public void onRestaurantCapacity(long timestampMillis, String restaurantId, int maxConcurrentOrders,
+                                         int ordersPerMinute, int burst) {
+            events.add(restaurantId + ':' + maxConcurrentOrders + '/' + ordersPerMinute + '/' + burst);
+        }
+
+        @Override
+        public void onCourierAvailability(long timestampMillis, String deliveryPersonId, boolean available) {
+            events.add(deliveryPersonId + ':' + available);
+        }
+    }
+}
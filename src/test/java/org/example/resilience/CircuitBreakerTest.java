@@ -0,0 +1,159 @@
+package org.example.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long NOW = 1_000_000L;
+    private static final long OPEN_MILLIS = 1_000;
+
+    private final List<String> transitions = new CopyOnWriteArrayList<>();
+
+    private CircuitBreaker breaker(int probes) {
+        BreakerPolicy policy = BreakerPolicy.defaults()
+                .withFailureRate(50, 4, 10)
+                .withOpenDuration(Duration.ofMillis(OPEN_MILLIS))
+                .withHalfOpenProbes(probes);
+        return new CircuitBreaker("test", policy, (name, from, to) -> transitions.add(from + "->" + to));
+    }
+
+    private static void trip(CircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquirePermission(NOW));
+            breaker.onFailure(NOW);
+        }
+    }
+
+    @Test
+    void closedOpenHalfOpenClosed() {
+        CircuitBreaker breaker = breaker(2);
+        // 未達最少筆數前不斷路
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquirePermission(NOW));
+            breaker.onFailure(NOW);
+        }
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission(NOW));
+        breaker.onFailure(NOW);
+        assertEquals(CircuitState.OPEN, breaker.getState());
+
+        // 斷路期間快速失敗
+        assertFalse(breaker.tryAcquirePermission(NOW + OPEN_MILLIS - 1));
+        assertEquals(1, breaker.getRejected());
+        assertEquals(1, breaker.getRemainingOpenMillis(NOW + OPEN_MILLIS - 1));
+
+        // 斷路時間過後放行試探，全部成功才恢復
+        assertTrue(breaker.tryAcquirePermission(NOW + OPEN_MILLIS));
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission(NOW + OPEN_MILLIS));
+        breaker.onSuccess();
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+        breaker.onSuccess();
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    void halfOpenFailureReopens() {
+        CircuitBreaker breaker = breaker(3);
+        trip(breaker);
+        long later = NOW + OPEN_MILLIS;
+        assertTrue(breaker.tryAcquirePermission(later));
+        breaker.onSuccess();
+        assertTrue(breaker.tryAcquirePermission(later));
+        breaker.onFailure(later);
+        assertEquals(CircuitState.OPEN, breaker.getState());
+        // 重新計算斷路時間
+        assertFalse(breaker.tryAcquirePermission(later + OPEN_MILLIS - 1));
+        assertTrue(breaker.tryAcquirePermission(later + OPEN_MILLIS));
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN", "OPEN->HALF_OPEN"), transitions);
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyConfiguredProbes() {
+        CircuitBreaker breaker = breaker(2);
+        trip(breaker);
+        long later = NOW + OPEN_MILLIS;
+        assertTrue(breaker.tryAcquirePermission(later));
+        assertTrue(breaker.tryAcquirePermission(later));
+        assertFalse(breaker.tryAcquirePermission(later));
+        assertEquals(1, breaker.getRejected());
+
+        // 歸還的許可可以再給下一筆試探
+        breaker.releasePermission();
+        assertTrue(breaker.tryAcquirePermission(later));
+        assertFalse(breaker.tryAcquirePermission(later));
+    }
+
+    @Test
+    void concurrentProbesNeverExceedLimit() throws Exception {
+        int probes = 3;
+        int threads = 16;
+        for (int round = 0; round < 200; round++) {
+            CircuitBreaker breaker = breaker(probes);
+            trip(breaker);
+            AtomicInteger admitted = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = Thread.ofPlatform().start(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (breaker.tryAcquirePermission(NOW + OPEN_MILLIS)) {
+                        admitted.incrementAndGet();
+                    }
+                });
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            assertEquals(probes, admitted.get(), "試探數超過上限");
+            assertEquals(threads - probes, breaker.getRejected());
+            assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+        }
+    }
+
+    @Test
+    void resultsFromBeforeTripDoNotCloseBreaker() {
+        CircuitBreaker breaker = breaker(1);
+        assertTrue(breaker.tryAcquirePermission(NOW));
+        trip(breaker);
+        // 斷路前放行的呼叫晚到的成功不影響狀態
+        breaker.onSuccess();
+        assertEquals(CircuitState.OPEN, breaker.getState());
+    }
+
+    @Test
+    void windowResetsFailureCount() {
+        CircuitBreaker breaker = breaker(1);
+        // 視窗 10 筆內失敗 3 筆（30%）不斷路，視窗結束後重新計算
+        for (int i = 0; i < 10; i++) {
+            assertTrue(breaker.tryAcquirePermission(NOW));
+            if (i < 3) {
+                breaker.onFailure(NOW);
+            } else {
+                breaker.onSuccess();
+            }
+        }
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission(NOW));
+        breaker.onFailure(NOW);
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+        assertTrue(transitions.isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetrySchedulerTest {
+
+    private static final RetryPolicy FAST = new RetryPolicy(3, 2, 4);
+
+    @Test
+    void retriesUntilSuccess() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (RetryScheduler scheduler = new RetryScheduler(1)) {
+            CompletableFuture<String> result = scheduler.execute(() -> {
+                if (calls.incrementAndGet() < 3) {
+                    throw new IllegalStateException("暫時失敗");
+                }
+                return "ok";
+            }, t -> t instanceof IllegalStateException, FAST);
+            assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+            assertEquals(3, calls.get());
+            assertEquals(2, scheduler.getScheduled());
+            assertEquals(0, scheduler.getExhausted());
+        }
+    }
+
+    @Test
+    void exhaustedAttemptsFailWithLastError() {
+        AtomicInteger calls = new AtomicInteger();
+        try (RetryScheduler scheduler = new RetryScheduler(1)) {
+            CompletableFuture<String> result = scheduler.execute(() -> {
+                throw new IllegalStateException("第 " + calls.incrementAndGet() + " 次失敗");
+            }, t -> true, FAST);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals("第 3 次失敗", e.getCause().getMessage());
+            assertEquals(3, calls.get());
+            assertEquals(1, scheduler.getExhausted());
+        }
+    }
+
+    @Test
+    void nonRetryableFailsImmediately() {
+        AtomicInteger calls = new AtomicInteger();
+        IllegalArgumentException failure = new IllegalArgumentException("不可重試");
+        try (RetryScheduler scheduler = new RetryScheduler(1)) {
+            CompletableFuture<String> result = scheduler.execute(() -> {
+                calls.incrementAndGet();
+                throw failure;
+            }, t -> t instanceof IllegalStateException, FAST);
+            // 第一次嘗試在呼叫端執行緒上執行，回傳時已完成
+            assertTrue(result.isDone());
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertSame(failure, e.getCause());
+            assertEquals(1, calls.get());
+            assertEquals(0, scheduler.getScheduled());
+        }
+    }
+
+    @Test
+    void closeCompletesPendingRetries() {
+        RetryScheduler scheduler = new RetryScheduler(1);
+        CompletableFuture<String> result = scheduler.execute(() -> {
+            throw new IllegalStateException("等待重試");
+        }, t -> true, new RetryPolicy(3, 60_000, 60_000));
+        scheduler.close();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.service;
+
+import org.example.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyTest {
+
+    private static final String RESTAURANT = "R001";
+
+    @Test
+    void concurrentDuplicatesCreateOneOrder() throws Exception {
+        int threads = 16;
+        try (DeliveryService service = new DeliveryService();
+             ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            service.setRestaurantAvailability(RESTAURANT, true);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Order>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return service.createOrder("key-1", "C001", RESTAURANT, "牛肉麵", 180, "台北市信義路一段 1 號");
+                }));
+            }
+            start.countDown();
+            Order first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Order> result : results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS), "重複提交應取得同一筆訂單");
+            }
+            assertEquals(1, service.getOrdersByCustomer("C001").size());
+        }
+    }
+
+    @Test
+    void keyReusedWithDifferentBodyIsRejected() {
+        try (DeliveryService service = new DeliveryService()) {
+            service.setRestaurantAvailability(RESTAURANT, true);
+            Order order = service.createOrder("key-1", "C001", RESTAURANT, "牛肉麵", 180, "台北市信義路一段 1 號");
+            assertSame(order, service.createOrder("key-1", "C001", RESTAURANT, "牛肉麵", 180, "台北市信義路一段 1 號"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.createOrder("key-1", "C001", RESTAURANT, "牛肉麵", 200, "台北市信義路一段 1 號"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.createOrder("key-1", "C001", RESTAURANT, "牛肉麵", 180, "台北市忠孝東路 2 號"));
+            // 鍵以顧客區隔
+            assertNotSame(order, service.createOrder("key-1", "C002", RESTAURANT, "牛肉麵", 180, "台北市信義路一段 1 號"));
+            assertEquals(1, service.getOrdersByCustomer("C001").size());
+        }
+    }
+
+    @Test
+    void failedCreateReleasesKey() {
+        try (DeliveryService service = new DeliveryService()) {
+            service.setRestaurantAvailability(RESTAURANT, true);
+            // 金額不正確：第一次失敗後鍵被移除，修正後可用同一把鍵重新提交
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.createOrder("key-1", "C001", RESTAURANT, "牛肉麵", -1, "台北市信義路一段 1 號"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.createOrder("key-1", "C001", RESTAURANT, "牛肉麵", -1, "台北市信義路一段 1 號"));
+            assertTrue(service.getOrdersByCustomer("C001").isEmpty());
+        }
+    }
+
+    @Test
+    void inFlightKeySurvivesCapacityEviction() {
+        // 每段只保留 1 把鍵
+        IdempotencyCache cache = new IdempotencyCache(60_000, 16);
+        CompletableFuture<Order> pending = new CompletableFuture<>();
+        assertSame(pending, cache.claim("in-flight", "body", 0, pending));
+        for (int i = 0; i < 1_000; i++) {
+            CompletableFuture<Order> done = new CompletableFuture<>();
+            cache.claim("done-" + i, "body", 0, done);
+            done.complete(null);
+        }
+        assertTrue(cache.getEvicted() > 0);
+        assertSame(pending, cache.claim("in-flight", "body", 0, new CompletableFuture<>()),
+                "建立中的鍵不可被容量淘汰");
+    }
+
+    @Test
+    void inFlightKeySurvivesExpiry() {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 16);
+        CompletableFuture<Order> pending = new CompletableFuture<>();
+        cache.claim("in-flight", "body", 0, pending);
+        assertSame(pending, cache.claim("in-flight", "body", 5_000, new CompletableFuture<>()),
+                "建立中的鍵不可因時間窗到期被移除");
+        pending.complete(null);
+        CompletableFuture<Order> retry = new CompletableFuture<>();
+        assertSame(retry, cache.claim("in-flight", "body", 10_000, retry));
+    }
+}
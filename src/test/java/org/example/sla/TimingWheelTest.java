@@ -0,0 +1,120 @@
+package org.example.sla;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void timeoutsCascadeAcrossLevelBoundaries() throws Exception {
+        AtomicLong clock = new AtomicLong(START);
+        // 第 0 層 256 tick、第 1 層 65536 tick、第 2 層 16777216 tick 的邊界前後各放一個
+        long[] offsets = {1, 255, 256, 257, 65_535, 65_536, 65_537, 300_000, 16_777_215, 16_777_216, 16_777_217};
+        Map<Long, Long> fired = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(offsets.length);
+        try (TimingWheel wheel = new TimingWheel(1, Runnable::run, "test-timer", clock::get)) {
+            for (long offset : offsets) {
+                wheel.schedule(START + offset, () -> {
+                    fired.put(offset, clock.get());
+                    done.countDown();
+                });
+            }
+            // 等計時執行緒把計時放入時間槽，之後的時間推進才會經過重新分配
+            awaitPlaced();
+
+            for (long offset : offsets) {
+                clock.set(START + offset - 1);
+                awaitPlaced();
+                assertFalse(fired.containsKey(offset), "提前到期: " + offset);
+                clock.set(START + offset);
+                awaitFired(fired, offset);
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(0, wheel.size());
+            for (long offset : offsets) {
+                assertEquals(START + offset, fired.get(offset), "到期時間不符: " + offset);
+            }
+        }
+    }
+
+    @Test
+    void cancelAndExpireNeverBothSucceed() throws Exception {
+        int count = 20_000;
+        AtomicIntegerArray ran = new AtomicIntegerArray(count);
+        List<Timeout> timeouts = new ArrayList<>(count);
+        boolean[] cancelled = new boolean[count];
+        try (TimingWheel wheel = new TimingWheel(1, Runnable::run, "test-timer")) {
+            long deadline = System.currentTimeMillis() + 5;
+            for (int i = 0; i < count; i++) {
+                int id = i;
+                timeouts.add(wheel.schedule(deadline, () -> ran.incrementAndGet(id)));
+            }
+            // 與到期同時取消
+            for (int i = 0; i < count; i++) {
+                cancelled[i] = timeouts.get(i).cancel();
+            }
+            long until = System.currentTimeMillis() + 5_000;
+            while (wheel.size() > 0 && System.currentTimeMillis() < until) {
+                Thread.sleep(5);
+            }
+            assertEquals(0, wheel.size());
+            Thread.sleep(20);
+        }
+        for (int i = 0; i < count; i++) {
+            Timeout timeout = timeouts.get(i);
+            if (cancelled[i]) {
+                assertEquals(0, ran.get(i), "已取消的計時仍被執行: " + i);
+                assertTrue(timeout.isCancelled());
+            } else {
+                assertEquals(1, ran.get(i), "未取消的計時沒有恰好執行一次: " + i);
+                assertTrue(timeout.isExpired());
+            }
+        }
+    }
+
+    @Test
+    void cancelledTimeoutIsRemovedFromSlot() throws Exception {
+        AtomicLong clock = new AtomicLong(START);
+        CountDownLatch kept = new CountDownLatch(1);
+        try (TimingWheel wheel = new TimingWheel(1, Runnable::run, "test-timer", clock::get)) {
+            Timeout dropped = wheel.schedule(START + 1_000, () -> {
+                throw new AssertionError("已取消的計時被執行");
+            });
+            wheel.schedule(START + 1_000, kept::countDown);
+            awaitPlaced();
+            assertTrue(dropped.cancel());
+            assertFalse(dropped.cancel());
+            assertEquals(1, wheel.size());
+            clock.set(START + 1_000);
+            assertTrue(kept.await(5, TimeUnit.SECONDS));
+            assertTrue(dropped.isCancelled());
+        }
+    }
+
+    private static void awaitPlaced() throws InterruptedException {
+        // tick 為 1 ms，計時執行緒最多 park 一個 tick
+        Thread.sleep(20);
+    }
+
+    private static void awaitFired(Map<Long, Long> fired, long offset) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5_000;
+        while (!fired.containsKey(offset) && System.currentTimeMillis() < until) {
+            Thread.sleep(1);
+        }
+        assertTrue(fired.containsKey(offset), "沒有到期: " + offset);
+    }
+}